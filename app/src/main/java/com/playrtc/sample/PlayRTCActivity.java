@@ -20,15 +20,19 @@ import android.widget.TextView;
 import com.playrtc.sample.handler.PlayRTCChannelViewListener;
 import com.playrtc.sample.handler.PlayRTCDataChannelHandler;
 import com.playrtc.sample.handler.PlayRTCHandler;
+import com.playrtc.sample.stats.StatsHistory;
 import com.playrtc.sample.util.Utils;
 import com.playrtc.sample.view.LocalVideoView;
 import com.playrtc.sample.view.PlayRTCChannelView;
 import com.playrtc.sample.view.PlayRTCLogView;
 import com.playrtc.sample.view.PlayRTCSnapshotView;
 import com.playrtc.sample.view.PlayRTCSnapshotView.SnapshotLayerObserver;
+import com.playrtc.sample.view.PlayRTCStatsGraphView;
+import com.playrtc.sample.view.PlayRTCStatsView;
 import com.playrtc.sample.view.PlayRTCVerticalSeekBar;
 import com.playrtc.sample.view.PlayRTCVideoViewGroup;
 import com.sktelecom.playrtc.PlayRTC.PlayRTCWhiteBalance;
+import com.sktelecom.playrtc.PlayRTCStatsReport;
 import com.sktelecom.playrtc.exception.RequiredParameterMissingException;
 import com.sktelecom.playrtc.exception.UnsupportedPlatformVersionException;
 import com.sktelecom.playrtc.util.PlayRTCRange;
@@ -98,9 +102,18 @@ public class PlayRTCActivity extends Activity {
     private PlayRTCLogView logView = null;
 
     /*
-     * PlayRTC P2P Status report 출력 TextView
+     * PlayRTC P2P Status report 출력 View
+     *
+     * @see com.playrtc.sample.view.PlayRTCStatsView
+     */
+    private PlayRTCStatsView statsView = null;
+
+    /*
+     * PlayRTC P2P Status report 추이 그래프 출력 View
+     *
+     * @see com.playrtc.sample.view.PlayRTCStatsGraphView
      */
-    private TextView txtStatReport = null;
+    private PlayRTCStatsGraphView statsGraphView = null;
 
 
     /*
@@ -248,6 +261,10 @@ public class PlayRTCActivity extends Activity {
             playrtcHandler.close();
             playrtcHandler = null;
         }
+        // 데이터 채널 송/수신 Thread 종료
+        if (dataHandler != null) {
+            dataHandler.close();
+        }
         // v2.2.6
         if (videoLayer != null) {
             videoLayer.releaseView();
@@ -411,16 +428,56 @@ public class PlayRTCActivity extends Activity {
     }
 
     /*
-     * PlayRTC P2P 상태 문자열을 출력한다.
-     * @param resport
+     * PlayRTCLogView 하단에 진행 상태 줄(Slot)을 추가한다. 동시에 진행 중인 전송 마다 사용
+     * @param message String
+     * @return int, Slot 번호, 사용 가능한 Slot이 없으면 -1
      */
-    public void printRtcStatReport(final String resport) {
-        txtStatReport.post(new Runnable() {
-            public void run() {
-                txtStatReport.setText(resport);
+    public int openProgressSlot(String message) {
+        if (logView != null) {
+            return logView.openProgressSlot(message);
+        }
+        return -1;
+    }
 
-            }
-        });
+    /*
+     * Slot 줄의 진행 상태 메세지만 갱신한다.
+     * @param slot int
+     * @param message String
+     */
+    public void updateProgressSlot(int slot, String message) {
+        if (logView != null) {
+            logView.updateProgressSlot(slot, message);
+        }
+    }
+
+    /*
+     * Slot을 반환한다. 마지막 메세지는 로그에 남는다.
+     * @param slot int
+     */
+    public void closeProgressSlot(int slot) {
+        if (logView != null) {
+            logView.closeProgressSlot(slot);
+        }
+    }
+
+    /*
+     * PlayRTC P2P 상태를 출력한다. 어느 Thread에서나 호출할 수 있다.
+     * @param report PlayRTCStatsReport
+     */
+    public void printRtcStatReport(PlayRTCStatsReport report) {
+        if (statsView != null) {
+            statsView.setStatsReport(report);
+        }
+    }
+
+    /*
+     * PlayRTC P2P 상태 기록의 추이 그래프를 출력한다. 어느 Thread에서나 호출할 수 있다.
+     * @param history StatsHistory
+     */
+    public void printRtcStatGraph(StatsHistory history) {
+        if (statsGraphView != null) {
+            statsGraphView.update(history);
+        }
     }
 
     /*
@@ -442,10 +499,9 @@ public class PlayRTCActivity extends Activity {
 
         snapshotLayer = (PlayRTCSnapshotView) this.findViewById(R.id.snapshot_area);
 
-        /* PlayRTC P2P Status report 출력 TextView */
-        txtStatReport = (TextView) this.findViewById(R.id.txt_stat_report);
-        String text = "Local\n ICE:none\n Frame:0x0x0\n Bandwidth[0bps]\n RTT[0]\n eModel[-]\n VFLost[0]\n AFLost[0]\n\nRemote\n ICE:none\n Frame:0x0x0\n Bandwidth[0bps]\n VFLost[0]\n AFLost[0]";
-        txtStatReport.setText(text);
+        /* PlayRTC P2P Status report 출력 View */
+        statsView = (PlayRTCStatsView) this.findViewById(R.id.txt_stat_report);
+        statsGraphView = (PlayRTCStatsGraphView) this.findViewById(R.id.stat_graph);
 
 
         /* 채널 팝업 버튼 */
@@ -1,14 +1,43 @@
 package com.playrtc.sample.handler;
 
 import android.annotation.SuppressLint;
+import android.database.Cursor;
+import android.net.Uri;
 import android.os.Environment;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.ParcelFileDescriptor;
+import android.provider.OpenableColumns;
 import android.text.TextUtils;
 import android.util.Log;
 import android.widget.Toast;
 
 import com.playrtc.sample.PlayRTCActivity;
+import com.playrtc.sample.transfer.ArchiveReceiver;
+import com.playrtc.sample.transfer.ArchiveSender;
+import com.playrtc.sample.transfer.BinaryMessageCodec;
+import com.playrtc.sample.transfer.ContentStore;
+import com.playrtc.sample.transfer.DataChannelMetrics;
+import com.playrtc.sample.transfer.DataSendScheduler;
+import com.playrtc.sample.transfer.DataTransfer;
+import com.playrtc.sample.transfer.DataTransferManager;
+import com.playrtc.sample.transfer.DeltaFileReceiver;
+import com.playrtc.sample.transfer.DeltaFileSender;
+import com.playrtc.sample.transfer.DigestCache;
+import com.playrtc.sample.transfer.DigestVerifier;
+import com.playrtc.sample.transfer.LatencyHistogram;
+import com.playrtc.sample.transfer.MappedFileInputStream;
+import com.playrtc.sample.transfer.MessageBatcher;
+import com.playrtc.sample.transfer.MessageSchema;
+import com.playrtc.sample.transfer.MessageWriter;
+import com.playrtc.sample.transfer.PayloadCompressor;
+import com.playrtc.sample.transfer.ProgressAggregator;
+import com.playrtc.sample.transfer.ResumableFileReceiver;
+import com.playrtc.sample.transfer.ResumableFileSender;
+import com.playrtc.sample.transfer.SilentSendObserver;
+import com.playrtc.sample.transfer.TransferDigest;
+import com.playrtc.sample.transfer.TransferJournal;
+import com.playrtc.sample.transfer.TransferProtocol;
 import com.playrtc.sample.util.Utils;
 import com.sktelecom.playrtc.observer.PlayRTCDataObserver;
 import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
@@ -19,10 +48,17 @@ import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCFileReveType;
 import com.sktelecom.playrtc.stream.PlayRTCDataHeader;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Date;
+import java.nio.charset.Charset;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 /*
  * PlayRTCData를 위한 Handler Class
@@ -43,6 +79,7 @@ import java.util.Date;
  */
 public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
     private static final String LOG_TAG = "DATA-HANDLER";
+    private static final Charset UTF8 = Charset.forName("UTF-8");
 
     private PlayRTCActivity activity = null;
 
@@ -51,14 +88,143 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
      */
     private PlayRTCData dataChannel = null;
 
+    /*
+     * PlayRTCData 전송 요청을 우선 순위 별로 대기시키고 전송 중인 데이터 크기를 제한하는 Scheduler
+     * 파일 전송 중에도 제어/텍스트 메세지가 파일 데이터 뒤에 쌓이지 않도록 모든 전송은 Scheduler를 통해 요청한다.
+     */
+    private final DataSendScheduler scheduler = new DataSendScheduler();
+
+    /*
+     * 작은 메세지를 묶어서 전송하는 Batcher, sendMessage로 사용
+     */
+    private final MessageBatcher batcher = new MessageBatcher(scheduler);
+
+    /*
+     * 텍스트/Binary 메세지 압축, 압축 효과가 있는 메세지만 MIME_PACKED로 압축하여 전송한다.
+     */
+    private final PayloadCompressor compressor = new PayloadCompressor();
+
+    /*
+     * MessageSchema 형식의 고정 길이 Binary 메세지 송/수신, 수신 메세지는 schema 별로 등록한 Receiver로 전달한다.
+     */
+    private final BinaryMessageCodec messageCodec = new BinaryMessageCodec(scheduler);
+
+    /*
+     * PlayRTCData#sendFile로 수신한 파일의 Digest를 송신 측 Digest와 비교
+     * 불일치하면 onError(FileIO)로 전달한다.
+     */
+    private final DigestVerifier digestVerifier = new DigestVerifier(new DigestVerifier.Listener() {
+        @Override
+        public void onVerified(String peerId, long id, String name) {
+            Log.d(LOG_TAG, "File[" + name + "] digest verified");
+            activity.appnedLogMessage(">>Data-Channel onMessage File[" + name + "] 무결성 확인");
+        }
+
+        @Override
+        public void onMismatch(String peerId, long id, String name, String expected, String actual) {
+            Log.e(LOG_TAG, "File[" + name + "] digest mismatch " + expected + " " + actual);
+            onError(dataChannel, peerId, null, id, PlayRTCDataCode.FileIO, "File[" + name + "] digest mismatch");
+        }
+    });
+
+    /*
+     * File 모드 수신 파일의 Digest 계산 Thread, 파일 마다 Thread를 만들지 않고 순서대로 처리한다.
+     */
+    private final ExecutorService digestExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "DigestVerify");
+            t.setDaemon(true);
+            return t;
+        }
+    });
 
+    /*
+     * Byte 모드 수신 파일 기록 Thread, 수신 byte[]를 복사하지 않고 그대로 순서대로 기록한다.
+     */
+    private final ExecutorService fileWriteExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "FileWrite");
+            t.setDaemon(true);
+            return t;
+        }
+    });
 
     /*
-     * 파일 전송 완료 이벤트에서 InputStream Close하기 위해 전역 변수 처리
+     * 진행 중인 송/수신 전송 목록
+     * 전송 건 별로 InputStream, 시작 시각, 취소 상태를 관리하므로 여러 파일을 동시에 송/수신 할 수 있다.
      */
-    private InputStream dataIs = null;
+    private final DataTransferManager transferManager = new DataTransferManager();
 
-    private long elaspedStart = 0L;
+    /*
+     * peer/방향/메세지 종류 별 송/수신 성능 지표, 데이터 채널 연결 마다 초기화한다.
+     */
+    private final DataChannelMetrics metrics = new DataChannelMetrics();
+
+    /*
+     * 송/수신 진행 정보를 100ms(10Hz) 마다 모아서 출력
+     * 데이터 이벤트 Thread에서는 숫자만 기록하고 문자열 생성과 화면 출력은 ProgressAggregator Thread에서 처리한다.
+     */
+    private final ProgressAggregator progressAggregator = new ProgressAggregator(new ProgressAggregator.Listener() {
+        @Override
+        public void onProgress(ProgressAggregator.Progress progress) {
+            printProgress(progress);
+        }
+
+        @Override
+        public void onComplete(ProgressAggregator.Progress progress) {
+            // 진행 중 한 번도 출력되지 않은 전송(주기 안에 끝난 작은 데이터)은 완료 줄을 남기지 않는다.
+            Integer slot = progressSlots.remove(progress);
+            if (slot == null) {
+                return;
+            }
+            if (progress.isSuccess()) {
+                printProgress(progress);
+            }
+            activity.closeProgressSlot(slot);
+        }
+    });
+
+    /*
+     * 진행 정보 별 로그창 진행 상태 줄(Slot) 번호, 동시에 진행 중인 전송을 각자의 줄에 출력한다.
+     * ProgressAggregator Thread에서만 사용
+     */
+    private final ConcurrentHashMap<ProgressAggregator.Progress, Integer> progressSlots = new ConcurrentHashMap<ProgressAggregator.Progress, Integer>();
+
+    /*
+     * 수신 전송 고유 아이디 별 진행 정보
+     */
+    private final ConcurrentHashMap<Long, ProgressAggregator.Progress> receiveProgress = new ConcurrentHashMap<Long, ProgressAggregator.Progress>();
+
+    /*
+     * 분할 전송 파일 명 별 진행 정보
+     */
+    private final ConcurrentHashMap<String, ProgressAggregator.Progress> resumableProgress = new ConcurrentHashMap<String, ProgressAggregator.Progress>();
+
+    /*
+     * 이어 보내기를 지원하는 분할 파일 송신/수신 객체
+     * 송신 진행 정보는 앱 파일 영역의 TransferJournal에 기록한다.
+     */
+    private ResumableFileSender resumableSender = null;
+    private ResumableFileReceiver resumableReceiver = null;
+
+    /*
+     * 변경된 파일의 차이만 송신/수신하는 객체
+     */
+    private DeltaFileSender deltaSender = null;
+    private DeltaFileReceiver deltaReceiver = null;
+
+    /*
+     * 분할 수신 파일을 Digest로 저장하는 Store
+     */
+    private ContentStore contentStore = null;
+
+    /*
+     * 폴더를 하나의 archive 스트림으로 송신/수신하는 객체
+     */
+    private ArchiveSender archiveSender = null;
+    private ArchiveReceiver archiveReceiver = null;
 
 
     /*
@@ -67,8 +233,165 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
      * @param activity PlayRTCActivity
      * @see com.playrtc.sample.view.PlayRTCLogView
      */
-    public PlayRTCDataChannelHandler(PlayRTCActivity activity) {
+    public PlayRTCDataChannelHandler(final PlayRTCActivity activity) {
         this.activity = activity;
+
+        TransferJournal journal = new TransferJournal(new File(activity.getFilesDir(), "transfer.journal"));
+        this.resumableSender = new ResumableFileSender(journal, scheduler, new ResumableFileSender.Listener() {
+            @Override
+            public void onStart(String name, int skipped, int count) {
+                activity.appnedLogMessage(">>Data-Channel sendFileResumable[" + name + "] start " + skipped + "/" + count);
+                ProgressAggregator.Progress progress = progressAggregator.open(DataTransfer.Direction.Send, "sendFileResumable");
+                progress.update(skipped, count, skipped, count);
+                ProgressAggregator.Progress prev = resumableProgress.put(name, progress);
+                if (prev != null) {
+                    progressAggregator.close(prev, false);
+                }
+            }
+
+            @Override
+            public void onProgress(String name, int acked, int count) {
+                ProgressAggregator.Progress progress = resumableProgress.get(name);
+                if (progress != null) {
+                    progress.update(acked, count, acked, count);
+                }
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, long size, long elapsed) {
+                closeProgress(resumableProgress.remove(name), true);
+                metrics.record(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File, size, elapsed);
+                Log.d(LOG_TAG, "sendFileResumable onSuccess " + name + "[" + size + "] " + elapsed + "ms");
+                activity.appnedLogMessage(">>Data-Channel sendFileResumable[" + name + "] onSuccess " + size + " bytes, " + elapsed + " ms");
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                closeProgress(resumableProgress.remove(name), false);
+                metrics.recordError(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File);
+                Log.d(LOG_TAG, "sendFileResumable onError " + name + " " + desc);
+                activity.appnedLogMessage(">>Data-Channel sendFileResumable[" + name + "] onError " + desc);
+            }
+        });
+        this.resumableReceiver = new ResumableFileReceiver(getReceiveDir(), scheduler, new ResumableFileReceiver.Listener() {
+            @Override
+            public void onStart(String name, int skipped, int count) {
+                activity.appnedLogMessage(">>Data-Channel onMessage File[" + name + "] start " + skipped + "/" + count);
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, File file, long bytes, long elapsed) {
+                metrics.record(DataTransfer.Direction.Receive, peerId, DataChannelMetrics.Type.File, bytes, elapsed);
+                Log.d(LOG_TAG, "FilePath[" + file.getAbsolutePath() + "]");
+                activity.appnedLogMessage(">>Data-Channel onMessage File[" + file.getAbsolutePath() + "]");
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                metrics.recordError(DataTransfer.Direction.Receive, peerId, DataChannelMetrics.Type.File);
+                activity.appnedLogMessage(">>Data-Channel onMessage File[" + name + "] onError " + desc);
+            }
+        });
+        batcher.setCompressor(compressor);
+
+        this.deltaSender = new DeltaFileSender(scheduler, new DeltaFileSender.Listener() {
+            @Override
+            public void onStart(String name, int blocks) {
+                activity.appnedLogMessage(">>Data-Channel sendFileDelta[" + name + "] start blocks " + blocks);
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, long size, long literal, long elapsed) {
+                // 실제 전송한 크기는 변경된 데이터(literal) 크기
+                metrics.record(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File, literal, elapsed);
+                Log.d(LOG_TAG, "sendFileDelta onSuccess " + name + "[" + size + "] literal " + literal + " " + elapsed + "ms");
+                activity.appnedLogMessage(">>Data-Channel sendFileDelta[" + name + "] onSuccess " + literal + "/" + size + " bytes, " + elapsed + " ms");
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                metrics.recordError(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File);
+                activity.appnedLogMessage(">>Data-Channel sendFileDelta[" + name + "] onError " + desc);
+            }
+        });
+        this.deltaReceiver = new DeltaFileReceiver(getReceiveDir(), scheduler, new DeltaFileReceiver.Listener() {
+            @Override
+            public void onStart(String name, int blocks) {
+                activity.appnedLogMessage(">>Data-Channel onMessage Delta[" + name + "] start blocks " + blocks);
+            }
+
+            @Override
+            public void onComplete(String name, File file) {
+                activity.appnedLogMessage(">>Data-Channel onMessage Delta[" + file.getAbsolutePath() + "]");
+            }
+
+            @Override
+            public void onError(String name, String desc) {
+                activity.appnedLogMessage(">>Data-Channel onMessage Delta[" + name + "] onError " + desc);
+            }
+        });
+
+        this.archiveSender = new ArchiveSender(scheduler, new ArchiveSender.Listener() {
+            @Override
+            public void onComplete(String peerId, String name, int entries, long bytes, long elapsed) {
+                metrics.record(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File, bytes, elapsed);
+                Log.d(LOG_TAG, "sendDirectory onSuccess " + name + " entries " + entries + "[" + bytes + "] " + elapsed + "ms");
+                activity.appnedLogMessage(">>Data-Channel sendDirectory[" + name + "] onSuccess " + entries + " entries, " + bytes + " bytes, " + elapsed + " ms");
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                metrics.recordError(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File);
+                activity.appnedLogMessage(">>Data-Channel sendDirectory[" + name + "] onError " + desc);
+            }
+        });
+        this.archiveReceiver = new ArchiveReceiver(getReceiveDir(), new ArchiveReceiver.Listener() {
+            @Override
+            public void onStart(String name) {
+                activity.appnedLogMessage(">>Data-Channel onMessage Directory[" + name + "] start");
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, File dir, int entries, long bytes, long elapsed) {
+                metrics.record(DataTransfer.Direction.Receive, peerId, DataChannelMetrics.Type.File, bytes, elapsed);
+                Log.d(LOG_TAG, "DirPath[" + dir.getAbsolutePath() + "]");
+                activity.appnedLogMessage(">>Data-Channel onMessage Directory[" + dir.getAbsolutePath() + "] " + entries + " entries, " + bytes + " bytes");
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                metrics.recordError(DataTransfer.Direction.Receive, peerId, DataChannelMetrics.Type.File);
+                activity.appnedLogMessage(">>Data-Channel onMessage Directory[" + name + "] onError " + desc);
+            }
+        });
+
+        // 같은 파일을 반복해서 전송하면 수신 측 ContentStore의 파일을 사용하여 파일 데이터를 다시 전송하지 않는다.
+        resumableSender.setDigestCache(new DigestCache(new File(activity.getFilesDir(), "transfer.digest")));
+        this.contentStore = new ContentStore(new File(activity.getFilesDir(), "content"), ContentStore.DEFAULT_MAX_BYTES);
+        resumableReceiver.setContentStore(contentStore);
+    }
+
+    /*
+     * 진행 중인 전송을 중단하고 진행 정보/수신 처리 Thread를 모두 종료한다.
+     * 각 Thread가 Listener를 통해 Activity를 참조하므로 Activity 종료 시 호출한다.
+     */
+    public void close() {
+        progressAggregator.shutdown();
+        progressSlots.clear();
+        receiveProgress.clear();
+        resumableProgress.clear();
+        scheduler.clear();
+        transferManager.cancelAll();
+        resumableSender.suspendAll();
+        resumableReceiver.shutdown();
+        deltaSender.suspendAll();
+        deltaReceiver.shutdown();
+        archiveSender.suspendAll();
+        archiveReceiver.shutdown();
+        contentStore.shutdown();
+        digestExecutor.shutdownNow();
+        // 대기 중인 수신 파일은 마저 기록한다.
+        fileWriteExecutor.shutdown();
     }
 
     /*
@@ -84,6 +407,7 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
          * - PlayRTCFileReveType.Byte : 파일 수신 데이터를 메모리에 쌓았다가 수신 완료시 한번에 전달. 큰파일의경우 Out of Memory 문제 발생할 수 있음.
          */
         this.dataChannel.setFileReveMode(PlayRTCFileReveType.File);
+        scheduler.setDataChannel(dc);
     }
 
     /*
@@ -93,7 +417,9 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
     public void sendText() {
         if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
             String sendData = "DataChannel Hello 안녕하세요 こんにちは 你好...";
-            dataChannel.sendText(sendData, new PlayRTCSendDataObserver() {
+            final ProgressAggregator.Progress progress = progressAggregator.open(DataTransfer.Direction.Send, "onSending");
+            final long startTime = System.currentTimeMillis();
+            sendTextPayload(sendData, new PlayRTCSendDataObserver() {
 
                 /*
                  * 데이터 전송 진척 정보를 알려준다.
@@ -108,13 +434,9 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
                  * @param index index, 전성하는 분할 데이터 인덱스
                  * @param count long, 전체 분할 데이터 수
                  */
-                @SuppressLint("DefaultLocale")
                 @Override
                 public void onSending(final PlayRTCData obj, final String peerId, final String peerUid, final long id, final long size, final long send, final long index, final long count) {
-                    float per = ((float) send / (float) size) * 100.0f;
-                    String sMsg = String.format("Data onSending [%d/%d] [%d/%d]  %.2f%%", index + 1, count, send, size, per);
-                    Log.d(LOG_TAG, sMsg);
-                    activity.progressLogMessage(sMsg);
+                    progress.update(send, size, index + 1, count);
                 }
 
                 /*
@@ -128,6 +450,8 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
                  */
                 @Override
                 public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                    progressAggregator.close(progress, true);
+                    metrics.record(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.Text, size, System.currentTimeMillis() - startTime);
                     Log.d(LOG_TAG, "sendText onSuccess " + peerUid + " " + id + "[" + size + "]");
                     activity.appnedLogMessage(">>Data-Channel sendText onSuccess[" + id + "] " + size + " bytes");
                 }
@@ -151,6 +475,8 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
                  */
                 @Override
                 public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                    progressAggregator.close(progress, false);
+                    metrics.recordError(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.Text);
                     Log.d(LOG_TAG, "sendText onError " + peerUid + " " + id + "[" + code + "] " + desc);
                     activity.appnedLogMessage(">>Data-Channel sendText onError[" + id + "] [" + code + "] " + desc);
                 }
@@ -169,7 +495,9 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
     public void sendBinary() {
         if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
             String sendData = "DataChannel Hello 안녕하세요 こんにちは 你好...";
-            dataChannel.sendByte(sendData.getBytes(), null, new PlayRTCSendDataObserver() {
+            final ProgressAggregator.Progress progress = progressAggregator.open(DataTransfer.Direction.Send, "onSending");
+            final long startTime = System.currentTimeMillis();
+            sendBytePayload(sendData.getBytes(UTF8), null, new PlayRTCSendDataObserver() {
 
                 /*
                  * 데이터 전송 진척 정보를 알려준다.
@@ -184,13 +512,9 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
                  * @param index index, 전성하는 분할 데이터 인덱스
                  * @param count long, 전체 분할 데이터 수
                  */
-                @SuppressLint("DefaultLocale")
                 @Override
                 public void onSending(final PlayRTCData obj, final String peerId, final String peerUid, final long id, final long size, final long send, final long index, final long count) {
-                    float per = ((float) send / (float) size) * 100.0f;
-                    String sMsg = String.format("Data onSending [%d/%d] [%d/%d]  %.2f%%", index + 1, count, send, size, per);
-                    Log.d(LOG_TAG, sMsg);
-                    activity.progressLogMessage(sMsg);
+                    progress.update(send, size, index + 1, count);
                 }
 
                 /*
@@ -204,6 +528,8 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
                  */
                 @Override
                 public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                    progressAggregator.close(progress, true);
+                    metrics.record(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.Binary, size, System.currentTimeMillis() - startTime);
                     Log.d(LOG_TAG, "sendBinary onSuccess " + peerUid + " " + id + "[" + size + "]");
                     activity.appnedLogMessage(">>Data-Channel sendBinary onSuccess[" + id + "] " + size + " bytes");
 
@@ -226,6 +552,8 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
                  */
                 @Override
                 public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                    progressAggregator.close(progress, false);
+                    metrics.recordError(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.Binary);
                     Log.d(LOG_TAG, "sendBinary onError " + peerUid + " " + id + "[" + code + "] " + desc);
                     activity.appnedLogMessage(">>Data-Channel sendBinary onError[" + id + "] [" + code + "] " + desc);
                 }
@@ -244,101 +572,440 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
     public void sendFile() {
         // Data Channel이 Open 상태인지 검사
         if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
-            elaspedStart = System.currentTimeMillis();
             final String fileName = "librtc_xmllite.a";
-            dataIs = null;
+            try {
+                InputStream is = this.activity.getAssets().open(fileName);
+                sendFileStream(is, fileName, is.available());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            Log.d(LOG_TAG, "데이터 채널이 연결 상태가 아닙니다. ");
+            activity.appnedLogMessage(">>Data-Channel이 연결 상태가 아닙니다.");
+
+        }
+    }
 
+    /*
+     * 저장소의 파일을 상대방에게 전송한다.
+     * 파일을 MappedFileInputStream으로 메모리 매핑하여 읽으므로 대용량 파일 전송 시 분할 데이터마다
+     * 발생하는 read system call 및 버퍼 복사를 줄인다.
+     *
+     * @param file File, 전송할 파일
+     * @see com.playrtc.sample.transfer.MappedFileInputStream
+     */
+    public void sendFile(File file) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
             try {
-                dataIs = this.activity.getAssets().open(fileName);
-                Log.d(LOG_TAG, "sendFile [" + fileName + "]");
-                activity.appnedLogMessage(">>Data-Channel sendFile[" + fileName + "]");
-                /*
-                 * byte 데이터를 전송한다.
-                 * @param istream InputStream
-                 * @param fileName String, 파일 명
-                 * @param observer PlayRTCSendDataObserver
-                 * @return long, 전송 데이터 스트림 고유 아이디
-                 * @see com.sktelecom.playrtc.observer.PlayRTCSendDataObserver
-                 */
-                dataChannel.sendFile(dataIs, fileName, new PlayRTCSendDataObserver() {
-
-                    /*
-                     * 데이터 전송 진척 정보를 알려준다.
-                     * PlayRTCData은 데이터 전송 시 데이터를 특정 사이즈 크기로 분할하여 전체 스트림에 대해 고유아이디를
-                     * 부여하고 분할 전송을 한다.
-                     * @param obj PlayRTCData
-                     * @param peerId String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
-                     * @param peerUid String, Application에서 사용하는 사용자 아이디.
-                     * @param id long, 전송 스트림에 대해 고유아이디
-                     * @param size long, 데이터 전체 크기
-                     * @param send long, 전송 한 데이터의 누적 크기
-                     * @param index index, 전성하는 분할 데이터 인덱스
-                     * @param count long, 전체 분할 데이터 수
-                     */
-                    @SuppressLint("DefaultLocale")
-                    @Override
-                    public void onSending(final PlayRTCData obj, final String peerId, final String peerUid, final long id, final long size, final long send, final long index, final long count) {
-                        float per = ((float) send / (float) size) * 100.0f;
-                        String sMsg = String.format("Data onSending [%d/%d] [%d/%d]  %.2f%%", index + 1, count, send, size, per);
-                        Log.d(LOG_TAG, sMsg);
-                        activity.progressLogMessage(sMsg);
-                    }
+                sendFileStream(MappedFileInputStream.open(file), file.getName(), file.length());
+            } catch (IOException e) {
+                e.printStackTrace();
+                activity.appnedLogMessage(">>Data-Channel sendFile[" + file.getName() + "] " + e.getMessage());
+            }
+        } else {
+            Log.d(LOG_TAG, "데이터 채널이 연결 상태가 아닙니다. ");
+            activity.appnedLogMessage(">>Data-Channel이 연결 상태가 아닙니다.");
+        }
+    }
 
-                    /*
-                     * 데이터 전송 완료를 알려준다.
-                     *
-                     * @param obj PlayRTCData
-                     * @param peerId String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
-                     * @param peerUid  String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
-                     * @param id  long, 전송 스트림에 대해 고유아이디
-                     * @param size long, 데이터 전체 크기
-                     */
-                    @Override
-                    public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
-                        final long elasedTime = System.currentTimeMillis() - elaspedStart;
-                        Handler handler = new Handler(Looper.getMainLooper());
-                        handler.post(new Runnable() {
-                            public void run() {
-                                closeInputStream();
-                                Toast logToast = Toast.makeText(activity.getApplicationContext(), "elasedTime = " + elasedTime, Toast.LENGTH_LONG);
-                                logToast.show();
-
-                            }
-                        });
-                        Log.d(LOG_TAG, "sendFile onSuccess " + peerUid + " " + id + "[" + size + "]");
-                        activity.appnedLogMessage(">>Data-Channel[" + peerId + "] sendFile[" + fileName + "] onSuccess[" + id + "] " + size + " bytes");
+    /*
+     * Content Uri(갤러리, 파일 선택기 등)의 파일을 상대방에게 전송한다.
+     * Uri의 FileDescriptor가 일반 파일이면 FileChannel을 메모리 매핑하여 읽고,
+     * pipe 등 크기를 알 수 없는 경우에는 FileInputStream으로 읽는다.
+     *
+     * @param uri Uri, 전송할 파일의 Uri
+     */
+    public void sendFile(Uri uri) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            String fileName = getDisplayName(uri);
+            ParcelFileDescriptor pfd = null;
+            // sendFileStream으로 전달한 이후에는 전송 스트림이 pfd를 닫는다.
+            boolean started = false;
+            try {
+                pfd = activity.getContentResolver().openFileDescriptor(uri, "r");
+                if (pfd == null) {
+                    activity.appnedLogMessage(">>Data-Channel sendFile[" + fileName + "] 파일을 열 수 없습니다.");
+                    return;
+                }
+                long length = pfd.getStatSize();
+                if (length >= 0) {
+                    FileInputStream fis = new FileInputStream(pfd.getFileDescriptor());
+                    sendFileStream(new MappedFileInputStream(fis.getChannel(), pfd, 0L, length), fileName, length);
+                } else {
+                    sendFileStream(new ParcelFileDescriptor.AutoCloseInputStream(pfd), fileName, 0L);
+                }
+                started = true;
+            } catch (IOException e) {
+                e.printStackTrace();
+                activity.appnedLogMessage(">>Data-Channel sendFile[" + fileName + "] " + e.getMessage());
+            } finally {
+                if (!started && pfd != null) {
+                    try {
+                        pfd.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
                     }
+                }
+            }
+        } else {
+            Log.d(LOG_TAG, "데이터 채널이 연결 상태가 아닙니다. ");
+            activity.appnedLogMessage(">>Data-Channel이 연결 상태가 아닙니다.");
+        }
+    }
 
-                    /*
-                     * 데이터 전송 실패를 알려준다.
-                     * @param obj PlayRTCData
-                     * @param peerId String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
-                     * @param peerUid  String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
-                     * @param id  long, 전송 스트림에 대해 고유아이디
-                     * @param code PlayRTCDataCode, PlayRTCDataCode = 오류 코드 정의
-                     *  - None,
-                     *  - NotOpen,
-                     *  - SendBusy,
-                     *  - SendFail,
-                     *  - FileIO,
-                     *  - ParseFail
-                     * @param desc String, description
-                     */
-                    @Override
-                    public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
-                        Log.d(LOG_TAG, "sendFile onError " + peerUid + " " + id + "[" + code + "] " + desc);
-                        activity.appnedLogMessage(">>Data-Channel sendFile[" + fileName + "] onError[" + id + "] [" + code + "] " + desc);
-                        closeInputStream();
+    /*
+     * Uri의 파일 명을 반환한다.
+     * content:// Uri의 마지막 경로는 문서 아이디(1234, document:42 등)이므로 OpenableColumns.DISPLAY_NAME을 조회하고,
+     * 조회할 수 없으면 마지막 경로를 사용한다.
+     *
+     * @param uri Uri
+     * @return String, 파일 명
+     */
+    private String getDisplayName(Uri uri) {
+        String name = null;
+        if ("content".equals(uri.getScheme())) {
+            Cursor cursor = activity.getContentResolver().query(uri, new String[]{OpenableColumns.DISPLAY_NAME}, null, null, null);
+            if (cursor != null) {
+                try {
+                    if (cursor.moveToFirst()) {
+                        name = cursor.getString(0);
                     }
-                });
-            } catch (IOException e) {
-                e.printStackTrace();
-                closeInputStream();
+                } finally {
+                    cursor.close();
+                }
+            }
+        }
+        if (TextUtils.isEmpty(name)) {
+            name = uri.getLastPathSegment();
+        }
+        return name;
+    }
+
+    /*
+     * 파일을 분할 전송하며, 전송이 중단되면 다음에 같은 파일을 전송하거나 데이터 채널이 다시 열릴 때
+     * 상대방이 이미 저장한 분할 데이터를 건너뛰고 이어서 전송한다.
+     * 이전에 전송한 파일과 같은 내용을 상대방이 가지고 있으면 파일 데이터 없이 전송을 완료한다.
+     *
+     * @param file File, 전송할 파일
+     * @see com.playrtc.sample.transfer.ResumableFileSender
+     */
+    public void sendFileResumable(File file) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            Log.d(LOG_TAG, "sendFileResumable [" + file.getName() + "]");
+            if (!resumableSender.send(file)) {
+                activity.appnedLogMessage(">>Data-Channel sendFileResumable[" + file.getName() + "] 전송할 수 없습니다.");
             }
         } else {
             Log.d(LOG_TAG, "데이터 채널이 연결 상태가 아닙니다. ");
             activity.appnedLogMessage(">>Data-Channel이 연결 상태가 아닙니다.");
+        }
+    }
 
+    /*
+     * 상대방이 같은 이름의 이전 파일을 가지고 있으면 변경된 부분만 전송한다.(rsync 방식)
+     * 상대방이 이전 파일의 block signature를 보내면 일치하는 block은 참조로, 나머지는 데이터로 전송하며,
+     * 이전 파일이 없으면 전체 데이터를 전송한다.
+     *
+     * @param file File, 전송할 파일
+     * @see com.playrtc.sample.transfer.DeltaFileSender
+     */
+    public void sendFileDelta(File file) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            Log.d(LOG_TAG, "sendFileDelta [" + file.getName() + "]");
+            if (!deltaSender.send(file)) {
+                activity.appnedLogMessage(">>Data-Channel sendFileDelta[" + file.getName() + "] 전송할 수 없습니다.");
+            }
+        } else {
+            Log.d(LOG_TAG, "데이터 채널이 연결 상태가 아닙니다. ");
+            activity.appnedLogMessage(">>Data-Channel이 연결 상태가 아닙니다.");
+        }
+    }
+
+    /*
+     * 폴더를 하위 폴더/파일을 포함하여 하나의 archive 스트림으로 전송한다.
+     * 파일 마다 sendFile을 호출하지 않으므로 작은 파일이 많은 폴더도 파일 당 대기 없이 전송하며,
+     * 상대방은 받는 대로 수신 폴더 아래에 같은 이름의 폴더로 풀어 놓는다.
+     *
+     * @param dir File, 전송할 폴더
+     * @see com.playrtc.sample.transfer.ArchiveSender
+     */
+    public void sendDirectory(File dir) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            Log.d(LOG_TAG, "sendDirectory [" + dir.getName() + "]");
+            if (!archiveSender.send(dir)) {
+                activity.appnedLogMessage(">>Data-Channel sendDirectory[" + dir.getName() + "] 전송할 수 없습니다.");
+            }
+        } else {
+            Log.d(LOG_TAG, "데이터 채널이 연결 상태가 아닙니다. ");
+            activity.appnedLogMessage(">>Data-Channel이 연결 상태가 아닙니다.");
+        }
+    }
+
+    /*
+     * InputStream을 DataSendScheduler의 Bulk 우선 순위로 전송하고 전송 완료 시 소요 시간과 전송 속도를 출력한다.
+     * 전송 건은 전송이 시작될 때 DataTransferManager에 전송 고유 아이디로 등록되며 cancelTransfer로 중단할 수 있다.
+     *
+     * @param is InputStream, 전송할 파일의 InputStream, 전송 완료/실패 시 close
+     * @param fileName String, 파일 명
+     * @param size long, 파일 크기, 모르면 0
+     */
+    private void sendFileStream(InputStream is, final String fileName, long size) {
+        // SDK가 파일을 읽는 대로 Digest를 계산하고 전송 완료 시 STREAM_DIGEST로 전달
+        final MessageDigest digest = TransferDigest.create();
+        is = new DigestInputStream(is, digest);
+        final DataTransfer transfer = transferManager.createSend(fileName, is);
+        final ProgressAggregator.Progress progress = progressAggregator.open(DataTransfer.Direction.Send, "onSending");
+        Log.d(LOG_TAG, "sendFile [" + fileName + "]");
+        activity.appnedLogMessage(">>Data-Channel sendFile[" + fileName + "]");
+        /*
+         * byte 데이터를 전송한다.
+         * @param istream InputStream
+         * @param fileName String, 파일 명
+         * @param observer PlayRTCSendDataObserver
+         * @return long, 전송 데이터 스트림 고유 아이디
+         * @see com.sktelecom.playrtc.observer.PlayRTCSendDataObserver
+         */
+        scheduler.sendFile(DataSendScheduler.Priority.Bulk, is, fileName, size, new DataSendScheduler.SendObserver() {
+
+            /*
+             * 대기열에서 전송이 시작되어 전송 고유 아이디가 정해짐
+             * @param id long, 전송 스트림에 대해 고유아이디
+             */
+            @Override
+            public void onDispatch(long id) {
+                transferManager.bind(transfer, id);
+            }
+
+            /*
+             * 데이터 전송 진척 정보를 알려준다.
+             * PlayRTCData은 데이터 전송 시 데이터를 특정 사이즈 크기로 분할하여 전체 스트림에 대해 고유아이디를
+             * 부여하고 분할 전송을 한다.
+             * @param obj PlayRTCData
+             * @param peerId String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
+             * @param peerUid String, Application에서 사용하는 사용자 아이디.
+             * @param id long, 전송 스트림에 대해 고유아이디
+             * @param size long, 데이터 전체 크기
+             * @param send long, 전송 한 데이터의 누적 크기
+             * @param index index, 전성하는 분할 데이터 인덱스
+             * @param count long, 전체 분할 데이터 수
+             */
+            @Override
+            public void onSending(final PlayRTCData obj, final String peerId, final String peerUid, final long id, final long size, final long send, final long index, final long count) {
+                transfer.update(peerId, size, send);
+                progress.update(send, size, index + 1, count);
+            }
+
+            /*
+             * 데이터 전송 완료를 알려준다.
+             *
+             * @param obj PlayRTCData
+             * @param peerId String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
+             * @param peerUid  String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
+             * @param id  long, 전송 스트림에 대해 고유아이디
+             * @param size long, 데이터 전체 크기
+             */
+            @SuppressLint("DefaultLocale")
+            @Override
+            public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                transfer.update(peerId, size, size);
+                transferManager.finish(transfer);
+                progressAggregator.close(progress, true);
+                metrics.record(transfer, DataChannelMetrics.Type.File);
+                scheduler.sendByte(DataSendScheduler.Priority.Control, TransferProtocol.encodeControl(TransferProtocol.CMD_STREAM_DIGEST,
+                        String.valueOf(id), TransferDigest.finish(digest)), TransferProtocol.MIME_CONTROL, SilentSendObserver.INSTANCE);
+                final long elasedTime = transfer.getElapsed();
+                // 전송 속도 KB/s
+                final float throughput = transfer.getThroughput();
+                Handler handler = new Handler(Looper.getMainLooper());
+                handler.post(new Runnable() {
+                    public void run() {
+                        Toast logToast = Toast.makeText(activity.getApplicationContext(), String.format("elasedTime = %d, throughput = %.1f KB/s", elasedTime, throughput), Toast.LENGTH_LONG);
+                        logToast.show();
+
+                    }
+                });
+                Log.d(LOG_TAG, "sendFile onSuccess " + peerUid + " " + id + "[" + size + "] " + elasedTime + "ms " + throughput + "KB/s");
+                activity.appnedLogMessage(">>Data-Channel[" + peerId + "] sendFile[" + fileName + "] onSuccess[" + id + "] " + size + " bytes, " + elasedTime + " ms, " + String.format("%.1f", throughput) + " KB/s");
+            }
+
+            /*
+             * 데이터 전송 실패를 알려준다.
+             * @param obj PlayRTCData
+             * @param peerId String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
+             * @param peerUid  String, PlayRTC 채널 서비스에서 발급받은 사용자 아이디
+             * @param id  long, 전송 스트림에 대해 고유아이디
+             * @param code PlayRTCDataCode, PlayRTCDataCode = 오류 코드 정의
+             *  - None,
+             *  - NotOpen,
+             *  - SendBusy,
+             *  - SendFail,
+             *  - FileIO,
+             *  - ParseFail
+             * @param desc String, description
+             */
+            @Override
+            public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                transferManager.finish(transfer);
+                progressAggregator.close(progress, false);
+                metrics.recordError(DataTransfer.Direction.Send, peerId, DataChannelMetrics.Type.File);
+                // cancelTransfer로 중단된 경우
+                String reason = transfer.isCancelled() ? "cancelled" : desc;
+                Log.d(LOG_TAG, "sendFile onError " + peerUid + " " + id + "[" + code + "] " + reason);
+                activity.appnedLogMessage(">>Data-Channel sendFile[" + fileName + "] onError[" + id + "] [" + code + "] " + reason);
+            }
+        });
+    }
+
+    /*
+     * 텍스트를 전송한다. 압축 효과가 있으면 PayloadCompressor로 압축하여 MIME_PACKED Binary로 전송한다.
+     *
+     * @param text String
+     * @param observer PlayRTCSendDataObserver
+     * @see com.playrtc.sample.transfer.PayloadCompressor
+     */
+    private void sendTextPayload(String text, PlayRTCSendDataObserver observer) {
+        byte[] packed = compressor.packText(text);
+        if (packed != null) {
+            scheduler.sendByte(DataSendScheduler.Priority.Interactive, packed, TransferProtocol.MIME_PACKED, observer);
+        } else {
+            scheduler.sendText(DataSendScheduler.Priority.Interactive, text, observer);
+        }
+    }
+
+    /*
+     * Binary를 전송한다. 압축 효과가 있으면 PayloadCompressor로 압축하여 MIME_PACKED Binary로 전송한다.
+     * JPEG, MP4 등 이미 압축된 데이터는 그대로 전송한다.
+     *
+     * @param data byte[]
+     * @param mimeType String
+     * @param observer PlayRTCSendDataObserver
+     * @see com.playrtc.sample.transfer.PayloadCompressor
+     */
+    private void sendBytePayload(byte[] data, String mimeType, PlayRTCSendDataObserver observer) {
+        // MimeType을 지정한 데이터는 수신 측이 MimeType으로 처리하므로 압축하지 않는다.
+        byte[] packed = (mimeType == null) ? compressor.pack(PayloadCompressor.KIND_BINARY, data) : null;
+        if (packed != null) {
+            scheduler.sendByte(DataSendScheduler.Priority.Interactive, packed, TransferProtocol.MIME_PACKED, observer);
+        } else {
+            scheduler.sendByte(DataSendScheduler.Priority.Interactive, data, mimeType, observer);
+        }
+    }
+
+    /*
+     * 작은 텍스트 메세지를 MessageBatcher로 묶어서 전송한다.
+     * 커서 위치, 채팅 등 짧은 메세지를 자주 보낼 때 사용하며, 메세지 별 전송 결과는 전달되지 않는다.
+     *
+     * @param text String
+     * @see com.playrtc.sample.transfer.MessageBatcher
+     */
+    public void sendMessage(String text) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            batcher.sendText(text);
+        }
+    }
+
+    /*
+     * 작은 Binary 메세지를 MessageBatcher로 묶어서 전송한다.
+     *
+     * @param data byte[]
+     * @see com.playrtc.sample.transfer.MessageBatcher
+     */
+    public void sendMessage(byte[] data) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            batcher.sendByte(data);
+        }
+    }
+
+    /*
+     * 고정 길이 Binary 메세지를 전송한다. 자주 보내는 텔레메트리 등에 사용
+     * 데이터 채널이 열려 있지 않으면 전송하지 않고 writer를 Pool로 반환한다.
+     *
+     * @param writer MessageWriter, MessageSchema#obtain으로 가져와 필드를 기록한 메세지
+     * @see com.playrtc.sample.transfer.BinaryMessageCodec
+     */
+    public void sendMessage(MessageWriter writer) {
+        if (dataChannel != null && dataChannel.getStatus() == PlayRTCDataStatus.Open) {
+            messageCodec.send(writer);
+        } else {
+            writer.recycle();
+        }
+    }
+
+    /*
+     * 고정 길이 Binary 메세지 수신 schema와 해당 schema 메세지를 전달 받을 Receiver를 등록한다.
+     * 같은 id의 schema를 다시 등록하면 schema와 Receiver 모두 교체된다.
+     *
+     * @param schema MessageSchema
+     * @param receiver BinaryMessageCodec.Receiver
+     */
+    public void registerMessage(MessageSchema schema, BinaryMessageCodec.Receiver receiver) {
+        messageCodec.register(schema, receiver);
+    }
+
+    /*
+     * 진행 정보를 로그창의 전송 별 진행 상태 줄에 출력한다. ProgressAggregator Thread에서 호출
+     * 처음 출력 시 Slot을 열고, 이후에는 해당 줄만 갱신한다.
+     * @param progress ProgressAggregator.Progress
+     */
+    @SuppressLint("DefaultLocale")
+    private void printProgress(ProgressAggregator.Progress progress) {
+        String sMsg = String.format("Data %s [%d/%d] [%d/%d]  %.2f%%", progress.getLabel(), progress.getIndex(), progress.getCount(),
+                progress.getDone(), progress.getTotal(), progress.getPercent());
+        Log.d(LOG_TAG, sMsg);
+        Integer slot = progressSlots.get(progress);
+        if (slot == null) {
+            progressSlots.put(progress, activity.openProgressSlot(sMsg));
+        } else {
+            activity.updateProgressSlot(slot, sMsg);
+        }
+    }
+
+    private void closeProgress(ProgressAggregator.Progress progress, boolean success) {
+        if (progress != null) {
+            progressAggregator.close(progress, success);
+        }
+    }
+
+    /*
+     * 진행 중인 파일 전송을 중단한다.
+     * 전송 스트림을 닫으므로 해당 전송의 PlayRTCSendDataObserver#onError가 호출된다.
+     *
+     * @param id long, 전송 데이터 스트림 고유 아이디
+     * @return boolean, 진행 중인 전송이 없으면 false
+     */
+    public boolean cancelTransfer(long id) {
+        return transferManager.cancel(id);
+    }
+
+    /*
+     * 진행 중인 송/수신 전송 목록을 관리하는 DataTransferManager를 반환한다.
+     * @return DataTransferManager
+     */
+    public DataTransferManager getTransferManager() {
+        return transferManager;
+    }
+
+    /*
+     * 현재 데이터 채널 연결의 송/수신 성능 지표를 반환한다.
+     * @return DataChannelMetrics
+     */
+    public DataChannelMetrics getMetrics() {
+        return metrics;
+    }
+
+    /*
+     * 송/수신 성능 지표를 로그로 출력한다.
+     * @param snapshot DataChannelMetrics.Snapshot
+     */
+    @SuppressLint("DefaultLocale")
+    private void logMetrics(DataChannelMetrics.Snapshot snapshot) {
+        for (DataChannelMetrics.EntrySnapshot entry : snapshot.getEntries()) {
+            LatencyHistogram.Snapshot latency = entry.getLatency();
+            String sMsg = String.format("Metrics[%s] %s %s count=%d bytes=%d errors=%d %.1f KB/s latency mean=%.1f p50=%d p95=%d max=%d ms",
+                    entry.getPeerId(), entry.getDirection(), entry.getType(), entry.getMessages(), entry.getBytes(), entry.getErrors(),
+                    entry.getThroughput(), latency.getMean(), latency.getPercentile(50), latency.getPercentile(95), latency.getMax());
+            Log.d(LOG_TAG, sMsg);
+            activity.appnedLogMessage(">>Data-Channel " + sMsg);
         }
     }
 
@@ -359,22 +1026,22 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
      *  - fileName : String, 파일 전송일 경우 파일 명
      *  - mimeType : String, 파일 전송일 경우 파일의 Mime Type
      */
-    private long recvStartTime = 0L;
-    private long recvDataSize = 0L;
-
-    @SuppressLint("DefaultLocale")
     @Override
     public void onProgress(final PlayRTCData obj, final String peerId, final String peerUid, final int recvIndex, final long recvSize, final PlayRTCDataHeader header) {
 
-        if (recvDataSize == 0L) {
-            recvStartTime = (new Date()).getTime();
+        // 전송 프로토콜 메세지(분할 데이터, 묶음/Binary 메세지 등)는 각 수신 객체가 진행 정보를 관리한다.
+        if (header.isBinary() && TransferProtocol.isProtocolMessage(header.getMimeType())) {
+            return;
         }
-        recvDataSize += recvSize;
-        long total = header.getSize();
-        float per = ((float) recvSize / (float) total) * 100.0f;
-        String sMsg = String.format("Data onProgress [%d/%d]  %.2f%%", recvSize, total, per);
-        Log.d(LOG_TAG, sMsg);
-        activity.progressLogMessage(sMsg);
+        // 수신 전송 건 별로 시작 시각과 누적 수신 크기를 관리
+        transferManager.onReceive(peerId, header.getId(), header.getFileName(), header.getSize(), recvSize);
+        // 진행 정보는 숫자만 기록하고 출력은 ProgressAggregator가 주기적으로 처리
+        ProgressAggregator.Progress progress = receiveProgress.get(header.getId());
+        if (progress == null) {
+            progress = progressAggregator.open(DataTransfer.Direction.Receive, "onProgress");
+            receiveProgress.put(header.getId(), progress);
+        }
+        progress.update(recvSize, header.getSize(), recvIndex + 1, header.getCount());
     }
 
     /*
@@ -400,12 +1067,21 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
     @Override
     public void onMessage(final PlayRTCData obj, final String peerId, final String peerUid, final PlayRTCDataHeader header, final byte[] data) {
         Log.d(LOG_TAG, "PlayRTCDataEvent onMessage peerId[" + peerId + "] peerUid[" + peerUid + "]");
-        long recvDataElapsed = new Date().getTime() - recvStartTime;
-        recvStartTime = 0;
-        recvDataSize = 0L;
-        Utils.showToast(activity, "Data Recv Elapsed-Time=" + recvDataElapsed);
+        if (header.isBinary() && TransferProtocol.isProtocolMessage(header.getMimeType())) {
+            onProtocolMessage(peerId, header.getMimeType(), data);
+            return;
+        }
+        ProgressAggregator.Progress progress = receiveProgress.remove(header.getId());
+        if (progress != null) {
+            progressAggregator.close(progress, true);
+        }
+        DataTransfer transfer = transferManager.finishReceive(peerId, header.getId(), header.getFileName(), header.getSize());
+        DataChannelMetrics.Type type = (header.getType() == PlayRTCDataHeader.DATA_TYPE_TEXT) ? DataChannelMetrics.Type.Text
+                : TextUtils.isEmpty(header.getFileName()) ? DataChannelMetrics.Type.Binary : DataChannelMetrics.Type.File;
+        metrics.record(transfer, type);
+        Log.d(LOG_TAG, "Data Recv " + type + " Elapsed-Time=" + transfer.getElapsed());
         if (header.getType() == PlayRTCDataHeader.DATA_TYPE_TEXT) {
-            String recvText = new String(data);
+            String recvText = new String(data, UTF8);
             Log.d(LOG_TAG, "Text[" + recvText + "]");
             activity.appnedLogMessage(">>Data-Channel onMessage[" + recvText + "]");
         } else {
@@ -416,29 +1092,177 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
             } else {
                 Log.d(LOG_TAG, "File[" + filaNmae + "]");
                 if (obj.getFileReveMode() == PlayRTCFileReveType.Byte) {
-                    File f = new File(Environment.getExternalStorageDirectory().getAbsolutePath() +
-                            "/Android/data/" + activity.getPackageName() + "/files/" + filaNmae);
+                    File f = new File(getReceiveDir(), filaNmae);
                     Log.d(LOG_TAG, "FilePath[" + f.getAbsolutePath() + "]");
                     activity.appnedLogMessage(">>Data-Channel onMessage File[" + f.getAbsolutePath() + "]");
-                    try {
-                        if (!f.exists()) {
-                            f.createNewFile();
-                        }
-                        FileOutputStream dataWs = new FileOutputStream(f.getAbsolutePath(), false);
-                        dataWs.write(data);
-                        dataWs.close();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+                    MessageDigest md = TransferDigest.create();
+                    md.update(data);
+                    digestVerifier.computed(peerId, header.getId(), filaNmae, TransferDigest.finish(md));
+                    writeReceiveFile(f, data);
                 } else {
-                    String recvFile = new String(data);
+                    String recvFile = new String(data, UTF8);
                     Log.d(LOG_TAG, "FilePath[" + recvFile + "]");
                     activity.appnedLogMessage(">>Data-Channel onMessage File[" + recvFile + "]");
+                    verifyReceiveFile(peerId, header.getId(), filaNmae, new File(recvFile));
+                }
+            }
+        }
+    }
+
+    /*
+     * Application 전송 프로토콜 메세지 처리
+     * - MIME_CONTROL : 전송 제어 메세지, OFFER/DIGEST/DELTA는 수신 측, RESUME은 송신 측, STREAM_DIGEST는 DigestVerifier에서 처리
+     * - MIME_CHUNK : 분할 파일 데이터
+     * - MIME_BATCH : sendMessage로 묶어서 전송한 작은 메세지
+     * - MIME_PACKED : 압축 메세지, 압축 해제 후 텍스트/Binary/묶음 메세지로 처리
+     * - MIME_MESSAGE : MessageSchema 형식 Binary 메세지, schema에 등록된 Receiver로 전달
+     * - MIME_SIGNATURE, MIME_DELTA : 파일 차이 전송, signature는 송신 측, delta는 수신 측에서 처리
+     * - MIME_ARCHIVE : 폴더 archive 스트림, ArchiveReceiver에서 풀어서 저장
+     *
+     * @param peerId String, 송신 측 peer 아이디
+     * @param mimeType String, PlayRTCDataHeader#getMimeType
+     * @param data byte[], 수신 데이터
+     * @see com.playrtc.sample.transfer.TransferProtocol
+     */
+    private void onProtocolMessage(String peerId, String mimeType, byte[] data) {
+        if (TransferProtocol.MIME_CHUNK.equals(mimeType)) {
+            resumableReceiver.onChunk(data);
+        } else if (TransferProtocol.MIME_DELTA.equals(mimeType)) {
+            deltaReceiver.onDelta(data);
+        } else if (TransferProtocol.MIME_SIGNATURE.equals(mimeType)) {
+            deltaSender.onSignature(peerId, data);
+        } else if (TransferProtocol.MIME_ARCHIVE.equals(mimeType)) {
+            archiveReceiver.onArchive(peerId, data);
+        } else if (TransferProtocol.MIME_MESSAGE.equals(mimeType)) {
+            if (!messageCodec.decode(data)) {
+                Log.e(LOG_TAG, "unknown message schema [" + data.length + "]");
+            }
+        } else if (TransferProtocol.MIME_BATCH.equals(mimeType)) {
+            MessageBatcher.unpack(data, batchReceiver);
+        } else if (TransferProtocol.MIME_PACKED.equals(mimeType)) {
+            boolean unpacked = compressor.unpack(data, new PayloadCompressor.Receiver() {
+                @Override
+                public void onPayload(int kind, byte[] data, int offset, int length) {
+                    if (kind == PayloadCompressor.KIND_BATCH) {
+                        MessageBatcher.unpack(data, offset, length, batchReceiver);
+                    } else if (kind == PayloadCompressor.KIND_TEXT) {
+                        batchReceiver.onText(new String(data, offset, length, UTF8));
+                    } else {
+                        batchReceiver.onBinary(data, offset, length);
+                    }
+                }
+            });
+            if (!unpacked) {
+                activity.appnedLogMessage(">>Data-Channel onMessage 압축 해제 실패[" + data.length + "]");
+            }
+        } else if (TransferProtocol.MIME_CONTROL.equals(mimeType)) {
+            // 파일 명이 마지막 인자이므로 명령 별 인자 수로 분리(공백이 있는 파일 명)
+            String[] args = TransferProtocol.decodeControl(data);
+            if (TransferProtocol.CMD_OFFER.equals(args[0]) || TransferProtocol.CMD_DIGEST.equals(args[0])) {
+                resumableReceiver.onControl(peerId, args);
+            } else if (TransferProtocol.CMD_DELTA.equals(args[0])) {
+                deltaReceiver.onControl(args);
+            } else if (TransferProtocol.CMD_STREAM_DIGEST.equals(args[0])) {
+                if (args.length >= 3) {
+                    try {
+                        digestVerifier.expect(peerId, Long.parseLong(args[1]), args[2]);
+                    } catch (NumberFormatException e) {
+                        Log.e(LOG_TAG, "invalid digest id " + args[1]);
+                    }
                 }
+            } else {
+                resumableSender.onControl(peerId, args);
             }
         }
     }
 
+    /*
+     * 묶음/압축 메세지에서 분리한 텍스트/Binary 메세지 처리
+     */
+    private final MessageBatcher.Receiver batchReceiver = new MessageBatcher.Receiver() {
+        @Override
+        public void onText(String text) {
+            Log.d(LOG_TAG, "Text[" + text + "]");
+            activity.appnedLogMessage(">>Data-Channel onMessage[" + text + "]");
+        }
+
+        @Override
+        public void onBinary(byte[] data, int offset, int length) {
+            Log.d(LOG_TAG, "Binary[" + length + "]");
+            activity.appnedLogMessage(">>Data-Channel onMessage Binary[" + length + "]");
+        }
+    };
+
+    /*
+     * 수신 파일 저장 폴더를 반환한다.
+     * @return File
+     */
+    private File getReceiveDir() {
+        return new File(Environment.getExternalStorageDirectory().getAbsolutePath() +
+                "/Android/data/" + activity.getPackageName() + "/files/");
+    }
+
+    /*
+     * SDK가 저장한 수신 파일의 Digest를 계산하여 DigestVerifier로 전달한다.
+     * PlayRTCFileReveType.File 모드는 수신 데이터가 앱을 거치지 않으므로(onProgress는 크기 정보만 전달)
+     * 저장된 파일을 digestExecutor에서 한번 읽어서 계산한다.
+     *
+     * @param peerId String, 송신 측 peer 아이디
+     * @param id long, 전송 고유 아이디
+     * @param name String, 파일 명
+     * @param f File, 수신 파일
+     */
+    private void verifyReceiveFile(final String peerId, final long id, final String name, final File f) {
+        digestExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    digestVerifier.computed(peerId, id, name, TransferDigest.digest(f));
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "File[" + name + "] digest " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    /*
+     * PlayRTCFileReveType.Byte 모드로 수신한 파일 데이터를 fileWriteExecutor에서 파일에 기록한다.
+     * Byte 모드는 SDK가 파일 전체를 byte[]로 전달하므로 분할하거나 복사하지 않고 그대로 기록하며,
+     * 이벤트 Thread는 디스크 기록을 기다리지 않는다.
+     * 큰 파일은 File 모드(기본) 또는 sendFileResumable의 분할 전송(ResumableFileReceiver)으로 수신한다.
+     *
+     * @param f File, 저장 파일
+     * @param data byte[], 수신 데이터
+     */
+    private void writeReceiveFile(final File f, final byte[] data) {
+        if (fileWriteExecutor.isShutdown()) {
+            return;
+        }
+        fileWriteExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                FileOutputStream out = null;
+                try {
+                    out = new FileOutputStream(f, false);
+                    out.write(data);
+                    out.getFD().sync();
+                    Log.d(LOG_TAG, "FileWrite[" + f.getName() + "] " + data.length + " bytes");
+                } catch (IOException e) {
+                    Log.e(LOG_TAG, "FileWrite[" + f.getName() + "] " + e.getMessage());
+                    activity.appnedLogMessage(">>Data-Channel File[" + f.getName() + "] 저장 실패 " + e.getMessage());
+                } finally {
+                    if (out != null) {
+                        try {
+                            out.close();
+                        } catch (IOException e) {
+                            e.printStackTrace();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     /*
      * 오류 발생
      *
@@ -475,20 +1299,32 @@ public class PlayRTCDataChannelHandler implements PlayRTCDataObserver {
      */
     @Override
     public void onStateChange(final PlayRTCData obj, final String peerId, final String peerUid, final PlayRTCDataStatus state) {
-        Utils.showToast(activity, "Data-Channel[" + peerId + "] " + state + "...");
-        activity.appnedLogMessage(">>Data-Channel " + state + "...");
-    }
-
-    private void closeInputStream() {
-        if (dataIs != null) {
-            try {
-                dataIs.close();
-
-            } catch (IOException e) {
-                e.printStackTrace();
+        if (state == PlayRTCDataStatus.Open) {
+            // 새 연결(세션)의 지표를 기록
+            metrics.reset();
+            // 이전에 중단된 분할 전송이 있으면 이어서 전송
+            resumableSender.resumePending();
+        } else if (state == PlayRTCDataStatus.Closed) {
+            // 데이터 채널이 닫히면 진행 중인 전송은 더이상 완료될 수 없으므로 모두 중단
+            // 분할 전송은 Journal과 임시 파일이 유지되어 다음 연결에서 이어서 전송한다.
+            batcher.clear();
+            logMetrics(metrics.snapshot());
+            for (ProgressAggregator.Progress progress : progressAggregator.getActive()) {
+                progressAggregator.close(progress, false);
             }
+            receiveProgress.clear();
+            resumableProgress.clear();
+            scheduler.clear();
+            transferManager.cancelAll();
+            resumableSender.suspendAll();
+            resumableReceiver.suspendAll();
+            deltaSender.suspendAll();
+            deltaReceiver.suspendAll();
+            archiveSender.suspendAll();
+            archiveReceiver.suspendAll();
         }
-        dataIs = null;
+        Utils.showToast(activity, "Data-Channel[" + peerId + "] " + state + "...");
+        activity.appnedLogMessage(">>Data-Channel " + state + "...");
     }
 
 }
@@ -1,11 +1,14 @@
 package com.playrtc.sample.handler;
 
 import android.app.AlertDialog;
+import android.content.Context;
 import android.content.DialogInterface;
+import android.content.SharedPreferences;
 import android.os.Environment;
 import android.util.Log;
 
 import com.playrtc.sample.PlayRTCActivity;
+import com.playrtc.sample.stats.MediaQualityController;
 import com.playrtc.sample.util.Utils;
 import com.playrtc.sample.view.PlayRTCVideoViewGroup;
 import com.sktelecom.playrtc.PlayRTC;
@@ -107,6 +110,10 @@ import java.io.File;
  *     P2P연결 수립 후 PlayRTC의 P2P 상태 정보를 제공하기 위한 Report 객체
  *     PlayRTCObserver#onStateChange에서 상태 이벤트 PlayRTCStatus.PeerSuccess가 발생하면 구동 시킨다.
  *
+ * - MediaQualityController qualityController
+ *     StatsReport 등급으로 로컬 영상 전송 Profile을 조절하는 객체
+ *     연결 중에는 품질이 나빠지면 로컬 영상 전송을 멈추고, 해상도/Frame-Rate Profile은 다음 연결 시 적용한다.
+ *
  * - PlayRTCLogView logView
  *     PlayRTC 로그를 출력하기위해 TextView를 확장한 Class
  *
@@ -187,6 +194,26 @@ public class PlayRTCHandler extends PlayRTCObserver {
      */
     private PlayRTCStatsReportHandler statReportHandler = null;
 
+    /**
+     * StatsReport 등급으로 로컬 영상 전송 Profile을 조절하는 객체
+     * 마지막 Profile은 SharedPreferences에 저장하여 다음 연결의 PlayRTCConfig에 사용한다.
+     */
+    private MediaQualityController qualityController = null;
+
+    /**
+     * 사용자가 VIDEO-OFF 버튼으로 로컬 영상 전송을 멈췄는지 여부
+     * 품질 회복으로 VideoPaused 단계를 벗어나도 사용자가 멈춘 영상은 다시 전송하지 않는다.
+     */
+    private volatile boolean userVideoPaused = false;
+
+    /**
+     * MediaQualityController의 VideoPaused 단계로 로컬 영상 전송을 멈췄는지 여부
+     */
+    private volatile boolean autoVideoPaused = false;
+
+    private static final String PREF_MEDIA = "playrtc_media";
+    private static final String PREF_PROFILE = "profile";
+
     /**
      * 채널 서비스에 생성된 P2P 채널의 아이디
      */
@@ -215,6 +242,54 @@ public class PlayRTCHandler extends PlayRTCObserver {
 
         // P2P연결 수립 후 PlayRTC의 P2P 상태 정보를 제공하기 위한 Report 객체 생성
         statReportHandler = new PlayRTCStatsReportHandler(activity);
+
+        qualityController = new MediaQualityController(loadMediaProfile(), new MediaQualityController.Listener() {
+            @Override
+            public void onProfileChange(MediaQualityController.Profile from, MediaQualityController.Profile to) {
+                onMediaProfileChange(from, to);
+            }
+        });
+        statReportHandler.setQualityController(qualityController);
+    }
+
+    /*
+     * 저장된 로컬 영상 전송 Profile을 반환한다.
+     * @return MediaQualityController.Profile, 저장된 값이 없으면 High, VideoPaused이면 Low
+     */
+    private MediaQualityController.Profile loadMediaProfile() {
+        SharedPreferences pref = activity.getSharedPreferences(PREF_MEDIA, Context.MODE_PRIVATE);
+        MediaQualityController.Profile profile;
+        try {
+            profile = MediaQualityController.Profile.valueOf(pref.getString(PREF_PROFILE, MediaQualityController.Profile.High.name()));
+        } catch (IllegalArgumentException e) {
+            profile = MediaQualityController.Profile.High;
+        }
+        // 영상 전송 중지는 연결 중에만 적용, 새 연결은 Low로 시작한다.
+        return (profile == MediaQualityController.Profile.VideoPaused) ? MediaQualityController.Profile.Low : profile;
+    }
+
+    /*
+     * MediaQualityController의 Profile 변경 처리, StatsReport Thread에서 호출된다.
+     * VideoPaused 단계에서는 로컬 영상 전송을 멈추고, 그 외의 Profile은 다음 연결 시 적용하도록 저장한다.
+     * 영상 Mute 변경은 Main Thread에서 처리하며, 사용자가 멈춘 영상은 VideoPaused 단계를 벗어나도 멈춘 상태로 둔다.
+     */
+    private void onMediaProfileChange(MediaQualityController.Profile from, MediaQualityController.Profile to) {
+        PlayRTCActivity activity = this.activity;
+        if(activity == null) {
+            return;
+        }
+        if(to == MediaQualityController.Profile.VideoPaused || from == MediaQualityController.Profile.VideoPaused) {
+            final boolean paused = (to == MediaQualityController.Profile.VideoPaused);
+            activity.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    autoVideoPaused = paused;
+                    applyLocalVideoPause();
+                }
+            });
+        }
+        activity.getSharedPreferences(PREF_MEDIA, Context.MODE_PRIVATE).edit().putString(PREF_PROFILE, to.name()).apply();
+        activity.appnedLogMessage(">>Media Profile " + from + " -> " + to);
     }
 
     /**
@@ -353,6 +428,8 @@ public class PlayRTCHandler extends PlayRTCObserver {
     public void switchVideoCamera() {
         if(playrtc != null) {
             playrtc.switchVideoCamera();
+            // 카메라 전환 직후 영상 상태를 짧은 주기로 확인
+            statReportHandler.boost();
         }
     }
 
@@ -420,11 +497,21 @@ public class PlayRTCHandler extends PlayRTCObserver {
     /**
      * 로컬 전송 영상 스트림을 Pause. - 전송 스트림 <br>
      * 상대방은 나의 영상이  출력되지 않는다. <br>
+     * 품질 저하로 영상 전송이 멈춘 상태(VideoPaused)에서는 on이 false여도 품질이 회복될 때 까지 멈춘 상태로 둔다. <br>
+     * Main Thread에서 호출한다. <br>
      * @param on boolean
      */
     public void setLocalVideoPause(boolean on) {
+        userVideoPaused = on;
+        applyLocalVideoPause();
+    }
+
+    /*
+     * 사용자 설정과 VideoPaused 단계 중 하나라도 멈춤이면 로컬 영상 전송을 멈춘다. Main Thread에서 호출
+     */
+    private void applyLocalVideoPause() {
         if(localMedia != null) {
-            localMedia.setVideoMute(on);
+            localMedia.setVideoMute(userVideoPaused || autoVideoPaused);
         }
     }
 
@@ -938,12 +1025,14 @@ public class PlayRTCHandler extends PlayRTCObserver {
 		 * - 640x480 해상도 : 기본 해상도
 		 * - 1280x720 해상도 : 단말기 성능에 따라 영상 품질이 매우 않좋아질 수 있음.
 		 */
-        int frameWidth = 640;
-        int frameHeight = 480;
-
-        int minVideoFrameRate = 15;
-        int maxVideoFrameRate = 30;
-        int videoBitrateKbps = 1500;
+        // 이전 연결의 품질에 따라 MediaQualityController가 결정한 Profile 사용, 기본 640x480 15~30fps 1500kbps
+        MediaQualityController.Profile profile = qualityController.getProfile();
+        int frameWidth = profile.getFrameWidth();
+        int frameHeight = profile.getFrameHeight();
+
+        int minVideoFrameRate = profile.getMinFrameRate();
+        int maxVideoFrameRate = profile.getMaxFrameRate();
+        int videoBitrateKbps = profile.getVideoBitrateKbps();
 
         // 음성 데이터 평균 bitrate 지정,kbps
         // ISAC 32
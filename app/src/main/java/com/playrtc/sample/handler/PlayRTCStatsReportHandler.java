@@ -1,36 +1,178 @@
 package com.playrtc.sample.handler;
 
-import android.text.format.Formatter;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 import com.playrtc.sample.PlayRTCActivity;
+import com.playrtc.sample.stats.AdaptiveStatsInterval;
+import com.playrtc.sample.stats.MediaQualityController;
+import com.playrtc.sample.stats.StatsAnomalyDetector;
+import com.playrtc.sample.stats.StatsHistory;
+import com.playrtc.sample.stats.StatsRecorder;
+import com.playrtc.sample.stats.StatsStore;
 import com.sktelecom.playrtc.PlayRTC;
 import com.sktelecom.playrtc.PlayRTCStatsReport;
-import com.sktelecom.playrtc.PlayRTCStatsReport.RatingValue;
 import com.sktelecom.playrtc.observer.PlayRTCStatsReportObserver;
 
+import java.io.File;
+import java.io.IOException;
+
 public class PlayRTCStatsReportHandler  implements PlayRTCStatsReportObserver {
 
-    //StatsReport 조회 주기 msec
-	private static final long TIMER_INTERVAL = 5000;//5 sec
+	private static final String LOG_TAG = "STATS-HANDLER";
 
 	private PlayRTCActivity activity = null;
 	private PlayRTC playrtc = null;
+	private String peerId = null;
+
+	/*
+	 * StatsReport 조회 주기, 품질 변화에 따라 AdaptiveStatsInterval.MIN_INTERVAL ~ MAX_INTERVAL msec
+	 * 주기를 바꿀 때는 Main Thread에서 StatsReport 조회를 다시 시작한다.
+	 */
+	private final AdaptiveStatsInterval adaptiveInterval = new AdaptiveStatsInterval();
+	private final Handler mainHandler = new Handler(Looper.getMainLooper());
+	private volatile long currentInterval = 0L;
+	private volatile boolean running = false;
+
+	/*
+	 * StatsReport 등급으로 로컬 영상 전송 Profile을 조절하는 객체, 지정하지 않으면 사용하지 않음
+	 */
+	private volatile MediaQualityController qualityController = null;
+
+	/*
+	 * 연결 별 StatsReport 기록 파일, 앱 파일 영역의 stats 폴더
+	 * start 시 기록을 시작하고 stop 시 파일을 닫는다.
+	 */
+	private final StatsStore store;
+	private StatsRecorder recorder = null;
+
+	/*
+	 * RTT, Frame-Rate, Packet Loss 이상 감지, 감지 시 로그를 출력한다.
+	 */
+	private final StatsAnomalyDetector anomalyDetector;
+
+	/*
+	 * StatsReport 숫자 항목 기록, 최근 값의 추이(최소/최대/평균/백분위)를 조회할 수 있다.
+	 */
+	private final StatsHistory history = new StatsHistory();
 	
 	public PlayRTCStatsReportHandler(PlayRTCActivity activity) {
 		this.activity = activity;
+		this.store = new StatsStore(new File(activity.getFilesDir(), "stats"));
+		this.anomalyDetector = new StatsAnomalyDetector(new StatsAnomalyDetector.Listener() {
+			@Override
+			public void onAnomaly(StatsAnomalyDetector.Anomaly anomaly) {
+				Log.w(LOG_TAG, "anomaly " + anomaly);
+				PlayRTCActivity activity = PlayRTCStatsReportHandler.this.activity;
+				if(activity != null) {
+					activity.appnedLogMessage(">>Stats " + anomaly);
+				}
+				// 이상 감지 시 짧은 주기로 조회
+				boost();
+			}
+		});
 	}
 	
 	public void start(PlayRTC playrtc, String peerId) {
 
+		mainHandler.removeCallbacks(restartReport);
+		// 연결 직후에는 짧은 주기로 조회
+		currentInterval = adaptiveInterval.boost();
+		MediaQualityController controller = qualityController;
+		if(controller != null) {
+			controller.reset();
+		}
+		anomalyDetector.reset();
 		if(playrtc != null) {
-			playrtc.startStatsReport(TIMER_INTERVAL, (PlayRTCStatsReportObserver)this, peerId);
+			playrtc.startStatsReport(currentInterval, (PlayRTCStatsReportObserver)this, peerId);
 		}
         this.playrtc = playrtc;
+        this.peerId = peerId;
+        this.running = (playrtc != null);
+        if(running) {
+            openRecorder(peerId);
+        }
 	}
 	public void stop() {
+		running = false;
+		mainHandler.removeCallbacks(restartReport);
 		if(playrtc != null) {
 			playrtc.stopStatsReport();
 		}
+		closeRecorder();
+	}
+
+	public StatsStore getStore() {
+		return store;
+	}
+
+	private synchronized void openRecorder(String peerId) {
+		closeRecorder();
+		try {
+			recorder = store.open(peerId, System.currentTimeMillis());
+		} catch (IOException e) {
+			Log.e(LOG_TAG, "stats recorder open failed " + e.getMessage());
+		}
+	}
+
+	private synchronized void closeRecorder() {
+		if(recorder != null) {
+			try {
+				recorder.close();
+			} catch (IOException e) {
+				Log.e(LOG_TAG, "stats recorder close failed " + e.getMessage());
+			}
+			recorder = null;
+		}
+	}
+
+	private synchronized void record(PlayRTCStatsReport report) {
+		if(recorder != null) {
+			try {
+				recorder.record(history, report);
+			} catch (IOException e) {
+				Log.e(LOG_TAG, "stats recorder write failed " + e.getMessage());
+				closeRecorder();
+			}
+		}
+	}
+
+	/*
+	 * 짧은 주기 조회로 돌아간다. 카메라 전환 등 영상 상태가 바뀌는 경우 호출
+	 */
+	public void boost() {
+		if(running && adaptiveInterval.boost() != currentInterval) {
+			mainHandler.post(restartReport);
+		}
+	}
+
+	public long getInterval() {
+		return currentInterval;
+	}
+
+	/*
+	 * 변경된 주기로 StatsReport 조회를 다시 시작한다.
+	 */
+	private final Runnable restartReport = new Runnable() {
+		@Override
+		public void run() {
+			long interval = adaptiveInterval.getInterval();
+			if(!running || playrtc == null || interval == currentInterval) {
+				return;
+			}
+			currentInterval = interval;
+			playrtc.stopStatsReport();
+			playrtc.startStatsReport(interval, (PlayRTCStatsReportObserver)PlayRTCStatsReportHandler.this, peerId);
+		}
+	};
+
+	public void setQualityController(MediaQualityController controller) {
+		this.qualityController = controller;
+	}
+
+	public StatsHistory getHistory() {
+		return history;
 	}
 
 
@@ -86,42 +228,19 @@ public class PlayRTCStatsReportHandler  implements PlayRTCStatsReportObserver {
 	 */
 	@Override
 	public void onStatsReport(PlayRTCStatsReport report) {
-		
-		RatingValue localVideoFl = report.getLocalVideoFractionLost();
-		RatingValue localAudioFl = report.getLocalAudioFractionLost();
-		RatingValue remoteVideoFl = report.getRemoteVideoFractionLost();
-		RatingValue remoteAudioFl = report.getRemoteAudioFractionLost();
-
-
-		final String text = String.format("Local\n ICE:%s\n Frame:%sx%sx%s\n 코덱:%s,%s\n Bandwidth[%sps]\n RTT[%s]\n RttRating[%d/%.4f]\n VFLost[%d/%.4f]\n AFLost[%d/%.4f]\n\nRemote\n ICE:%s\n Frame:%sx%sx%s\n 코덱:%s,%s\n Bandwidth[%sps]\n VFLost[%d/%.4f]\n AFLost[%d/%.4f]\n",
-											report.getLocalCandidate(),
-											report.getLocalFrameWidth(),
-											report.getLocalFrameHeight(),
-											report.getLocalFrameRate(),
-											report.getLocalVideoCodec(),
-											report.getLocalAudioCodec(),
-											Formatter.formatFileSize(activity.getApplicationContext(), report.getAvailableSendBandwidth())+"",
-											report.getRtt(),
-											report.getRttRating().getLevel(),
-											report.getRttRating().getValue(),
-											localVideoFl.getLevel(),
-											localVideoFl.getValue(),
-											localAudioFl.getLevel(),
-											localAudioFl.getValue(),
-											report.getRemoteCandidate(),
-											report.getRemoteFrameWidth(),
-											report.getRemoteFrameHeight(),
-											report.getRemoteFrameRate(),
-											report.getRemoteVideoCodec(),
-											report.getRemoteAudioCodec(),
-											Formatter.formatFileSize(activity.getApplicationContext(), report.getAvailableReceiveBandwidth())+"",
-											remoteVideoFl.getLevel(),
-											remoteVideoFl.getValue(),
-											remoteAudioFl.getLevel(),
-											remoteAudioFl.getValue());
-				
-
-		activity.printRtcStatReport(text);
+		history.add(report, System.currentTimeMillis());
+		record(report);
+		anomalyDetector.update(history);
+		if(running && adaptiveInterval.update(history) != currentInterval) {
+			mainHandler.post(restartReport);
+		}
+
+		MediaQualityController controller = qualityController;
+		if(controller != null) {
+			controller.update(history);
+		}
+		activity.printRtcStatReport(report);
+		activity.printRtcStatGraph(history);
 	}
 
 }
@@ -0,0 +1,91 @@
+package com.playrtc.sample.stats;
+
+/*
+ * StatsReport 조회 주기를 통화 품질 변화에 따라 조절하는 Class
+ *
+ * - 연결 직후, 카메라 전환 등 boost 호출 시 MIN_INTERVAL로 빠르게 조회한다.
+ * - RTT, Packet Loss 등급(Level, 1(좋음) ~ 5(나쁨))이 바뀌거나 RTT가 RTT_CHANGE_RATIO 이상 늘어나면 MIN_INTERVAL로 돌아간다.
+ *   등급이 좋아진 경우도 변화로 보고 짧은 주기로 확인한다.
+ * - 변화 없는 조회가 STABLE_COUNT 번 이어지면 주기를 2배로 늘리며 MAX_INTERVAL을 넘지 않는다.
+ *
+ * 안정된 통화에서는 조회 횟수가 줄고, 품질이 나빠지면 다음 조회부터 바로 짧은 주기로 확인한다.
+ */
+public class AdaptiveStatsInterval {
+
+    public static final long MIN_INTERVAL = 500;
+    public static final long MAX_INTERVAL = 10000;
+
+    /*
+     * 주기를 늘리기 전에 필요한 연속 안정 조회 수
+     */
+    public static final int STABLE_COUNT = 3;
+
+    /*
+     * RTT 증가 비율, 이전 조회 대비 1.5배 이상이면 품질 변화로 판단
+     */
+    public static final double RTT_CHANGE_RATIO = 1.5;
+
+    /*
+     * 품질 변화를 확인하는 등급 항목
+     */
+    private static final StatsHistory.Field[] LEVEL_FIELDS = {
+            StatsHistory.Field.RttLevel,
+            StatsHistory.Field.FractionLevel,
+            StatsHistory.Field.LocalVideoLostLevel,
+            StatsHistory.Field.LocalAudioLostLevel,
+            StatsHistory.Field.RemoteVideoLostLevel,
+            StatsHistory.Field.RemoteAudioLostLevel
+    };
+
+    private long interval = MIN_INTERVAL;
+    private int stable = 0;
+
+    /*
+     * 현재 조회 주기 msec
+     */
+    public synchronized long getInterval() {
+        return interval;
+    }
+
+    /*
+     * 빠른 조회 주기로 돌아간다. 연결 직후, 카메라 전환 시 호출
+     * @return long, 조회 주기 msec
+     */
+    public synchronized long boost() {
+        interval = MIN_INTERVAL;
+        stable = 0;
+        return interval;
+    }
+
+    /*
+     * 마지막 기록을 이전 기록과 비교하여 다음 조회 주기를 계산한다.
+     * @param history StatsHistory, 마지막 StatsReport를 기록한 상태
+     * @return long, 조회 주기 msec
+     */
+    public synchronized long update(StatsHistory history) {
+        int size = history.size();
+        if (size < 2) {
+            return interval;
+        }
+        if (isChanged(history, size - 2, size - 1)) {
+            return boost();
+        }
+        stable++;
+        if (stable >= STABLE_COUNT && interval < MAX_INTERVAL) {
+            interval = Math.min(MAX_INTERVAL, interval * 2);
+            stable = 0;
+        }
+        return interval;
+    }
+
+    private static boolean isChanged(StatsHistory history, int prev, int last) {
+        for (StatsHistory.Field field : LEVEL_FIELDS) {
+            if (history.getValue(field, prev) != history.getValue(field, last)) {
+                return true;
+            }
+        }
+        double prevRtt = history.getValue(StatsHistory.Field.Rtt, prev);
+        double lastRtt = history.getValue(StatsHistory.Field.Rtt, last);
+        return prevRtt > 0 && lastRtt >= prevRtt * RTT_CHANGE_RATIO;
+    }
+}
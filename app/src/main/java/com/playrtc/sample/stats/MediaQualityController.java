@@ -0,0 +1,153 @@
+package com.playrtc.sample.stats;
+
+/*
+ * StatsReport의 RTT, Packet Loss 등급(Level)으로 로컬 영상 전송 Profile을 조절하는 Class
+ * 등급은 SDK 기준 1(좋음) ~ 5(나쁨)이며(RTT는 200/300/400/500ms 이상이면 2/3/4/5, Packet Loss도 손실이 클수록 높은 등급),
+ * 0은 측정 전이다. 등급이 잠시 흔들리는 경우 Profile이 반복해서 바뀌지 않도록 hysteresis를 둔다.
+ *
+ * - 등급 중 하나라도 DEGRADE_LEVEL 이상인 조회가 DEGRADE_COUNT 번 이어지면 Profile을 1단계 낮춘다.
+ * - 모든 등급이 RECOVER_LEVEL 이하인 조회가 RECOVER_COUNT 번 이어지면 Profile을 1단계 높인다.
+ * - 그 외의 조회는 두 카운트를 모두 초기화한다.
+ *
+ * PlayRTC SDK는 연결 중에 영상 해상도/Frame-Rate를 바꿀 수 없으므로,
+ * 해상도/Frame-Rate Profile은 다음 연결(PlayRTCConfig 생성) 시 적용하고 연결 중에는 VideoPaused 단계에서 영상 전송만 멈춘다.
+ */
+public class MediaQualityController {
+
+    /*
+     * 로컬 영상 전송 Profile, 품질 순서
+     */
+    public enum Profile {
+        High(640, 480, 15, 30, 1500),
+        Medium(640, 480, 15, 15, 1000),
+        Low(320, 240, 10, 15, 600),
+        /*
+         * 음성만 전송, 영상 설정은 Low와 같다.
+         */
+        VideoPaused(320, 240, 10, 15, 600);
+
+        private final int frameWidth;
+        private final int frameHeight;
+        private final int minFrameRate;
+        private final int maxFrameRate;
+        private final int videoBitrateKbps;
+
+        Profile(int frameWidth, int frameHeight, int minFrameRate, int maxFrameRate, int videoBitrateKbps) {
+            this.frameWidth = frameWidth;
+            this.frameHeight = frameHeight;
+            this.minFrameRate = minFrameRate;
+            this.maxFrameRate = maxFrameRate;
+            this.videoBitrateKbps = videoBitrateKbps;
+        }
+
+        public int getFrameWidth() {
+            return frameWidth;
+        }
+
+        public int getFrameHeight() {
+            return frameHeight;
+        }
+
+        public int getMinFrameRate() {
+            return minFrameRate;
+        }
+
+        public int getMaxFrameRate() {
+            return maxFrameRate;
+        }
+
+        public int getVideoBitrateKbps() {
+            return videoBitrateKbps;
+        }
+    }
+
+    /*
+     * Profile 변경을 전달 받기 위한 인터페이스, update를 호출한 Thread에서 호출된다.
+     */
+    public interface Listener {
+        void onProfileChange(Profile from, Profile to);
+    }
+
+    public static final int DEGRADE_LEVEL = 4;
+    public static final int RECOVER_LEVEL = 2;
+    public static final int DEGRADE_COUNT = 3;
+    public static final int RECOVER_COUNT = 10;
+
+    /*
+     * Profile 결정에 사용하는 등급 항목
+     */
+    private static final StatsHistory.Field[] LEVEL_FIELDS = {
+            StatsHistory.Field.RttLevel,
+            StatsHistory.Field.LocalVideoLostLevel,
+            StatsHistory.Field.LocalAudioLostLevel
+    };
+
+    private static final Profile[] PROFILES = Profile.values();
+
+    private final Listener listener;
+    private Profile profile;
+    private int badCount = 0;
+    private int goodCount = 0;
+
+    /*
+     * 생성자
+     * @param profile Profile, 시작 Profile
+     * @param listener Listener
+     */
+    public MediaQualityController(Profile profile, Listener listener) {
+        this.profile = profile;
+        this.listener = listener;
+    }
+
+    public synchronized Profile getProfile() {
+        return profile;
+    }
+
+    /*
+     * 카운트를 초기화한다. 연결 시작 시 호출
+     */
+    public synchronized void reset() {
+        badCount = 0;
+        goodCount = 0;
+    }
+
+    /*
+     * 마지막 기록의 등급으로 Profile을 조절한다.
+     * @param history StatsHistory, 마지막 StatsReport를 기록한 상태
+     */
+    public void update(StatsHistory history) {
+        if (history.size() == 0) {
+            return;
+        }
+        int worst = 0;
+        for (StatsHistory.Field field : LEVEL_FIELDS) {
+            worst = Math.max(worst, (int) history.getLast(field));
+        }
+        Profile from;
+        Profile to;
+        synchronized (this) {
+            from = profile;
+            if (worst >= DEGRADE_LEVEL) {
+                goodCount = 0;
+                if (++badCount >= DEGRADE_COUNT && profile.ordinal() < PROFILES.length - 1) {
+                    profile = PROFILES[profile.ordinal() + 1];
+                    badCount = 0;
+                }
+            } else if (worst > 0 && worst <= RECOVER_LEVEL) {
+                // 등급이 0이면 아직 측정 전
+                badCount = 0;
+                if (++goodCount >= RECOVER_COUNT && profile.ordinal() > 0) {
+                    profile = PROFILES[profile.ordinal() - 1];
+                    goodCount = 0;
+                }
+            } else {
+                badCount = 0;
+                goodCount = 0;
+            }
+            to = profile;
+        }
+        if (from != to && listener != null) {
+            listener.onProfileChange(from, to);
+        }
+    }
+}
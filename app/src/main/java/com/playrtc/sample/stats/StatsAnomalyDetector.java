@@ -0,0 +1,210 @@
+package com.playrtc.sample.stats;
+
+/*
+ * StatsReport 기록에서 통화 품질 이상을 감지하는 Class
+ * 항목 별로 지수 가중 이동 평균(EWMA)과 분산만 유지하므로 항목 당 메모리는 일정하다.
+ *
+ * - Spike : 값이 평균 + SIGMA * 표준편차를 넘는 경우(RTT, Packet Loss)
+ * - Drop : 값이 평균의 DROP_RATIO 이하로 떨어진 경우(Frame-Rate)
+ *
+ * 조회 주기가 바뀌어도 같은 시간 범위를 반영하도록 가중치는 이전 기록과의 시간 간격으로 계산한다.(시정수 TIME_CONSTANT)
+ * 이상이 감지된 항목은 값이 평균 범위로 돌아올 때까지 다시 알리지 않는다.
+ * 처음 WARMUP_COUNT 개의 기록은 평균을 만드는데만 사용한다.
+ */
+public class StatsAnomalyDetector {
+
+    public enum Kind {
+        Spike,
+        Drop
+    }
+
+    /*
+     * 감지된 이상 정보
+     */
+    public static class Anomaly {
+        private final StatsHistory.Field field;
+        private final Kind kind;
+        private final long time;
+        private final double value;
+        private final double mean;
+        private final double deviation;
+
+        Anomaly(StatsHistory.Field field, Kind kind, long time, double value, double mean, double deviation) {
+            this.field = field;
+            this.kind = kind;
+            this.time = time;
+            this.value = value;
+            this.mean = mean;
+            this.deviation = deviation;
+        }
+
+        public StatsHistory.Field getField() {
+            return field;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        public double getMean() {
+            return mean;
+        }
+
+        public double getDeviation() {
+            return deviation;
+        }
+
+        @Override
+        public String toString() {
+            if (kind == Kind.Drop) {
+                return String.format("%s dropped %d%% (%.1f -> %.1f)", field, Math.round((1 - value / mean) * 100), mean, value);
+            }
+            return String.format("%s spike %.3f, %.1fσ over mean %.3f", field, value, (value - mean) / deviation, mean);
+        }
+    }
+
+    /*
+     * 이상 감지를 전달 받기 위한 인터페이스, update를 호출한 Thread에서 호출된다.
+     */
+    public interface Listener {
+        void onAnomaly(Anomaly anomaly);
+    }
+
+    /*
+     * EWMA 시정수 msec, 약 이 시간 동안의 기록이 평균에 반영된다.
+     */
+    public static final long TIME_CONSTANT = 10 * 1000;
+    public static final double SIGMA = 3.0;
+    public static final double DROP_RATIO = 0.5;
+    public static final int WARMUP_COUNT = 5;
+
+    /*
+     * 항목 1개의 EWMA 상태
+     * minDeviation : 값이 일정할 때 작은 변화로 Spike가 감지되지 않도록 하는 최소 표준편차
+     * minMean : Drop 감지에 필요한 최소 평균(Frame-Rate가 0에 가까운 경우 제외)
+     */
+    private static class Metric {
+        final StatsHistory.Field field;
+        final Kind kind;
+        final double minDeviation;
+        final double minMean;
+        double mean = 0;
+        double variance = 0;
+        long lastTime = 0L;
+        int count = 0;
+        boolean alert = false;
+
+        Metric(StatsHistory.Field field, Kind kind, double minDeviation, double minMean) {
+            this.field = field;
+            this.kind = kind;
+            this.minDeviation = minDeviation;
+            this.minMean = minMean;
+        }
+    }
+
+    private final Metric[] metrics = {
+            new Metric(StatsHistory.Field.Rtt, Kind.Spike, 10, 0),
+            new Metric(StatsHistory.Field.LocalFrameRate, Kind.Drop, 0, 5),
+            new Metric(StatsHistory.Field.RemoteFrameRate, Kind.Drop, 0, 5),
+            new Metric(StatsHistory.Field.LocalVideoLostValue, Kind.Spike, 0.01, 0),
+            new Metric(StatsHistory.Field.RemoteVideoLostValue, Kind.Spike, 0.01, 0),
+            new Metric(StatsHistory.Field.LocalAudioLostValue, Kind.Spike, 0.01, 0),
+            new Metric(StatsHistory.Field.RemoteAudioLostValue, Kind.Spike, 0.01, 0)
+    };
+
+    private final double[] values = new double[StatsHistory.Field.values().length];
+    private final Listener listener;
+
+    public StatsAnomalyDetector(Listener listener) {
+        this.listener = listener;
+    }
+
+    /*
+     * 평균과 분산을 초기화한다. 연결 시작 시 호출
+     */
+    public synchronized void reset() {
+        for (Metric m : metrics) {
+            m.mean = 0;
+            m.variance = 0;
+            m.lastTime = 0L;
+            m.count = 0;
+            m.alert = false;
+        }
+    }
+
+    /*
+     * 마지막 기록으로 이상 여부를 검사하고 평균과 분산을 갱신한다.
+     * @param history StatsHistory, 마지막 StatsReport를 기록한 상태
+     */
+    public void update(StatsHistory history) {
+        if (history.size() == 0) {
+            return;
+        }
+        // 이상이 감지된 경우만 생성, Listener는 Lock 밖에서 호출
+        Anomaly[] found = null;
+        int count = 0;
+        synchronized (this) {
+            long time = history.getLast(values);
+            for (Metric m : metrics) {
+                Anomaly anomaly = check(m, values[m.field.ordinal()], time);
+                if (anomaly != null) {
+                    if (found == null) {
+                        found = new Anomaly[metrics.length];
+                    }
+                    found[count++] = anomaly;
+                }
+            }
+        }
+        if (listener != null) {
+            for (int i = 0; i < count; i++) {
+                listener.onAnomaly(found[i]);
+            }
+        }
+    }
+
+    private Anomaly check(Metric m, double value, long time) {
+        Anomaly anomaly = null;
+        if (m.count >= WARMUP_COUNT) {
+            double deviation = Math.max(Math.sqrt(m.variance), m.minDeviation);
+            boolean abnormal;
+            boolean normal;
+            if (m.kind == Kind.Spike) {
+                abnormal = value > m.mean + SIGMA * deviation;
+                normal = value <= m.mean + deviation;
+            } else {
+                abnormal = m.mean >= m.minMean && value <= m.mean * DROP_RATIO;
+                normal = value > m.mean * (1 - (1 - DROP_RATIO) / 2);
+            }
+            if (abnormal && !m.alert) {
+                m.alert = true;
+                anomaly = new Anomaly(m.field, m.kind, time, value, m.mean, deviation);
+            } else if (normal) {
+                m.alert = false;
+            }
+        }
+
+        // EWMA 갱신, alpha = 1 - exp(-dt / TIME_CONSTANT)
+        if (m.count == 0) {
+            m.mean = value;
+            m.variance = 0;
+        } else {
+            long dt = Math.max(1L, time - m.lastTime);
+            double alpha = 1 - Math.exp(-(double) dt / TIME_CONSTANT);
+            double diff = value - m.mean;
+            double increment = alpha * diff;
+            m.mean += increment;
+            m.variance = (1 - alpha) * (m.variance + diff * increment);
+        }
+        m.lastTime = time;
+        m.count++;
+        return anomaly;
+    }
+}
@@ -0,0 +1,332 @@
+package com.playrtc.sample.stats;
+
+import com.sktelecom.playrtc.PlayRTCStatsReport;
+import com.sktelecom.playrtc.PlayRTCStatsReport.RatingValue;
+
+import java.util.Arrays;
+
+/*
+ * PlayRTCStatsReport의 숫자 항목을 시간 순서로 보관하는 Ring Buffer Class
+ * 항목 별 double 배열과 시각 배열을 미리 할당하고 가장 오래된 값부터 덮어쓰므로 add 시 객체를 생성하지 않는다.
+ *
+ * 조회는 최근 windowMs 구간(마지막 기록 시각 기준)의 값을 대상으로 하며,
+ * windowMs가 0 이하이면 보관 중인 전체 값을 대상으로 한다.
+ * 백분위 계산용 정렬 버퍼도 생성 시 할당하여 재사용한다.
+ *
+ * add와 조회는 서로 다른 Thread에서 호출할 수 있다.(PlayRTC 이벤트 Thread, UI Thread)
+ */
+public class StatsHistory {
+
+    /*
+     * 보관하는 StatsReport 항목
+     * RatingValue 항목은 등급(Level)과 값(Value)을 따로 보관한다.
+     * StatsStore 파일 record 순서로도 사용하므로 새 항목은 끝에 추가하고, 순서를 바꾸면 StatsStore.VERSION을 올린다.
+     */
+    public enum Field {
+        LocalFrameWidth,
+        LocalFrameHeight,
+        LocalFrameRate,
+        RemoteFrameWidth,
+        RemoteFrameHeight,
+        RemoteFrameRate,
+        SendBandwidth,
+        ReceiveBandwidth,
+        Rtt,
+        RttLevel,
+        RttValue,
+        FractionLevel,
+        FractionValue,
+        LocalVideoLostLevel,
+        LocalVideoLostValue,
+        LocalAudioLostLevel,
+        LocalAudioLostValue,
+        RemoteVideoLostLevel,
+        RemoteVideoLostValue,
+        RemoteAudioLostLevel,
+        RemoteAudioLostValue
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    /*
+     * 기본 보관 수, 500ms 주기로 10분
+     */
+    public static final int DEFAULT_CAPACITY = 1200;
+
+    private final int capacity;
+    private final long[] times;
+    private final double[][] values;
+    private final double[] sortBuffer;
+
+    /*
+     * 다음 기록 위치와 보관 중인 값 수
+     */
+    private int head = 0;
+    private int size = 0;
+
+    public StatsHistory() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /*
+     * 생성자
+     * @param capacity int, 보관할 최대 StatsReport 수
+     */
+    public StatsHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity " + capacity);
+        }
+        this.capacity = capacity;
+        this.times = new long[capacity];
+        this.values = new double[FIELDS.length][capacity];
+        this.sortBuffer = new double[capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /*
+     * StatsReport의 숫자 항목을 기록한다.
+     * @param report PlayRTCStatsReport
+     * @param time long, 조회 시각 msec
+     */
+    public synchronized void add(PlayRTCStatsReport report, long time) {
+        int i = head;
+        times[i] = time;
+        values[Field.LocalFrameWidth.ordinal()][i] = report.getLocalFrameWidth();
+        values[Field.LocalFrameHeight.ordinal()][i] = report.getLocalFrameHeight();
+        values[Field.LocalFrameRate.ordinal()][i] = report.getLocalFrameRate();
+        values[Field.RemoteFrameWidth.ordinal()][i] = report.getRemoteFrameWidth();
+        values[Field.RemoteFrameHeight.ordinal()][i] = report.getRemoteFrameHeight();
+        values[Field.RemoteFrameRate.ordinal()][i] = report.getRemoteFrameRate();
+        values[Field.SendBandwidth.ordinal()][i] = report.getAvailableSendBandwidth();
+        values[Field.ReceiveBandwidth.ordinal()][i] = report.getAvailableReceiveBandwidth();
+        values[Field.Rtt.ordinal()][i] = report.getRtt();
+        putRating(Field.RttLevel, Field.RttValue, report.getRttRating(), i);
+        putRating(Field.FractionLevel, Field.FractionValue, report.getFractionRating(), i);
+        putRating(Field.LocalVideoLostLevel, Field.LocalVideoLostValue, report.getLocalVideoFractionLost(), i);
+        putRating(Field.LocalAudioLostLevel, Field.LocalAudioLostValue, report.getLocalAudioFractionLost(), i);
+        putRating(Field.RemoteVideoLostLevel, Field.RemoteVideoLostValue, report.getRemoteVideoFractionLost(), i);
+        putRating(Field.RemoteAudioLostLevel, Field.RemoteAudioLostValue, report.getRemoteAudioFractionLost(), i);
+        advance();
+    }
+
+    private void putRating(Field level, Field value, RatingValue rating, int i) {
+        if (rating != null) {
+            values[level.ordinal()][i] = rating.getLevel();
+            values[value.ordinal()][i] = rating.getValue();
+        } else {
+            values[level.ordinal()][i] = 0;
+            values[value.ordinal()][i] = 0;
+        }
+    }
+
+    private void advance() {
+        head = (head + 1) % capacity;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    /*
+     * 기록을 모두 지운다.
+     */
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /*
+     * 보관 중인 값 수
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /*
+     * 마지막 기록 시각, 기록이 없으면 0
+     */
+    public synchronized long getLastTime() {
+        return (size == 0) ? 0L : times[slot(size - 1)];
+    }
+
+    /*
+     * 마지막 기록 값, 기록이 없으면 0
+     */
+    public synchronized double getLast(Field field) {
+        return (size == 0) ? 0 : values[field.ordinal()][slot(size - 1)];
+    }
+
+    /*
+     * 마지막 기록의 모든 항목 값을 Field 순서로 복사한다.
+     * @param out double[], Field.values().length 크기
+     * @return long, 마지막 기록 시각, 기록이 없으면 0
+     */
+    public synchronized long getLast(double[] out) {
+        if (size == 0) {
+            return 0L;
+        }
+        int s = slot(size - 1);
+        for (int f = 0; f < FIELDS.length; f++) {
+            out[f] = values[f][s];
+        }
+        return times[s];
+    }
+
+    /*
+     * 오래된 순서로 index 번째 기록 시각
+     * @param index int, 0 ~ size() - 1
+     */
+    public synchronized long getTime(int index) {
+        checkIndex(index);
+        return times[slot(index)];
+    }
+
+    /*
+     * 오래된 순서로 index 번째 기록 값
+     * @param field Field
+     * @param index int, 0 ~ size() - 1
+     */
+    public synchronized double getValue(Field field, int index) {
+        checkIndex(index);
+        return values[field.ordinal()][slot(index)];
+    }
+
+    /*
+     * 구간의 값 수
+     * @param windowMs long, 마지막 기록 시각 기준 조회 구간 msec
+     */
+    public synchronized int count(long windowMs) {
+        return size - windowStart(windowMs);
+    }
+
+    public synchronized double getMin(Field field, long windowMs) {
+        double[] v = values[field.ordinal()];
+        int start = windowStart(windowMs);
+        double min = Double.NaN;
+        for (int i = start; i < size; i++) {
+            double x = v[slot(i)];
+            if (i == start || x < min) {
+                min = x;
+            }
+        }
+        return min;
+    }
+
+    public synchronized double getMax(Field field, long windowMs) {
+        double[] v = values[field.ordinal()];
+        int start = windowStart(windowMs);
+        double max = Double.NaN;
+        for (int i = start; i < size; i++) {
+            double x = v[slot(i)];
+            if (i == start || x > max) {
+                max = x;
+            }
+        }
+        return max;
+    }
+
+    /*
+     * 구간 평균, 값이 없으면 NaN
+     */
+    public synchronized double getAverage(Field field, long windowMs) {
+        double[] v = values[field.ordinal()];
+        int start = windowStart(windowMs);
+        if (start == size) {
+            return Double.NaN;
+        }
+        double sum = 0;
+        for (int i = start; i < size; i++) {
+            sum += v[slot(i)];
+        }
+        return sum / (size - start);
+    }
+
+    /*
+     * 구간 백분위 값(nearest-rank), 값이 없으면 NaN
+     * @param field Field
+     * @param windowMs long
+     * @param percentile double, 0 ~ 100
+     */
+    public synchronized double getPercentile(Field field, long windowMs, double percentile) {
+        int n = copyTo(field, windowMs, sortBuffer, 0);
+        if (n == 0) {
+            return Double.NaN;
+        }
+        Arrays.sort(sortBuffer, 0, n);
+        int rank = (int) Math.ceil(percentile / 100.0 * n);
+        return sortBuffer[Math.min(n - 1, Math.max(0, rank - 1))];
+    }
+
+    /*
+     * 구간 값을 오래된 순서로 복사한다. 그래프 출력 등에서 조회 Lock을 짧게 유지하기 위해 사용
+     * @param field Field
+     * @param windowMs long
+     * @param out double[], 복사할 배열, 부족하면 최근 값만 복사
+     * @param offset int
+     * @return int, 복사한 값 수
+     */
+    public synchronized int copyTo(Field field, long windowMs, double[] out, int offset) {
+        double[] v = values[field.ordinal()];
+        int start = Math.max(windowStart(windowMs), size - (out.length - offset));
+        for (int i = start; i < size; i++) {
+            out[offset + i - start] = v[slot(i)];
+        }
+        return size - start;
+    }
+
+    /*
+     * 구간 값과 기록 시각을 오래된 순서로 함께 복사한다. 조회 주기가 바뀌어도 시간 축으로 그릴 수 있다.
+     * @param field Field
+     * @param windowMs long
+     * @param timesOut long[], 기록 시각을 복사할 배열
+     * @param out double[], 값을 복사할 배열, 두 배열 중 작은 크기만큼 최근 값만 복사
+     * @return int, 복사한 값 수
+     */
+    public synchronized int copyTo(Field field, long windowMs, long[] timesOut, double[] out) {
+        double[] v = values[field.ordinal()];
+        int start = Math.max(windowStart(windowMs), size - Math.min(timesOut.length, out.length));
+        for (int i = start; i < size; i++) {
+            int s = slot(i);
+            timesOut[i - start] = times[s];
+            out[i - start] = v[s];
+        }
+        return size - start;
+    }
+
+    /*
+     * 구간의 첫번째 index(오래된 순서), 이진 탐색
+     */
+    private int windowStart(long windowMs) {
+        if (windowMs <= 0L || size == 0) {
+            return 0;
+        }
+        long from = times[slot(size - 1)] - windowMs;
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[slot(mid)] <= from) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /*
+     * 오래된 순서 index를 배열 위치로 변환
+     */
+    private int slot(int index) {
+        int s = head - size + index;
+        return (s < 0) ? s + capacity : s;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + size);
+        }
+    }
+}
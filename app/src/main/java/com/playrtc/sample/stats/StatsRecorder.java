@@ -0,0 +1,146 @@
+package com.playrtc.sample.stats;
+
+import com.sktelecom.playrtc.PlayRTCStatsReport;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+/*
+ * Session 1개의 StatsReport를 StatsStore 형식 파일에 기록하는 Class
+ * record는 FLUSH_RECORDS 개씩 모아서 파일 끝에 쓰며, close 시 헤더의 종료 시각, record 수, 요약 값을 기록한다.
+ * record 버퍼는 생성 시 할당하여 재사용한다.
+ *
+ * @see com.playrtc.sample.stats.StatsStore
+ */
+public class StatsRecorder {
+
+    /*
+     * 파일에 한 번에 쓰는 record 수, 비정상 종료 시 최대 이 수만큼 유실된다.
+     */
+    public static final int FLUSH_RECORDS = 16;
+
+    private final File file;
+    private final String peerId;
+    private final long startTime;
+    private final RandomAccessFile raf;
+    private final double[] values = new double[StatsStore.FIELD_COUNT];
+    private final byte[] buffer = new byte[StatsStore.RECORD_SIZE * FLUSH_RECORDS];
+    private final ByteBuffer bb = ByteBuffer.wrap(buffer);
+
+    private String localVideoCodec = null;
+    private String localAudioCodec = null;
+    private String remoteVideoCodec = null;
+    private String remoteAudioCodec = null;
+    private int frameWidth = 0;
+    private int frameHeight = 0;
+
+    private long endTime = 0L;
+    private int recordCount = 0;
+    private double rttSum = 0;
+    private float rttMax = 0f;
+    private float videoLostMax = 0f;
+    private boolean closed = false;
+
+    StatsRecorder(File file, String peerId, long startTime) throws IOException {
+        this.file = file;
+        this.peerId = peerId;
+        this.startTime = startTime;
+        this.raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0L);
+        writeHeader();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /*
+     * StatsHistory의 마지막 기록을 파일에 추가한다.
+     * @param history StatsHistory, StatsReport를 기록한 직후
+     * @param report PlayRTCStatsReport, 코덱 정보
+     * @throws IOException 파일 기록 실패
+     */
+    public synchronized void record(StatsHistory history, PlayRTCStatsReport report) throws IOException {
+        if (closed) {
+            return;
+        }
+        long time = history.getLast(values);
+        if (localVideoCodec == null) {
+            localVideoCodec = report.getLocalVideoCodec();
+            localAudioCodec = report.getLocalAudioCodec();
+            remoteVideoCodec = report.getRemoteVideoCodec();
+            remoteAudioCodec = report.getRemoteAudioCodec();
+        }
+        if (frameWidth == 0) {
+            frameWidth = (int) values[StatsHistory.Field.LocalFrameWidth.ordinal()];
+            frameHeight = (int) values[StatsHistory.Field.LocalFrameHeight.ordinal()];
+        }
+        bb.putInt((int) (time - startTime));
+        for (int f = 0; f < values.length; f++) {
+            bb.putFloat((float) values[f]);
+        }
+        float rtt = (float) values[StatsHistory.Field.Rtt.ordinal()];
+        float videoLost = (float) values[StatsHistory.Field.LocalVideoLostValue.ordinal()];
+        rttSum += rtt;
+        rttMax = Math.max(rttMax, rtt);
+        videoLostMax = Math.max(videoLostMax, videoLost);
+        endTime = time;
+        recordCount++;
+        if (!bb.hasRemaining()) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        if (bb.position() > 0) {
+            raf.seek(raf.length());
+            raf.write(buffer, 0, bb.position());
+            bb.clear();
+        }
+    }
+
+    /*
+     * 남은 record를 쓰고 헤더를 갱신한 후 파일을 닫는다.
+     */
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            flush();
+            if (endTime == 0L) {
+                endTime = startTime;
+            }
+            writeHeader();
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(StatsStore.HEADER_SIZE);
+        h.putInt(StatsStore.MAGIC);
+        h.putShort(StatsStore.VERSION);
+        h.putShort((short) StatsStore.FIELD_COUNT);
+        h.putShort((short) StatsStore.RECORD_SIZE);
+        h.putShort((short) 0);
+        h.putLong(startTime);
+        h.putLong(closed ? endTime : 0L);
+        h.putInt(recordCount);
+        StatsStore.writeString(h, peerId, StatsStore.PEER_LENGTH);
+        StatsStore.writeString(h, localVideoCodec, StatsStore.CODEC_LENGTH);
+        StatsStore.writeString(h, localAudioCodec, StatsStore.CODEC_LENGTH);
+        StatsStore.writeString(h, remoteVideoCodec, StatsStore.CODEC_LENGTH);
+        StatsStore.writeString(h, remoteAudioCodec, StatsStore.CODEC_LENGTH);
+        h.putShort((short) frameWidth);
+        h.putShort((short) frameHeight);
+        h.putFloat((recordCount > 0) ? (float) (rttSum / recordCount) : 0f);
+        h.putFloat(rttMax);
+        h.putFloat(videoLostMax);
+        raf.seek(0L);
+        raf.write(h.array());
+    }
+}
@@ -0,0 +1,184 @@
+package com.playrtc.sample.stats;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/*
+ * StatsStore에 기록된 Session 1개의 헤더 정보와 record 조회 Class
+ * StatsStore#list로 헤더만 읽어서 생성하며, record는 read 호출 시 파일에서 순서대로 읽는다.
+ *
+ * @see com.playrtc.sample.stats.StatsStore
+ */
+public class StatsSession {
+
+    /*
+     * record를 전달 받기 위한 인터페이스
+     */
+    public interface Visitor {
+        /*
+         * @param time long, 기록 시각 msec
+         * @param values float[], StatsHistory.Field 순서의 값, 호출 마다 같은 배열을 재사용한다.
+         *               파일에 기록되지 않은 Field(이전 버전 파일)는 NaN
+         * @return boolean, false이면 읽기 중단
+         */
+        boolean onRecord(long time, float[] values);
+    }
+
+    private final File file;
+    private final int fieldCount;
+    private final int recordSize;
+    private final long startTime;
+    private final long endTime;
+    private final int recordCount;
+    private final String peerId;
+    private final String localVideoCodec;
+    private final String localAudioCodec;
+    private final String remoteVideoCodec;
+    private final String remoteAudioCodec;
+    private final int frameWidth;
+    private final int frameHeight;
+    private final float rttAverage;
+    private final float rttMax;
+    private final float videoLostMax;
+
+    StatsSession(File file, int fieldCount, int recordSize, long startTime, long endTime, int recordCount, String peerId,
+                 String localVideoCodec, String localAudioCodec, String remoteVideoCodec, String remoteAudioCodec,
+                 int frameWidth, int frameHeight, float rttAverage, float rttMax, float videoLostMax) {
+        this.file = file;
+        this.fieldCount = fieldCount;
+        this.recordSize = recordSize;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.recordCount = recordCount;
+        this.peerId = peerId;
+        this.localVideoCodec = localVideoCodec;
+        this.localAudioCodec = localAudioCodec;
+        this.remoteVideoCodec = remoteVideoCodec;
+        this.remoteAudioCodec = remoteAudioCodec;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        this.rttAverage = rttAverage;
+        this.rttMax = rttMax;
+        this.videoLostMax = videoLostMax;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    /*
+     * 종료 시각, 정상 종료되지 않은 Session이면 0
+     */
+    public long getEndTime() {
+        return endTime;
+    }
+
+    public boolean isComplete() {
+        return endTime != 0L;
+    }
+
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    public String getPeerId() {
+        return peerId;
+    }
+
+    public String getLocalVideoCodec() {
+        return localVideoCodec;
+    }
+
+    public String getLocalAudioCodec() {
+        return localAudioCodec;
+    }
+
+    public String getRemoteVideoCodec() {
+        return remoteVideoCodec;
+    }
+
+    public String getRemoteAudioCodec() {
+        return remoteAudioCodec;
+    }
+
+    public int getFrameWidth() {
+        return frameWidth;
+    }
+
+    public int getFrameHeight() {
+        return frameHeight;
+    }
+
+    /*
+     * 요약 값, 정상 종료되지 않은 Session이면 0
+     */
+    public float getRttAverage() {
+        return rttAverage;
+    }
+
+    public float getRttMax() {
+        return rttMax;
+    }
+
+    public float getVideoLostMax() {
+        return videoLostMax;
+    }
+
+    /*
+     * record를 기록 순서대로 읽는다. 파일 헤더의 Field 수와 record 크기로 읽으며,
+     * 현재 Field 보다 많이 기록된 값은 건너뛴다.
+     * @param visitor Visitor
+     * @return int, 읽은 record 수
+     * @throws IOException 파일 읽기 실패
+     */
+    public int read(Visitor visitor) throws IOException {
+        float[] values = new float[StatsStore.FIELD_COUNT];
+        int readCount = Math.min(fieldCount, values.length);
+        // 현재 Field 수 보다 많이 기록된 값
+        byte[] extra = new byte[recordSize - 4 - 4 * readCount];
+        Arrays.fill(values, readCount, values.length, Float.NaN);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        int count = 0;
+        try {
+            if (in.skipBytes(StatsStore.HEADER_SIZE) < StatsStore.HEADER_SIZE) {
+                return 0;
+            }
+            while (count < recordCount) {
+                long time;
+                try {
+                    time = startTime + in.readInt();
+                    for (int f = 0; f < readCount; f++) {
+                        values[f] = in.readFloat();
+                    }
+                    in.readFully(extra);
+                } catch (EOFException e) {
+                    // 기록 중 중단된 마지막 record
+                    break;
+                }
+                count++;
+                if (!visitor.onRecord(time, values)) {
+                    break;
+                }
+            }
+        } finally {
+            in.close();
+        }
+        return count;
+    }
+
+    /*
+     * 파일을 삭제한다.
+     */
+    public boolean delete() {
+        return file.delete();
+    }
+}
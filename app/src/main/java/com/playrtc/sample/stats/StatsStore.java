@@ -0,0 +1,247 @@
+package com.playrtc.sample.stats;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * 연결(Session) 별 StatsReport 기록 파일을 관리하는 Class
+ * Session 마다 파일 1개에 고정 길이 헤더와 고정 길이 record를 이어서 기록한다.(append-only)
+ *
+ * 파일 형식 (숫자는 big-endian)
+ * - 헤더 HEADER_SIZE byte
+ *   [MAGIC int][VERSION short][Field 수 short][record 크기 short][0 short]
+ *   [시작 시각 long][종료 시각 long][record 수 int]
+ *   [peerId 32byte][Local 영상/음성 코덱, Remote 영상/음성 코덱 각 12byte]
+ *   [Local 해상도 가로 short][세로 short][RTT 평균 float][RTT 최대 float][영상 Packet Loss 최대 float]
+ * - record : [시작 시각 기준 msec int](Field 값 float) * Field 수
+ *
+ * 헤더의 종료 시각, record 수, 요약 값은 Session 종료 시 기록하므로
+ * 다른 Session과 비교할 때는 헤더만 읽으면 된다.(StatsSession 참고)
+ * 비정상 종료로 종료 시각이 0이면 record 수는 파일 크기로 계산한다.
+ *
+ * record 형식은 StatsHistory.Field 순서로 정해지며, 파일마다 기록 당시의 Field 수와 record 크기를 헤더에 저장한다.
+ * 읽을 때는 헤더의 Field 수와 record 크기를 사용하므로, Field를 끝에 추가해도 이전 파일을 읽을 수 있다.
+ * (이전 파일에 없는 Field는 NaN) 기존 Field의 순서나 의미를 바꾸면 VERSION을 올려야 한다.
+ *
+ * 기록 폴더에는 최근 MAX_SESSIONS 개, 최대 MAX_TOTAL_BYTES 까지의 파일만 유지하며 open 시 오래된 파일부터 삭제한다.
+ *
+ * @see com.playrtc.sample.stats.StatsRecorder
+ * @see com.playrtc.sample.stats.StatsSession
+ */
+public class StatsStore {
+
+    public static final int MAGIC = 0x50525453; // "PRTS"
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 128;
+    public static final int FIELD_COUNT = StatsHistory.Field.values().length;
+    public static final int RECORD_SIZE = 4 + 4 * FIELD_COUNT;
+    public static final String SUFFIX = ".stats";
+
+    /*
+     * 유지할 최대 Session 파일 수와 전체 크기
+     */
+    public static final int MAX_SESSIONS = 100;
+    public static final long MAX_TOTAL_BYTES = 16L * 1024 * 1024;
+
+    static final int PEER_LENGTH = 32;
+    static final int CODEC_LENGTH = 12;
+
+    static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final File dir;
+
+    /*
+     * 생성자
+     * @param dir File, 기록 폴더
+     */
+    public StatsStore(File dir) {
+        this.dir = dir;
+    }
+
+    public File getDir() {
+        return dir;
+    }
+
+    /*
+     * 새 Session 기록을 시작한다. 새 파일을 만들기 전에 보관 한도를 넘는 오래된 파일을 삭제한다.
+     * @param peerId String, 상대방 peer 아이디
+     * @param startTime long, 시작 시각 msec
+     * @return StatsRecorder
+     * @throws IOException 파일 생성 실패
+     */
+    public StatsRecorder open(String peerId, long startTime) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("mkdir failed " + dir);
+        }
+        prune(MAX_SESSIONS - 1, MAX_TOTAL_BYTES);
+        File file = new File(dir, startTime + SUFFIX);
+        for (int i = 1; file.exists(); i++) {
+            file = new File(dir, startTime + "-" + i + SUFFIX);
+        }
+        return new StatsRecorder(file, peerId, startTime);
+    }
+
+    /*
+     * 기록된 Session 목록을 시작 시각 순서로 반환한다. 각 파일의 헤더만 읽는다.
+     * 헤더가 올바르지 않은 파일은 제외한다.
+     * @return List<StatsSession>
+     */
+    public List<StatsSession> list() {
+        List<StatsSession> sessions = new ArrayList<StatsSession>();
+        File[] files = listFiles();
+        if (files == null) {
+            return sessions;
+        }
+        byte[] header = new byte[HEADER_SIZE];
+        for (File file : files) {
+            try {
+                StatsSession session = readHeader(file, header);
+                if (session != null) {
+                    sessions.add(session);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        Collections.sort(sessions, new Comparator<StatsSession>() {
+            @Override
+            public int compare(StatsSession a, StatsSession b) {
+                return (a.getStartTime() < b.getStartTime()) ? -1 : ((a.getStartTime() == b.getStartTime()) ? 0 : 1);
+            }
+        });
+        return sessions;
+    }
+
+    /*
+     * 최근 파일부터 maxCount 개, 전체 maxBytes 까지만 남기고 나머지 Session 파일을 삭제한다.
+     * 헤더가 올바르지 않은 파일도 수정 시각 순서로 함께 정리한다.
+     * @param maxCount int, 유지할 최대 파일 수
+     * @param maxBytes long, 유지할 최대 전체 크기
+     * @return int, 삭제한 파일 수
+     */
+    public int prune(int maxCount, long maxBytes) {
+        File[] files = listFiles();
+        if (files == null) {
+            return 0;
+        }
+        final long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+        }
+        // 최근 파일 순서
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                long x = modified[a];
+                long y = modified[b];
+                return (x > y) ? -1 : ((x == y) ? 0 : 1);
+            }
+        });
+        int kept = 0;
+        long bytes = 0L;
+        int deleted = 0;
+        for (Integer i : order) {
+            File file = files[i];
+            long length = file.length();
+            if (kept < maxCount && bytes + length <= maxBytes) {
+                kept++;
+                bytes += length;
+            } else if (file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private File[] listFiles() {
+        return dir.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File f) {
+                return f.isFile() && f.getName().endsWith(SUFFIX);
+            }
+        });
+    }
+
+    /*
+     * 파일 헤더를 읽는다.
+     * @param file File
+     * @param header byte[], HEADER_SIZE 재사용 버퍼
+     * @return StatsSession, 형식이 다르면 null
+     */
+    static StatsSession readHeader(File file, byte[] header) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            long length = raf.length();
+            if (length < HEADER_SIZE) {
+                return null;
+            }
+            raf.readFully(header, 0, HEADER_SIZE);
+            ByteBuffer bb = ByteBuffer.wrap(header);
+            if (bb.getInt() != MAGIC || bb.getShort() != VERSION) {
+                return null;
+            }
+            int fieldCount = bb.getShort() & 0xFFFF;
+            int recordSize = bb.getShort() & 0xFFFF;
+            bb.getShort();
+            if (recordSize < 4 + 4 * fieldCount) {
+                return null;
+            }
+            long startTime = bb.getLong();
+            long endTime = bb.getLong();
+            int recordCount = bb.getInt();
+            if (endTime == 0L) {
+                // 종료 처리 전 중단된 Session
+                recordCount = (int) ((length - HEADER_SIZE) / recordSize);
+            }
+            String peerId = readString(bb, PEER_LENGTH);
+            String localVideoCodec = readString(bb, CODEC_LENGTH);
+            String localAudioCodec = readString(bb, CODEC_LENGTH);
+            String remoteVideoCodec = readString(bb, CODEC_LENGTH);
+            String remoteAudioCodec = readString(bb, CODEC_LENGTH);
+            int frameWidth = bb.getShort() & 0xFFFF;
+            int frameHeight = bb.getShort() & 0xFFFF;
+            float rttAverage = bb.getFloat();
+            float rttMax = bb.getFloat();
+            float videoLostMax = bb.getFloat();
+            return new StatsSession(file, fieldCount, recordSize, startTime, endTime, recordCount, peerId,
+                    localVideoCodec, localAudioCodec, remoteVideoCodec, remoteAudioCodec,
+                    frameWidth, frameHeight, rttAverage, rttMax, videoLostMax);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /*
+     * 고정 길이 문자열 기록, 길면 자르고 짧으면 0으로 채운다.
+     */
+    static void writeString(ByteBuffer bb, String s, int length) {
+        byte[] b = (s != null) ? s.getBytes(UTF8) : new byte[0];
+        int n = Math.min(b.length, length);
+        bb.put(b, 0, n);
+        for (int i = n; i < length; i++) {
+            bb.put((byte) 0);
+        }
+    }
+
+    static String readString(ByteBuffer bb, int length) {
+        int start = bb.position();
+        int n = 0;
+        while (n < length && bb.get(start + n) != 0) {
+            n++;
+        }
+        String s = new String(bb.array(), start, n, UTF8);
+        bb.position(start + length);
+        return s;
+    }
+}
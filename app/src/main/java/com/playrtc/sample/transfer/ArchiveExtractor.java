@@ -0,0 +1,298 @@
+package com.playrtc.sample.transfer;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.zip.CRC32;
+
+/*
+ * ArchiveInputStream 형식의 archive 스트림을 받는 대로 풀어서 파일로 저장하는 Class
+ * 데이터는 임의의 위치에서 나뉘어 전달되어도 되며, 전체 archive를 메모리나 임시 파일에 모으지 않는다.
+ *
+ * - path에 "..", "." 또는 빈 이름이 있거나 첫번째 entry(폴더) 밖의 경로이면 오류
+ * - 최상위 폴더 이름은 상대방이 정하므로 같은 이름의 폴더가 이미 있으면 "이름-1", "이름-2" ... 처럼 새 폴더에 풀어서
+ *   기존 파일을 덮어쓰지 않는다.
+ * - 파일 CRC32가 일치하지 않으면 오류, 기록 중이던 파일은 삭제한다.
+ *
+ * write는 한 Thread에서만 호출해야 한다.
+ *
+ * @see com.playrtc.sample.transfer.ArchiveInputStream
+ */
+public class ArchiveExtractor {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * 최상위 폴더 이름이 겹칠 때 붙여 볼 최대 번호
+     */
+    private static final int MAX_ROOT_SUFFIX = 1000;
+
+    private static final int STATE_HEADER = 0;
+    private static final int STATE_DATA = 1;
+    private static final int STATE_CRC = 2;
+    private static final int STATE_DONE = 3;
+
+    private final File baseDir;
+    private final CRC32 crc = new CRC32();
+
+    private int state = STATE_HEADER;
+    private byte[] header = new byte[ArchiveInputStream.ENTRY_HEADER_SIZE + 256];
+    private int headerLen = 0;
+
+    private String root = null;
+    private File rootDir = null;
+    private File file = null;
+    private long modified = 0L;
+    private OutputStream out = null;
+    private long remaining = 0L;
+
+    private int entries = 0;
+    private long totalBytes = 0L;
+
+    /*
+     * 생성자
+     * @param baseDir File, archive를 풀어 놓을 폴더, archive의 최상위 폴더가 이 폴더 아래에 만들어진다.
+     */
+    public ArchiveExtractor(File baseDir) {
+        this.baseDir = baseDir;
+    }
+
+    /*
+     * archive 최상위 폴더 이름, 첫번째 entry를 받기 전에는 null
+     */
+    public String getRoot() {
+        return root;
+    }
+
+    /*
+     * archive를 풀어 놓은 폴더, 이름이 겹치면 getRoot와 다르다. 첫번째 entry를 받기 전에는 null
+     */
+    public File getDir() {
+        return rootDir;
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    /*
+     * 끝 record까지 받았는지 여부
+     */
+    public boolean isFinished() {
+        return state == STATE_DONE;
+    }
+
+    /*
+     * archive 데이터를 처리한다.
+     * @param data byte[]
+     * @param offset int
+     * @param length int
+     * @throws IOException 형식 오류, CRC 불일치, 파일 기록 실패
+     */
+    public void write(byte[] data, int offset, int length) throws IOException {
+        int end = offset + length;
+        while (offset < end) {
+            switch (state) {
+                case STATE_HEADER:
+                    offset = readHeader(data, offset, end);
+                    break;
+                case STATE_DATA: {
+                    int n = (int) Math.min(end - offset, remaining);
+                    out.write(data, offset, n);
+                    crc.update(data, offset, n);
+                    remaining -= n;
+                    totalBytes += n;
+                    offset += n;
+                    if (remaining == 0L) {
+                        state = STATE_CRC;
+                    }
+                    break;
+                }
+                case STATE_CRC: {
+                    int n = Math.min(end - offset, ArchiveInputStream.CRC_SIZE - headerLen);
+                    System.arraycopy(data, offset, header, headerLen, n);
+                    headerLen += n;
+                    offset += n;
+                    if (headerLen == ArchiveInputStream.CRC_SIZE) {
+                        headerLen = 0;
+                        endFile(ByteBuffer.wrap(header, 0, ArchiveInputStream.CRC_SIZE).getInt());
+                    }
+                    break;
+                }
+                default:
+                    throw new IOException("data after end of archive");
+            }
+        }
+    }
+
+    /*
+     * entry 헤더를 모아서 처리한다.
+     * @return int, 처리한 다음 위치
+     */
+    private int readHeader(byte[] data, int offset, int end) throws IOException {
+        int need = headerSize();
+        int n = Math.min(end - offset, need - headerLen);
+        System.arraycopy(data, offset, header, headerLen, n);
+        headerLen += n;
+        offset += n;
+        // path 길이를 읽은 후 필요한 크기가 늘어날 수 있다.
+        if (headerLen == need && headerSize() == need) {
+            onHeader();
+            headerLen = 0;
+        }
+        return offset;
+    }
+
+    /*
+     * 지금까지 받은 헤더로 알 수 있는 헤더 전체 크기
+     */
+    private int headerSize() throws IOException {
+        if (headerLen < 1) {
+            return 1;
+        }
+        if (header[0] == ArchiveInputStream.ENTRY_END) {
+            return ArchiveInputStream.END_SIZE;
+        }
+        if (header[0] != ArchiveInputStream.ENTRY_FILE && header[0] != ArchiveInputStream.ENTRY_DIR) {
+            throw new IOException("invalid entry type " + header[0]);
+        }
+        if (headerLen < 3) {
+            return 3;
+        }
+        int pathLength = ((header[1] & 0xFF) << 8) | (header[2] & 0xFF);
+        if (pathLength == 0 || pathLength > ArchiveInputStream.MAX_PATH) {
+            throw new IOException("invalid path length " + pathLength);
+        }
+        int size = ArchiveInputStream.ENTRY_HEADER_SIZE + pathLength;
+        if (header.length < size) {
+            byte[] b = new byte[size];
+            System.arraycopy(header, 0, b, 0, headerLen);
+            header = b;
+        }
+        return size;
+    }
+
+    private void onHeader() throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(header, 0, headerLen);
+        byte type = bb.get();
+        if (type == ArchiveInputStream.ENTRY_END) {
+            int count = bb.getInt();
+            long total = bb.getLong();
+            if (count != entries || total != totalBytes) {
+                throw new IOException("archive incomplete " + entries + "/" + count + " entries, " + totalBytes + "/" + total + " bytes");
+            }
+            state = STATE_DONE;
+            return;
+        }
+        int pathLength = bb.getShort() & 0xFFFF;
+        String path = new String(header, 3, pathLength, UTF8);
+        bb.position(3 + pathLength);
+        long size = bb.getLong();
+        long mtime = bb.getLong();
+        File target = resolve(path);
+        entries++;
+        if (type == ArchiveInputStream.ENTRY_DIR) {
+            if (!target.isDirectory() && !target.mkdirs()) {
+                throw new IOException("mkdir failed " + path);
+            }
+            return;
+        }
+        if (size < 0L) {
+            throw new IOException("invalid size " + size);
+        }
+        File parent = target.getParentFile();
+        if (parent != null && !parent.isDirectory()) {
+            parent.mkdirs();
+        }
+        file = target;
+        modified = mtime;
+        out = new BufferedOutputStream(new FileOutputStream(target), WRITE_BUFFER_SIZE);
+        remaining = size;
+        crc.reset();
+        state = (size > 0L) ? STATE_DATA : STATE_CRC;
+    }
+
+    private void endFile(int expected) throws IOException {
+        OutputStream o = out;
+        out = null;
+        o.close();
+        if ((int) crc.getValue() != expected) {
+            file.delete();
+            throw new IOException("crc mismatch " + file.getName());
+        }
+        if (modified > 0L) {
+            file.setLastModified(modified);
+        }
+        file = null;
+        state = STATE_HEADER;
+    }
+
+    /*
+     * archive path를 저장 경로로 변환한다. 최상위 폴더 밖으로 나가는 경로는 허용하지 않는다.
+     */
+    private File resolve(String path) throws IOException {
+        String[] names = path.split("/", -1);
+        for (String name : names) {
+            if (name.length() == 0 || ".".equals(name) || "..".equals(name) || name.indexOf('\\') >= 0) {
+                throw new IOException("invalid path " + path);
+            }
+        }
+        if (root == null) {
+            if (names.length != 1) {
+                throw new IOException("invalid root " + path);
+            }
+            rootDir = createRootDir(names[0]);
+            root = names[0];
+            return rootDir;
+        } else if (names.length < 2 || !root.equals(names[0])) {
+            throw new IOException("path outside archive " + path);
+        }
+        return new File(rootDir, path.substring(root.length() + 1));
+    }
+
+    /*
+     * 최상위 폴더를 새로 만든다. 같은 이름이 있으면 번호를 붙인 이름을 사용한다.
+     * mkdir이 성공한 이름만 사용하므로 기존 폴더나 동시에 수신 중인 다른 archive와 겹치지 않는다.
+     */
+    private File createRootDir(String name) throws IOException {
+        if (!baseDir.isDirectory() && !baseDir.mkdirs()) {
+            throw new IOException("mkdir failed " + baseDir);
+        }
+        File dir = new File(baseDir, name);
+        for (int i = 1; !dir.mkdir(); i++) {
+            if (i > MAX_ROOT_SUFFIX) {
+                throw new IOException("mkdir failed " + name);
+            }
+            dir = new File(baseDir, name + "-" + i);
+        }
+        return dir;
+    }
+
+    /*
+     * 처리를 중단하고 기록 중이던 파일을 삭제한다.
+     */
+    public void abort() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            out = null;
+        }
+        if (file != null) {
+            file.delete();
+            file = null;
+        }
+        state = STATE_DONE;
+    }
+}
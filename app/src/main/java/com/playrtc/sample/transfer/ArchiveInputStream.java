@@ -0,0 +1,236 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/*
+ * 폴더를 하나의 archive 스트림으로 읽는 InputStream Class
+ * 임시 파일을 만들지 않고, read 호출 시 폴더를 순회하며 entry 헤더와 파일 데이터를 이어서 만들어 낸다.
+ * 파일은 한 번에 1개만 열며, 하위 폴더는 이름 순서로 순회한다.
+ * 심볼릭 링크처럼 실제 경로(canonical path)가 폴더 안의 같은 위치가 아닌 항목은 제외하여
+ * 폴더 밖의 파일을 보내거나 링크 순환으로 archive가 끝나지 않는 경우를 막는다.
+ *
+ * archive 형식 (숫자는 big-endian)
+ * - 폴더 : [ENTRY_DIR][path 길이 short][path UTF-8][0 long][수정 시각 long]
+ * - 파일 : [ENTRY_FILE][path 길이 short][path UTF-8][크기 long][수정 시각 long][데이터][CRC32 int]
+ * - 끝 : [ENTRY_END][entry 수 int][파일 데이터 전체 크기 long]
+ * path는 폴더 이름으로 시작하는 '/' 구분 상대 경로
+ *
+ * @see com.playrtc.sample.transfer.ArchiveExtractor
+ */
+public class ArchiveInputStream extends InputStream {
+
+    public static final byte ENTRY_END = 0;
+    public static final byte ENTRY_FILE = 1;
+    public static final byte ENTRY_DIR = 2;
+
+    /*
+     * entry 헤더 고정 크기 : type + path 길이 + 크기 + 수정 시각
+     */
+    public static final int ENTRY_HEADER_SIZE = 1 + 2 + 8 + 8;
+    public static final int END_SIZE = 1 + 4 + 8;
+    public static final int CRC_SIZE = 4;
+
+    /*
+     * path 최대 길이(byte)
+     */
+    public static final int MAX_PATH = 4096;
+
+    /*
+     * 순회 대기 항목, path는 archive 상대 경로, canonical은 실제 경로
+     */
+    private static class Pending {
+        final File file;
+        final String path;
+        final String canonical;
+
+        Pending(File file, String path, String canonical) {
+            this.file = file;
+            this.path = path;
+            this.canonical = canonical;
+        }
+    }
+
+    private final ArrayDeque<Pending> pending = new ArrayDeque<Pending>();
+    private final CRC32 crc = new CRC32();
+
+    /*
+     * 헤더/CRC/끝 record 출력 버퍼
+     */
+    private byte[] header = new byte[ENTRY_HEADER_SIZE + 256];
+    private int headerPos = 0;
+    private int headerLen = 0;
+
+    private InputStream current = null;
+    private long remaining = 0L;
+    private File currentFile = null;
+
+    private int entries = 0;
+    private long totalBytes = 0L;
+    private boolean ended = false;
+    private boolean closed = false;
+
+    /*
+     * 생성자
+     * @param dir File, archive 할 폴더
+     * @throws IOException 폴더가 아닌 경우
+     */
+    public ArchiveInputStream(File dir) throws IOException {
+        if (!dir.isDirectory()) {
+            throw new IOException(dir + " is not a directory");
+        }
+        pending.add(new Pending(dir, dir.getName(), dir.getCanonicalPath()));
+    }
+
+    /*
+     * 지금까지 만든 entry 수
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /*
+     * 지금까지 읽은 파일 데이터 크기
+     */
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        return (read(b, 0, 1) < 0) ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("closed");
+        }
+        int n = 0;
+        while (n < len) {
+            if (headerPos < headerLen) {
+                int c = Math.min(len - n, headerLen - headerPos);
+                System.arraycopy(header, headerPos, b, off + n, c);
+                headerPos += c;
+                n += c;
+                continue;
+            }
+            if (current != null) {
+                if (remaining > 0L) {
+                    int r = current.read(b, off + n, (int) Math.min(len - n, remaining));
+                    if (r < 0) {
+                        throw new IOException(currentFile + " truncated");
+                    }
+                    crc.update(b, off + n, r);
+                    remaining -= r;
+                    totalBytes += r;
+                    n += r;
+                    continue;
+                }
+                endFile();
+                continue;
+            }
+            if (!next()) {
+                break;
+            }
+        }
+        return (n == 0 && len > 0) ? -1 : n;
+    }
+
+    /*
+     * 다음 entry 헤더를 준비한다.
+     * @return boolean, 더 이상 출력할 데이터가 없으면 false
+     */
+    private boolean next() throws IOException {
+        Pending p = pending.poll();
+        if (p == null) {
+            if (ended) {
+                return false;
+            }
+            ended = true;
+            ByteBuffer bb = prepare(END_SIZE);
+            bb.put(ENTRY_END);
+            bb.putInt(entries);
+            bb.putLong(totalBytes);
+            return true;
+        }
+        byte[] path = TransferProtocol.utf8(p.path);
+        if (path.length > MAX_PATH) {
+            throw new IOException("path too long " + p.path);
+        }
+        entries++;
+        ByteBuffer bb = prepare(ENTRY_HEADER_SIZE + path.length);
+        if (p.file.isDirectory()) {
+            bb.put(ENTRY_DIR);
+            bb.putShort((short) path.length);
+            bb.put(path);
+            bb.putLong(0L);
+            bb.putLong(p.file.lastModified());
+            File[] children = p.file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                // 이름 순서로 꺼내도록 역순으로 앞에 추가
+                for (int i = children.length - 1; i >= 0; i--) {
+                    File child = children[i];
+                    if (!child.isFile() && !child.isDirectory()) {
+                        continue;
+                    }
+                    // 링크는 실제 경로가 부모 폴더 아래의 같은 이름이 아니다.
+                    String canonical = child.getCanonicalPath();
+                    if (!canonical.equals(p.canonical + File.separator + child.getName())) {
+                        continue;
+                    }
+                    pending.addFirst(new Pending(child, p.path + "/" + child.getName(), canonical));
+                }
+            }
+        } else {
+            currentFile = p.file;
+            current = new FileInputStream(p.file);
+            remaining = p.file.length();
+            crc.reset();
+            bb.put(ENTRY_FILE);
+            bb.putShort((short) path.length);
+            bb.put(path);
+            bb.putLong(remaining);
+            bb.putLong(p.file.lastModified());
+        }
+        return true;
+    }
+
+    /*
+     * 파일 데이터 출력을 마치고 CRC32를 출력한다.
+     */
+    private void endFile() throws IOException {
+        current.close();
+        current = null;
+        currentFile = null;
+        ByteBuffer bb = prepare(CRC_SIZE);
+        bb.putInt((int) crc.getValue());
+    }
+
+    private ByteBuffer prepare(int size) {
+        if (header.length < size) {
+            header = new byte[size];
+        }
+        headerPos = 0;
+        headerLen = size;
+        return ByteBuffer.wrap(header, 0, size);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+        pending.clear();
+    }
+}
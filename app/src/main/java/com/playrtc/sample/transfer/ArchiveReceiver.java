@@ -0,0 +1,184 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * ArchiveSender가 전송하는 폴더 archive 스트림을 받는 대로 풀어서 저장하는 수신 Class
+ * 전송 키 별로 ArchiveExtractor를 만들고, MIME_ARCHIVE 메세지를 seq 순서대로 전달한다.
+ *
+ * 파일 기록은 Extract Thread 1개에서 처리하며, PlayRTCData 이벤트 Thread는 기록 대기 중인 메세지가
+ * EXTRACT_QUEUE_SIZE 개를 넘을 때만 대기한다. 디스크가 느려도 수신 데이터가 메모리에 계속 쌓이지 않는다.
+ * 수신 데이터는 복사하지 않고 archive 데이터 위치만 지정하여 ArchiveExtractor에 전달한다.
+ */
+public class ArchiveReceiver {
+
+    /*
+     * Extract Thread의 최대 대기 메세지 수
+     */
+    private static final int EXTRACT_QUEUE_SIZE = 16;
+
+    /*
+     * shutdown 시 Extract Thread 종료를 기다리는 최대 시간
+     */
+    private static final long SHUTDOWN_WAIT_MS = 1000L;
+
+    /*
+     * 수신 완료/오류를 전달 받기 위한 인터페이스, Extract Thread에서 호출된다.
+     */
+    public interface Listener {
+        /*
+         * 수신 시작, archive 최상위 폴더 이름을 전달
+         */
+        void onStart(String name);
+
+        /*
+         * 수신 완료, peerId는 archive를 보낸 상대방
+         */
+        void onComplete(String peerId, String name, File dir, int entries, long bytes, long elapsed);
+
+        void onError(String peerId, String name, String desc);
+    }
+
+    /*
+     * 수신 1건의 상태, Extract Thread(종료 후에는 shutdown 호출 Thread)에서만 사용
+     */
+    private static class Session {
+        final String key;
+        final String peerId;
+        final ArchiveExtractor extractor;
+        final long startTime = System.currentTimeMillis();
+        int nextSeq = 0;
+        boolean started = false;
+
+        Session(String key, String peerId, ArchiveExtractor extractor) {
+            this.key = key;
+            this.peerId = peerId;
+            this.extractor = extractor;
+        }
+
+        String getName() {
+            String root = extractor.getRoot();
+            return (root != null) ? root : key;
+        }
+    }
+
+    private final File dir;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+    private final ExecutorService executor = BoundedExecutor.create("ArchiveExtract", EXTRACT_QUEUE_SIZE);
+
+    /*
+     * 생성자
+     * @param dir File, 수신 폴더
+     * @param listener Listener
+     */
+    public ArchiveReceiver(File dir, Listener listener) {
+        this.dir = dir;
+        this.listener = listener;
+    }
+
+    /*
+     * MIME_ARCHIVE 메세지 처리
+     * @param peerId String, 송신 측 peer 아이디
+     * @param frame byte[]
+     */
+    public void onArchive(final String peerId, final byte[] frame) {
+        if (frame.length < TransferProtocol.ARCHIVE_HEADER_SIZE || executor.isShutdown()) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                extract(peerId, frame);
+            }
+        });
+    }
+
+    private void extract(String peerId, byte[] frame) {
+        String key = TransferProtocol.readKey(frame);
+        int seq = ByteBuffer.wrap(frame, TransferProtocol.KEY_LENGTH, 4).getInt();
+        Session session = sessions.get(key);
+        if (session == null) {
+            if (seq != 0) {
+                // 중단된 전송의 나머지 메세지
+                return;
+            }
+            session = new Session(key, peerId, new ArchiveExtractor(dir));
+            sessions.put(key, session);
+        }
+        if (seq != session.nextSeq) {
+            fail(session, "out of order " + seq + "/" + session.nextSeq);
+            return;
+        }
+        session.nextSeq++;
+        try {
+            session.extractor.write(frame, TransferProtocol.ARCHIVE_HEADER_SIZE, frame.length - TransferProtocol.ARCHIVE_HEADER_SIZE);
+        } catch (IOException e) {
+            fail(session, e.getMessage());
+            return;
+        }
+        if (!session.started && session.extractor.getRoot() != null) {
+            session.started = true;
+            if (listener != null) {
+                listener.onStart(session.getName());
+            }
+        }
+        if (session.extractor.isFinished()) {
+            sessions.remove(key);
+            if (listener != null) {
+                listener.onComplete(session.peerId, session.getName(), session.extractor.getDir(), session.extractor.getEntries(),
+                        session.extractor.getTotalBytes(), System.currentTimeMillis() - session.startTime);
+            }
+        }
+    }
+
+    /*
+     * 진행 중인 수신을 모두 중단한다. 데이터 채널이 닫히면 호출
+     * 이미 저장한 파일은 유지하고 기록 중이던 파일만 삭제한다.
+     */
+    public void suspendAll() {
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (Session session : sessions.values()) {
+                    fail(session, "suspended");
+                }
+            }
+        });
+    }
+
+    /*
+     * 대기 중인 메세지를 버리고 Extract Thread를 종료한 뒤 진행 중인 수신을 중단한다. 더 이상 사용하지 않을 때 호출
+     * Extract Thread가 SHUTDOWN_WAIT_MS 안에 종료되지 않으면 Session은 정리하지 않는다.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        for (Session session : sessions.values()) {
+            fail(session, "suspended");
+        }
+    }
+
+    private void fail(Session session, String desc) {
+        sessions.remove(session.key);
+        session.extractor.abort();
+        if (listener != null) {
+            listener.onError(session.peerId, session.getName(), desc);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/*
+ * 폴더를 하나의 archive 스트림으로 전송하는 송신 Class
+ * 파일 마다 sendFile을 호출하면 파일 마다 헤더, 완료 대기가 반복되므로 작은 파일이 많은 폴더는 전송이 느리다.
+ * ArchiveInputStream으로 폴더를 순회하며 만든 archive 데이터를 FRAME_SIZE 단위의 MIME_ARCHIVE 메세지로 이어서 전송하며,
+ * 수신 측 ArchiveReceiver는 받는 대로 파일로 풀어 놓는다.
+ *
+ * 임시 archive 파일을 만들지 않으며, 전송 중인 메세지는 WINDOW 개로 제한한다.
+ * 파일 읽기는 전송 마다 별도 Thread에서 처리한다.
+ */
+public class ArchiveSender {
+
+    /*
+     * MIME_ARCHIVE 메세지 최대 크기 256KB
+     */
+    public static final int FRAME_SIZE = 256 * 1024;
+
+    /*
+     * 동시에 전송하는 MIME_ARCHIVE 메세지 수
+     */
+    public static final int WINDOW = 4;
+
+    /*
+     * 전송 완료/오류를 전달 받기 위한 인터페이스
+     */
+    public interface Listener {
+        /*
+         * 전송 완료, entry(폴더/파일) 수와 파일 데이터 크기를 전달, peerId는 메세지를 받은 상대방
+         */
+        void onComplete(String peerId, String name, int entries, long bytes, long elapsed);
+
+        /*
+         * 전송 실패, 첫 메세지 전송 전에 실패하면 peerId는 null
+         */
+        void onError(String peerId, String name, String desc);
+    }
+
+    /*
+     * 전송 1건의 상태
+     */
+    private class Session implements Runnable {
+        final String key;
+        final File dir;
+        final long startTime = System.currentTimeMillis();
+        final Semaphore window = new Semaphore(WINDOW);
+        volatile boolean closed = false;
+        volatile String peerId = null;
+
+        Session(String key, File dir) {
+            this.key = key;
+            this.dir = dir;
+        }
+
+        @Override
+        public void run() {
+            ArchiveInputStream in = null;
+            try {
+                in = new ArchiveInputStream(dir);
+                byte[] frame = new byte[FRAME_SIZE];
+                int seq = 0;
+                while (!closed) {
+                    int length = readFully(in, frame, TransferProtocol.ARCHIVE_HEADER_SIZE);
+                    if (length == TransferProtocol.ARCHIVE_HEADER_SIZE) {
+                        break;
+                    }
+                    TransferProtocol.writeKey(frame, key);
+                    ByteBuffer.wrap(frame, TransferProtocol.KEY_LENGTH, 4).putInt(seq++);
+                    byte[] data = new byte[length];
+                    System.arraycopy(frame, 0, data, 0, length);
+                    sendFrame(data);
+                }
+                // 마지막 메세지 전송 완료 대기
+                window.acquire(WINDOW);
+                window.release(WINDOW);
+                if (!closed) {
+                    closed = true;
+                    sessions.remove(key, this);
+                    if (listener != null) {
+                        listener.onComplete(peerId, dir.getName(), in.getEntries(), in.getTotalBytes(), System.currentTimeMillis() - startTime);
+                    }
+                }
+            } catch (IOException e) {
+                fail(this, e.getMessage());
+            } catch (InterruptedException e) {
+                fail(this, "interrupted");
+            } finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        private void sendFrame(byte[] data) throws InterruptedException {
+            window.acquire();
+            if (closed) {
+                window.release();
+                return;
+            }
+            scheduler.sendByte(DataSendScheduler.Priority.Bulk, data, TransferProtocol.MIME_ARCHIVE, new SilentSendObserver() {
+                @Override
+                public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                    Session.this.peerId = peerId;
+                    window.release();
+                }
+
+                @Override
+                public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                    Session.this.peerId = peerId;
+                    window.release();
+                    fail(Session.this, "[" + code + "] " + desc);
+                }
+            });
+        }
+    }
+
+    private final DataSendScheduler scheduler;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+    /*
+     * 생성자
+     * @param scheduler DataSendScheduler
+     * @param listener Listener
+     */
+    public ArchiveSender(DataSendScheduler scheduler, Listener listener) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /*
+     * 폴더 전송을 시작한다. 상대방은 수신 폴더 아래에 같은 이름의 폴더로 풀어 놓는다.
+     * @param dir File
+     * @return boolean, 데이터 채널이 연결 상태가 아니거나 폴더가 아니면 false
+     */
+    public boolean send(File dir) {
+        if (!scheduler.isOpen() || !dir.isDirectory()) {
+            return false;
+        }
+        // 같은 폴더를 다시 보내도 수신 측이 새 전송으로 처리하도록 시작 시각을 포함
+        String key = TransferProtocol.makeKey(dir.getAbsolutePath(), System.nanoTime(), dir.lastModified());
+        Session session = new Session(key, dir);
+        sessions.put(key, session);
+        new Thread(session, "ArchiveSender").start();
+        return true;
+    }
+
+    /*
+     * 진행 중인 전송을 모두 중단한다. 데이터 채널이 닫히면 호출
+     */
+    public void suspendAll() {
+        for (Session session : sessions.values()) {
+            fail(session, "suspended");
+        }
+    }
+
+    private void fail(Session session, String desc) {
+        if (session.closed) {
+            return;
+        }
+        session.closed = true;
+        sessions.remove(session.key, session);
+        // 전송 대기 중인 Thread를 깨운다.
+        session.window.release(WINDOW);
+        if (listener != null) {
+            listener.onError(session.peerId, session.dir.getName(), desc);
+        }
+    }
+
+    /*
+     * offset 부터 버퍼를 채운다.
+     * @return int, 채운 끝 위치, 더 읽을 데이터가 없으면 offset
+     */
+    private static int readFully(ArchiveInputStream in, byte[] b, int offset) throws IOException {
+        int n = offset;
+        while (n < b.length) {
+            int r = in.read(b, n, b.length - n);
+            if (r < 0) {
+                break;
+            }
+            n += r;
+        }
+        return n;
+    }
+}
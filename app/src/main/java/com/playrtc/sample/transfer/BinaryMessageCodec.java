@@ -0,0 +1,102 @@
+package com.playrtc.sample.transfer;
+
+/*
+ * MessageSchema 형식의 Binary 메세지를 송/수신하는 Class
+ * 텔레메트리처럼 자주 보내는 메세지를 문자열로 만들어 getBytes/new String 하지 않고
+ * 고정 offset의 필드로 기록/읽기 하여, 반복 송/수신 시 메세지 버퍼와 문자열을 새로 만들지 않는다.
+ *
+ * - 송신 : MessageSchema#obtain -> MessageWriter#set* -> send, 전송 완료 시 MessageWriter는 Pool로 반환
+ * - 수신 : MIME_MESSAGE 데이터를 decode하면 schema id로 등록된 schema와 Receiver를 찾아 재사용 MessageReader로 전달
+ *
+ * decode는 PlayRTCData 이벤트 Thread에서 호출하며 MessageReader는 1개를 재사용하므로 동시에 호출하면 안된다.
+ */
+public class BinaryMessageCodec {
+
+    /*
+     * 수신 메세지를 전달 받기 위한 인터페이스
+     */
+    public interface Receiver {
+        /*
+         * @param reader MessageReader, onMessage 안에서만 유효
+         */
+        void onMessage(MessageReader reader);
+    }
+
+    private final DataSendScheduler scheduler;
+
+    /*
+     * schema id 별 등록 schema와 Receiver, 등록은 드물고 조회는 메세지 마다 하므로 복사 후 교체한다.
+     */
+    private volatile Registration[] registrations = new Registration[0];
+    private final MessageReader reader = new MessageReader();
+
+    /*
+     * 생성자
+     * @param scheduler DataSendScheduler
+     */
+    public BinaryMessageCodec(DataSendScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /*
+     * 수신할 schema와 해당 schema 메세지를 전달 받을 Receiver를 등록한다. 같은 id의 schema는 교체된다.
+     * @param schema MessageSchema
+     * @param receiver Receiver
+     */
+    public synchronized void register(MessageSchema schema, Receiver receiver) {
+        if (receiver == null) {
+            throw new IllegalArgumentException("receiver is null");
+        }
+        schema.freeze();
+        Registration[] current = registrations;
+        int size = Math.max(current.length, schema.getId() + 1);
+        Registration[] next = new Registration[size];
+        System.arraycopy(current, 0, next, 0, current.length);
+        next[schema.getId()] = new Registration(schema, receiver);
+        registrations = next;
+    }
+
+    /*
+     * 메세지를 Interactive 우선 순위로 전송한다. 전송 완료/실패 시 writer는 Pool로 반환된다.
+     * @param writer MessageWriter
+     */
+    public void send(MessageWriter writer) {
+        scheduler.sendByte(DataSendScheduler.Priority.Interactive, writer.getBuffer(), TransferProtocol.MIME_MESSAGE, writer);
+    }
+
+    /*
+     * MIME_MESSAGE 수신 데이터를 schema에 등록된 Receiver로 전달한다.
+     * @param data byte[]
+     * @return boolean, 등록되지 않은 schema이거나 크기가 맞지 않으면 false
+     */
+    public boolean decode(byte[] data) {
+        if (data.length < MessageSchema.HEADER_SIZE) {
+            return false;
+        }
+        int id = MessageSchema.getShort(data, 0);
+        Registration[] current = registrations;
+        Registration registration = (id < current.length) ? current[id] : null;
+        if (registration == null || data.length != registration.schema.getSize()) {
+            return false;
+        }
+        try {
+            registration.receiver.onMessage(reader.wrap(registration.schema, data, 0));
+        } finally {
+            reader.clear();
+        }
+        return true;
+    }
+
+    /*
+     * 등록 schema와 Receiver
+     */
+    private static final class Registration {
+        final MessageSchema schema;
+        final Receiver receiver;
+
+        Registration(MessageSchema schema, Receiver receiver) {
+            this.schema = schema;
+            this.receiver = receiver;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.playrtc.sample.transfer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 대기 작업 수가 제한된 단일 Thread Executor 생성 Class
+ * 수신 데이터를 별도 Thread에서 처리할 때 디스크가 느려도 대기 중인 수신 데이터가 메모리에 계속 쌓이지 않도록
+ * 대기 작업이 capacity 개가 되면 execute 호출 Thread가 자리가 생길 때 까지 대기한다.(backpressure)
+ * shutdown 이후 요청은 버린다.
+ */
+final class BoundedExecutor {
+
+    private BoundedExecutor() {
+
+    }
+
+    /*
+     * 단일 Thread Executor를 생성한다.
+     * @param name String, Thread 이름
+     * @param capacity int, 최대 대기 작업 수
+     * @return ExecutorService
+     */
+    static ExecutorService create(final String name, int capacity) {
+        return new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(capacity), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            }
+        }, new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+                if (executor.isShutdown()) {
+                    return;
+                }
+                try {
+                    executor.getQueue().put(r);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+}
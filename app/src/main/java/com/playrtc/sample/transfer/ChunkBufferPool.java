@@ -0,0 +1,87 @@
+package com.playrtc.sample.transfer;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * 고정 크기 byte[] 버퍼를 재사용하기 위한 Pool Class
+ * 최대 버퍼 수(maxBuffers)를 넘어서 버퍼를 생성하지 않으므로 사용 메모리는 chunkSize * maxBuffers 로 제한된다.
+ * 모든 버퍼가 사용 중이면 acquire는 버퍼가 반환될 때까지 대기하여 생산자 측에 backpressure를 건다.
+ *
+ * - public byte[] acquire()
+ *   버퍼를 가져온다. 사용 가능한 버퍼가 없으면 대기
+ * - public byte[] tryAcquire()
+ *   버퍼를 가져온다. 사용 가능한 버퍼가 없으면 null
+ * - public void release(byte[] buf)
+ *   사용한 버퍼를 반환한다.
+ */
+public class ChunkBufferPool {
+
+    private final int chunkSize;
+    private final int maxBuffers;
+    private final ArrayBlockingQueue<byte[]> free;
+
+    /*
+     * 지금까지 생성한 버퍼 수
+     */
+    private final AtomicInteger created = new AtomicInteger(0);
+
+    /*
+     * 생성자
+     * @param chunkSize int, 버퍼 1개의 크기
+     * @param maxBuffers int, 최대 버퍼 수
+     */
+    public ChunkBufferPool(int chunkSize, int maxBuffers) {
+        this.chunkSize = chunkSize;
+        this.maxBuffers = maxBuffers;
+        this.free = new ArrayBlockingQueue<byte[]>(maxBuffers);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /*
+     * 버퍼를 가져온다. 최대 버퍼 수 만큼 생성된 후에는 반환된 버퍼를 재사용하며, 없으면 반환될 때까지 대기한다.
+     * @return byte[]
+     * @throws InterruptedException
+     */
+    public byte[] acquire() throws InterruptedException {
+        byte[] buf = free.poll();
+        if (buf != null) {
+            return buf;
+        }
+        if (created.incrementAndGet() <= maxBuffers) {
+            return new byte[chunkSize];
+        }
+        created.decrementAndGet();
+        return free.take();
+    }
+
+    /*
+     * 대기하지 않고 버퍼를 가져온다.
+     * 이벤트 Thread 처럼 대기하면 안되는 곳에서 사용하며, 사용 가능한 버퍼가 없으면 null을 반환한다.
+     * @return byte[], 없으면 null
+     */
+    public byte[] tryAcquire() {
+        byte[] buf = free.poll();
+        if (buf != null) {
+            return buf;
+        }
+        if (created.incrementAndGet() <= maxBuffers) {
+            return new byte[chunkSize];
+        }
+        created.decrementAndGet();
+        return null;
+    }
+
+    /*
+     * 사용한 버퍼를 반환한다.
+     * @param buf byte[]
+     */
+    public void release(byte[] buf) {
+        if (buf != null && buf.length == chunkSize) {
+            free.offer(buf);
+        }
+    }
+}
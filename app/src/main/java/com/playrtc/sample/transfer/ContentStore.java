@@ -0,0 +1,250 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * 수신 측에서 받은 파일 내용을 SHA-256 Digest로 저장하는 Content Store Class
+ * 송신 측이 OFFER에 Digest를 실어 보내면 수신 측은 Store에 같은 내용이 있는지 확인하고,
+ * 있으면 Store의 파일로 수신을 완료하여 파일 데이터를 다시 전송하지 않는다.
+ *
+ * 파일은 "dir/sha256" 으로 저장하며, 전체 크기가 maxBytes를 넘으면 가장 오래 사용하지 않은 파일 부터 삭제(LRU)한다.
+ * 사용 순서는 파일 수정 시각으로 기록하므로 앱을 다시 시작해도 유지된다.
+ * Store에 추가하는 파일 복사는 별도 Thread에서 처리한다.
+ * 추가/복사 할 때 복사한 내용의 Digest를 함께 계산하여, Digest와 다른 내용은 저장하거나 전달하지 않는다.
+ */
+public class ContentStore {
+
+    /*
+     * 기본 최대 크기 256MB
+     */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private final File dir;
+    private final long maxBytes;
+
+    /*
+     * Digest 별 파일 크기, 접근 순서
+     */
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long totalBytes = 0L;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ContentStore");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /*
+     * 생성자, 저장 폴더의 파일을 수정 시각 순서로 읽어 들인다.
+     * @param dir File, 저장 폴더
+     * @param maxBytes long, 최대 크기
+     */
+    public ContentStore(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        dir.mkdirs();
+        load();
+    }
+
+    /*
+     * 같은 내용이 저장되어 있는지 확인한다.
+     * @param digest String, SHA-256
+     * @param size long, 파일 크기
+     * @return boolean
+     */
+    public synchronized boolean contains(String digest, long size) {
+        Long stored = index.get(digest);
+        return stored != null && stored == size;
+    }
+
+    /*
+     * 저장된 내용을 dest에 복사한다. 사용 순서를 갱신한다.
+     * 복사한 내용의 Digest가 다르면 dest와 저장된 파일을 삭제한다.
+     * @param digest String, SHA-256
+     * @param dest File
+     * @return boolean, 저장된 내용이 없거나 Digest가 다르면 false
+     * @throws IOException
+     */
+    public boolean copyTo(String digest, File dest) throws IOException {
+        File src;
+        synchronized (this) {
+            if (index.get(digest) == null) {
+                return false;
+            }
+            src = new File(dir, digest);
+            src.setLastModified(System.currentTimeMillis());
+        }
+        if (!digest.equals(copy(src, dest))) {
+            dest.delete();
+            remove(digest);
+            return false;
+        }
+        return true;
+    }
+
+    /*
+     * 수신 완료한 파일을 Store에 추가한다. 복사는 별도 Thread에서 처리하며
+     * 복사 중에 src가 변경되어 Digest가 달라지면 저장하지 않는다.
+     * @param digest String, 검증된 SHA-256
+     * @param src File
+     */
+    public void put(final String digest, final File src) {
+        if (!isDigest(digest) || src.length() > maxBytes || executor.isShutdown()) {
+            return;
+        }
+        synchronized (this) {
+            if (index.containsKey(digest)) {
+                new File(dir, digest).setLastModified(System.currentTimeMillis());
+                return;
+            }
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                File tmp = new File(dir, digest + ".tmp");
+                try {
+                    if (!digest.equals(copy(src, tmp))) {
+                        tmp.delete();
+                        return;
+                    }
+                    File dest = new File(dir, digest);
+                    if (!tmp.renameTo(dest)) {
+                        tmp.delete();
+                        return;
+                    }
+                    synchronized (ContentStore.this) {
+                        Long prev = index.put(digest, dest.length());
+                        if (prev != null) {
+                            totalBytes -= prev;
+                        }
+                        totalBytes += dest.length();
+                        evict();
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    tmp.delete();
+                }
+            }
+        });
+    }
+
+    /*
+     * 복사 Thread를 종료한다. 대기 중인 추가 요청은 처리한 후 종료하며 이후 put은 무시한다.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public synchronized int getCount() {
+        return index.size();
+    }
+
+    /*
+     * SHA-256 16진수 문자열인지 검사한다. Digest는 파일 명으로 사용하므로 다른 경로를 가리키지 않도록 확인
+     * @param digest String
+     * @return boolean
+     */
+    public static boolean isDigest(String digest) {
+        if (digest == null || digest.length() != 64) {
+            return false;
+        }
+        for (int i = 0; i < digest.length(); i++) {
+            char c = digest.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * 저장된 파일을 삭제한다.
+     */
+    private synchronized void remove(String digest) {
+        Long size = index.remove(digest);
+        if (size != null) {
+            new File(dir, digest).delete();
+            totalBytes -= size;
+        }
+    }
+
+    /*
+     * 가장 오래 사용하지 않은 파일 부터 삭제
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            new File(dir, eldest.getKey()).delete();
+            totalBytes -= eldest.getValue();
+            it.remove();
+        }
+    }
+
+    private void load() {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long l = a.lastModified(), r = b.lastModified();
+                return (l < r) ? -1 : ((l == r) ? 0 : 1);
+            }
+        });
+        for (File f : files) {
+            if (isDigest(f.getName())) {
+                index.put(f.getName(), f.length());
+                totalBytes += f.length();
+            } else {
+                // 복사 중 중단된 임시 파일
+                f.delete();
+            }
+        }
+        evict();
+    }
+
+    /*
+     * 파일을 복사하고 복사한 내용의 SHA-256을 반환한다.
+     */
+    private static String copy(File src, File dest) throws IOException {
+        MessageDigest md = TransferDigest.create();
+        byte[] buf = new byte[64 * 1024];
+        FileInputStream in = new FileInputStream(src);
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(dest);
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                md.update(buf, 0, n);
+                out.write(buf, 0, n);
+            }
+            return TransferDigest.finish(md);
+        } finally {
+            in.close();
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.playrtc.sample.transfer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 데이터 채널 송/수신 성능 지표를 상대방 peer, 전송 방향, 메세지 종류(Text/Binary/File) 별로 기록하는 Class
+ *
+ * - 메세지 수, 전송 크기, 오류 수
+ * - 전송 소요 시간(msec) 분포 : LatencyHistogram
+ * - 전송 속도 : 전송 크기 / 소요 시간 합계
+ *
+ * 전송 건 마다 DataTransfer의 시작/종료 시각으로 소요 시간을 계산하여 기록하므로
+ * 여러 전송이 동시에 진행되어도 서로 영향을 주지 않는다.
+ * 데이터 채널 연결(세션) 마다 reset으로 초기화하고, snapshot으로 특정 시점의 복사본을 조회한다.
+ */
+public class DataChannelMetrics {
+
+    /*
+     * 메세지 종류
+     */
+    public enum Type {
+        Text,
+        Binary,
+        File
+    }
+
+    /*
+     * peerId를 모르는 경우(전송 전 오류 등) 사용하는 값
+     */
+    public static final String UNKNOWN_PEER = "-";
+
+    /*
+     * peer/방향/종류 1개의 누적 지표
+     */
+    private static class Entry {
+        final String peerId;
+        final DataTransfer.Direction direction;
+        final Type type;
+        final AtomicLong messages = new AtomicLong();
+        final AtomicLong bytes = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong elapsed = new AtomicLong();
+        final LatencyHistogram latency = new LatencyHistogram();
+
+        Entry(String peerId, DataTransfer.Direction direction, Type type) {
+            this.peerId = peerId;
+            this.direction = direction;
+            this.type = type;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private volatile long sessionStart = System.currentTimeMillis();
+
+    public DataChannelMetrics() {
+
+    }
+
+    /*
+     * 전송 완료를 기록한다.
+     * @param direction DataTransfer.Direction
+     * @param peerId String, 상대방 peer 아이디
+     * @param type Type
+     * @param bytes long, 전송 크기
+     * @param elapsed long, 소요 시간 msec
+     */
+    public void record(DataTransfer.Direction direction, String peerId, Type type, long bytes, long elapsed) {
+        Entry entry = entry(direction, peerId, type);
+        entry.messages.incrementAndGet();
+        entry.bytes.addAndGet(bytes);
+        entry.elapsed.addAndGet(Math.max(elapsed, 0L));
+        entry.latency.record(elapsed);
+    }
+
+    /*
+     * 전송 완료를 DataTransfer의 크기, 소요 시간으로 기록한다.
+     * @param transfer DataTransfer, 종료된 전송 건
+     * @param type Type
+     */
+    public void record(DataTransfer transfer, Type type) {
+        record(transfer.getDirection(), transfer.getPeerId(), type, transfer.getTransferred(), transfer.getElapsed());
+    }
+
+    /*
+     * 전송 실패를 기록한다.
+     * @param direction DataTransfer.Direction
+     * @param peerId String, 상대방 peer 아이디, 모르면 null
+     * @param type Type
+     */
+    public void recordError(DataTransfer.Direction direction, String peerId, Type type) {
+        entry(direction, peerId, type).errors.incrementAndGet();
+    }
+
+    /*
+     * 기록을 모두 지우고 세션 시작 시각을 갱신한다. 데이터 채널이 새로 연결되면 호출
+     */
+    public void reset() {
+        entries.clear();
+        sessionStart = System.currentTimeMillis();
+    }
+
+    /*
+     * 현재 기록의 복사본을 반환한다.
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        List<EntrySnapshot> list = new ArrayList<EntrySnapshot>(entries.size());
+        for (Entry entry : entries.values()) {
+            list.add(new EntrySnapshot(entry.peerId, entry.direction, entry.type, entry.messages.get(),
+                    entry.bytes.get(), entry.errors.get(), entry.elapsed.get(), entry.latency.snapshot()));
+        }
+        long now = System.currentTimeMillis();
+        return new Snapshot(sessionStart, now, Collections.unmodifiableList(list));
+    }
+
+    private Entry entry(DataTransfer.Direction direction, String peerId, Type type) {
+        if (peerId == null) {
+            peerId = UNKNOWN_PEER;
+        }
+        String key = peerId + ":" + direction.ordinal() + ":" + type.ordinal();
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = new Entry(peerId, direction, type);
+            Entry prev = entries.putIfAbsent(key, entry);
+            if (prev != null) {
+                entry = prev;
+            }
+        }
+        return entry;
+    }
+
+    /*
+     * peer/방향/종류 1개의 지표 복사본
+     */
+    public static class EntrySnapshot {
+        private final String peerId;
+        private final DataTransfer.Direction direction;
+        private final Type type;
+        private final long messages;
+        private final long bytes;
+        private final long errors;
+        private final long elapsed;
+        private final LatencyHistogram.Snapshot latency;
+
+        EntrySnapshot(String peerId, DataTransfer.Direction direction, Type type, long messages, long bytes,
+                      long errors, long elapsed, LatencyHistogram.Snapshot latency) {
+            this.peerId = peerId;
+            this.direction = direction;
+            this.type = type;
+            this.messages = messages;
+            this.bytes = bytes;
+            this.errors = errors;
+            this.elapsed = elapsed;
+            this.latency = latency;
+        }
+
+        public String getPeerId() {
+            return peerId;
+        }
+
+        public DataTransfer.Direction getDirection() {
+            return direction;
+        }
+
+        public Type getType() {
+            return type;
+        }
+
+        public long getMessages() {
+            return messages;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        /*
+         * 전송 중 평균 속도(KB/s), 소요 시간 합계가 1ms 미만인 경우 1ms로 계산
+         * @return float
+         */
+        public float getThroughput() {
+            return (bytes / 1024.0f) / (Math.max(elapsed, 1L) / 1000.0f);
+        }
+    }
+
+    /*
+     * DataChannelMetrics의 특정 시점 복사본
+     */
+    public static class Snapshot {
+        private final long sessionStart;
+        private final long time;
+        private final List<EntrySnapshot> entries;
+
+        Snapshot(long sessionStart, long time, List<EntrySnapshot> entries) {
+            this.sessionStart = sessionStart;
+            this.time = time;
+            this.entries = entries;
+        }
+
+        /*
+         * 세션 시작 후 경과 시간(msec)
+         * @return long
+         */
+        public long getSessionElapsed() {
+            return time - sessionStart;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public List<EntrySnapshot> getEntries() {
+            return entries;
+        }
+
+        /*
+         * 특정 peer의 지표 목록
+         * @param peerId String
+         * @return List<EntrySnapshot>
+         */
+        public List<EntrySnapshot> getEntries(String peerId) {
+            List<EntrySnapshot> list = new ArrayList<EntrySnapshot>();
+            for (EntrySnapshot entry : entries) {
+                if (entry.peerId.equals(peerId)) {
+                    list.add(entry);
+                }
+            }
+            return list;
+        }
+
+        /*
+         * 방향 별 전체 전송 크기
+         * @param direction DataTransfer.Direction
+         * @return long
+         */
+        public long getTotalBytes(DataTransfer.Direction direction) {
+            long total = 0L;
+            for (EntrySnapshot entry : entries) {
+                if (entry.direction == direction) {
+                    total += entry.bytes;
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataStatus;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * PlayRTCData 전송 요청을 우선 순위 별로 대기시키고 전송 중인 데이터 크기를 제한하는 Scheduler Class
+ *
+ * 우선 순위
+ * - Control : 전송 제어 메세지, 대기 없이 바로 전송
+ * - Interactive : 채팅 등 작은 메세지, 전송 중인 크기가 INTERACTIVE_LIMIT 이내 일 때 전송
+ * - Bulk : 파일 등 큰 데이터, 전송 중인 크기가 BULK_LIMIT 이내 일 때 전송
+ *
+ * 전송 중인 크기는 전송 시작 시 데이터 크기만큼 증가하고 onSending의 누적 전송 크기와 onSuccess/onError로 감소한다.
+ * 큰 파일 전송 중에도 제어/작은 메세지는 파일 데이터 뒤에 쌓이지 않고 먼저 전송되며,
+ * Bulk 데이터는 SDK 내부 버퍼에 한꺼번에 쌓이지 않고 전송 완료되는 만큼 이어서 전달된다.
+ *
+ * 전송 요청은 PlayRTCData#send* 와 같은 형식이며, 전송 고유 아이디는 실제 전송 시점에 정해지므로
+ * SendObserver#onDispatch로 전달한다.
+ */
+public class DataSendScheduler {
+
+    /*
+     * 전송 우선 순위
+     */
+    public enum Priority {
+        Control,
+        Interactive,
+        Bulk
+    }
+
+    /*
+     * Interactive 전송 중 크기 제한 256KB
+     */
+    public static final long INTERACTIVE_LIMIT = 256 * 1024;
+
+    /*
+     * Bulk 전송 중 크기 제한 2MB
+     */
+    public static final long BULK_LIMIT = 2 * 1024 * 1024;
+
+    /*
+     * 전송 고유 아이디를 전달 받기 위한 PlayRTCSendDataObserver 확장 Class
+     */
+    public static abstract class SendObserver implements PlayRTCSendDataObserver {
+        /*
+         * 대기열에서 PlayRTCData로 전송을 시작
+         * @param id long, PlayRTCData#send* 가 반환한 전송 고유 아이디
+         */
+        public void onDispatch(long id) {
+
+        }
+    }
+
+    private static final int KIND_TEXT = 0;
+    private static final int KIND_BYTE = 1;
+    private static final int KIND_FILE = 2;
+
+    /*
+     * 전송 대기 항목
+     */
+    private class Item implements PlayRTCSendDataObserver {
+        final Priority priority;
+        final int kind;
+        final String text;
+        final byte[] bytes;
+        final String mimeType;
+        final InputStream stream;
+        final String fileName;
+        final long size;
+        final PlayRTCSendDataObserver observer;
+
+        /*
+         * 전송 중 크기에서 감소시킨 크기
+         */
+        long released = 0L;
+        boolean done = false;
+
+        Item(Priority priority, int kind, String text, byte[] bytes, String mimeType, InputStream stream, String fileName,
+             long size, PlayRTCSendDataObserver observer) {
+            this.priority = priority;
+            this.kind = kind;
+            this.text = text;
+            this.bytes = bytes;
+            this.mimeType = mimeType;
+            this.stream = stream;
+            this.fileName = fileName;
+            this.size = size;
+            this.observer = observer;
+        }
+
+        @Override
+        public void onSending(PlayRTCData obj, String peerId, String peerUid, long id, long size, long send, long index, long count) {
+            release(this, Math.min(send, this.size), false);
+            if (observer != null) {
+                observer.onSending(obj, peerId, peerUid, id, size, send, index, count);
+            }
+        }
+
+        @Override
+        public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+            release(this, this.size, true);
+            if (observer != null) {
+                observer.onSuccess(obj, peerId, peerUid, id, size);
+            }
+        }
+
+        @Override
+        public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+            release(this, this.size, true);
+            if (observer != null) {
+                observer.onError(obj, peerId, peerUid, id, code, desc);
+            }
+        }
+    }
+
+    private final Object lock = new Object();
+    private final List<ArrayDeque<Item>> queues = new ArrayList<ArrayDeque<Item>>();
+    private final long[] inFlight = new long[Priority.values().length];
+    private volatile PlayRTCData dataChannel = null;
+
+    /*
+     * 대기열에서 꺼낸 항목을 전송 중인 Thread가 있는지 여부, lock으로 보호
+     * 한 Thread만 꺼낸 순서대로 전송하여 같은 우선 순위의 항목 순서가 바뀌지 않도록 한다.
+     */
+    private boolean dispatching = false;
+
+    public DataSendScheduler() {
+        for (int i = 0; i < Priority.values().length; i++) {
+            queues.add(new ArrayDeque<Item>());
+        }
+    }
+
+    public void setDataChannel(PlayRTCData dataChannel) {
+        this.dataChannel = dataChannel;
+    }
+
+    /*
+     * 데이터 채널이 연결 상태인지 반환한다.
+     * @return boolean
+     */
+    public boolean isOpen() {
+        PlayRTCData dc = dataChannel;
+        return dc != null && dc.getStatus() == PlayRTCDataStatus.Open;
+    }
+
+    /*
+     * 텍스트 전송을 요청한다. PlayRTCData는 텍스트를 2byte 문자 단위로 전송하므로 크기는 length * 2
+     * @param priority Priority
+     * @param text String
+     * @param observer PlayRTCSendDataObserver
+     */
+    public void sendText(Priority priority, String text, PlayRTCSendDataObserver observer) {
+        enqueue(new Item(priority, KIND_TEXT, text, null, null, null, null, text.length() * 2L, observer));
+    }
+
+    /*
+     * Binary 전송을 요청한다.
+     * @param priority Priority
+     * @param data byte[]
+     * @param mimeType String
+     * @param observer PlayRTCSendDataObserver
+     */
+    public void sendByte(Priority priority, byte[] data, String mimeType, PlayRTCSendDataObserver observer) {
+        enqueue(new Item(priority, KIND_BYTE, null, data, mimeType, null, null, data.length, observer));
+    }
+
+    /*
+     * 파일 전송을 요청한다.
+     * @param priority Priority
+     * @param stream InputStream
+     * @param fileName String
+     * @param size long, 파일 크기, 모르면 0
+     * @param observer PlayRTCSendDataObserver
+     */
+    public void sendFile(Priority priority, InputStream stream, String fileName, long size, PlayRTCSendDataObserver observer) {
+        enqueue(new Item(priority, KIND_FILE, null, null, null, stream, fileName, Math.max(size, 0L), observer));
+    }
+
+    /*
+     * 우선 순위 별 전송 대기 중인 항목 수를 반환한다.
+     * @param priority Priority
+     * @return int
+     */
+    public int getQueued(Priority priority) {
+        synchronized (lock) {
+            return queues.get(priority.ordinal()).size();
+        }
+    }
+
+    /*
+     * 우선 순위 별 전송 중인 크기를 반환한다.
+     * @param priority Priority
+     * @return long
+     */
+    public long getInFlight(Priority priority) {
+        synchronized (lock) {
+            return inFlight[priority.ordinal()];
+        }
+    }
+
+    /*
+     * 대기 중인 전송을 모두 취소하고 각 항목의 onError(NotOpen)를 호출한다.
+     * 데이터 채널이 닫히면 호출
+     */
+    public void clear() {
+        List<Item> dropped = new ArrayList<Item>();
+        synchronized (lock) {
+            for (ArrayDeque<Item> queue : queues) {
+                for (Item item : queue) {
+                    item.done = true;
+                }
+                dropped.addAll(queue);
+                queue.clear();
+            }
+            for (int i = 0; i < inFlight.length; i++) {
+                inFlight[i] = 0L;
+            }
+        }
+        for (Item item : dropped) {
+            if (item.observer != null) {
+                item.observer.onError(dataChannel, null, null, DataTransfer.NO_ID, PlayRTCDataCode.NotOpen, "cancelled");
+            }
+        }
+    }
+
+    private void enqueue(Item item) {
+        synchronized (lock) {
+            queues.get(item.priority.ordinal()).add(item);
+        }
+        schedule();
+    }
+
+    /*
+     * 전송 중 크기를 감소시키고 다음 항목을 전송한다.
+     * @param item Item
+     * @param sent long, 누적 전송 크기
+     * @param done boolean, 전송 완료/실패 여부
+     */
+    private void release(Item item, long sent, boolean done) {
+        synchronized (lock) {
+            if (item.done) {
+                return;
+            }
+            item.done = done;
+            long delta = sent - item.released;
+            if (delta <= 0) {
+                return;
+            }
+            item.released = sent;
+            int p = item.priority.ordinal();
+            inFlight[p] = Math.max(0L, inFlight[p] - delta);
+        }
+        schedule();
+    }
+
+    /*
+     * 높은 우선 순위 부터 전송 가능한 항목을 꺼내어 전송한다.
+     * PlayRTCData 호출은 lock 밖에서 한다. 다른 Thread가 전송 중이면 그 Thread가 이어서 꺼내어 전송하므로 바로 반환한다.
+     */
+    private void schedule() {
+        synchronized (lock) {
+            if (dispatching) {
+                return;
+            }
+            dispatching = true;
+        }
+        while (true) {
+            List<Item> ready = null;
+            synchronized (lock) {
+                for (Priority priority : Priority.values()) {
+                    ArrayDeque<Item> queue = queues.get(priority.ordinal());
+                    while (!queue.isEmpty() && canDispatch(priority, queue.peek())) {
+                        Item item = queue.poll();
+                        inFlight[priority.ordinal()] += item.size;
+                        if (ready == null) {
+                            ready = new ArrayList<Item>();
+                        }
+                        ready.add(item);
+                    }
+                }
+                if (ready == null) {
+                    dispatching = false;
+                    return;
+                }
+            }
+            try {
+                for (Item item : ready) {
+                    dispatch(item);
+                }
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    dispatching = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private boolean canDispatch(Priority priority, Item item) {
+        long current = inFlight[priority.ordinal()];
+        switch (priority) {
+            case Control:
+                return true;
+            case Interactive:
+                return current == 0L || current + item.size <= INTERACTIVE_LIMIT;
+            default:
+                return current == 0L || current + item.size <= BULK_LIMIT;
+        }
+    }
+
+    private void dispatch(Item item) {
+        PlayRTCData dc = dataChannel;
+        if (dc == null || dc.getStatus() != PlayRTCDataStatus.Open) {
+            item.onError(dc, null, null, DataTransfer.NO_ID, PlayRTCDataCode.NotOpen, "data channel not open");
+            return;
+        }
+        long id;
+        switch (item.kind) {
+            case KIND_TEXT:
+                id = dc.sendText(item.text, item);
+                break;
+            case KIND_BYTE:
+                id = dc.sendByte(item.bytes, item.mimeType, item);
+                break;
+            default:
+                id = dc.sendFile(item.stream, item.fileName, item);
+                break;
+        }
+        if (item.observer instanceof SendObserver) {
+            ((SendObserver) item.observer).onDispatch(id);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.playrtc.sample.transfer;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/*
+ * 데이터 채널의 송/수신 전송 1건의 상태를 담는 Class
+ * DataTransferManager가 전송 고유 아이디(PlayRTCSendDataObserver에 전달되는 id, 수신 시 PlayRTCDataHeader#getId)를 키로 관리한다.
+ *
+ * - 전송 스트림(InputStream), 시작 시각, 전체 크기, 누적 전송 크기를 전송 건 별로 유지
+ * - cancel : 전송 스트림을 닫아 PlayRTCData의 파일 전송을 중단시킨다.
+ */
+public class DataTransfer {
+
+    /*
+     * 전송 방향
+     */
+    public enum Direction {
+        Send,
+        Receive
+    }
+
+    /*
+     * 전송 고유 아이디를 아직 받지 못한 경우
+     */
+    public static final long NO_ID = -1L;
+
+    private final Direction direction;
+
+    /*
+     * 상대방 사용자의 peer 아이디, 송신의 경우 전송 시작 후 첫 이벤트에서 지정된다.
+     */
+    private volatile String peerId = null;
+
+    /*
+     * 파일 명, 텍스트/Binary 전송인 경우 null
+     */
+    private final String name;
+
+    /*
+     * 송신 파일의 InputStream, 수신이거나 텍스트/Binary 전송인 경우 null
+     */
+    private InputStream stream = null;
+
+    private volatile long id = NO_ID;
+    private final long startTime;
+    private volatile long endTime = 0L;
+    private volatile long size = 0L;
+    private volatile long transferred = 0L;
+    private volatile boolean cancelled = false;
+
+    /*
+     * 생성자
+     * @param direction Direction, 전송 방향
+     * @param peerId String, 상대방 peer 아이디, 모르면 null
+     * @param name String, 파일 명
+     * @param stream InputStream, 송신 파일 InputStream, 없으면 null
+     */
+    public DataTransfer(Direction direction, String peerId, String name, InputStream stream) {
+        this.direction = direction;
+        this.peerId = peerId;
+        this.name = name;
+        this.stream = stream;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    public Direction getDirection() {
+        return direction;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    void setId(long id) {
+        this.id = id;
+    }
+
+    public String getPeerId() {
+        return peerId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getTransferred() {
+        return transferred;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public boolean isFinished() {
+        return endTime != 0L;
+    }
+
+    /*
+     * 전송 진행 정보를 갱신한다.
+     * @param peerId String, 상대방 peer 아이디
+     * @param size long, 전체 크기
+     * @param transferred long, 누적 전송 크기
+     */
+    public void update(String peerId, long size, long transferred) {
+        if (this.peerId == null) {
+            this.peerId = peerId;
+        }
+        this.size = size;
+        this.transferred = transferred;
+    }
+
+    /*
+     * 전송 시작 후 경과 시간(msec)을 반환한다. 전송이 종료되었으면 전체 소요 시간.
+     * @return long
+     */
+    public long getElapsed() {
+        long end = (endTime != 0L) ? endTime : System.currentTimeMillis();
+        return end - startTime;
+    }
+
+    /*
+     * 평균 전송 속도(KB/s)를 반환한다. 소요 시간이 1ms 미만인 경우 1ms로 계산
+     * @return float
+     */
+    public float getThroughput() {
+        return (transferred / 1024.0f) / (Math.max(getElapsed(), 1L) / 1000.0f);
+    }
+
+    /*
+     * 전송을 중단한다. 송신 스트림을 닫으므로 PlayRTCData는 해당 전송에 대해 onError를 전달한다.
+     */
+    public void cancel() {
+        cancelled = true;
+        close();
+    }
+
+    /*
+     * 전송 종료 처리. 종료 시각을 기록하고 송신 스트림을 닫는다.
+     */
+    synchronized void close() {
+        if (endTime == 0L) {
+            endTime = System.currentTimeMillis();
+        }
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            stream = null;
+        }
+    }
+}
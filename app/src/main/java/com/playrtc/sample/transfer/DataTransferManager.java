@@ -0,0 +1,160 @@
+package com.playrtc.sample.transfer;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 데이터 채널의 진행 중인 송/수신 전송 목록을 관리하는 Class
+ * 전송 건 마다 DataTransfer를 생성하여 스트림, 시간, 취소 상태를 독립적으로 유지하므로
+ * 여러 파일을 동시에 송/수신 할 수 있다.
+ *
+ * - 송신 : PlayRTCData#send* 가 반환하는 전송 고유 아이디를 키로 사용
+ * - 수신 : peerId + PlayRTCDataHeader#getId 를 키로 사용
+ *
+ * PlayRTCData 이벤트는 SDK 내부 Thread에서 호출되므로 ConcurrentHashMap으로 관리한다.
+ */
+public class DataTransferManager {
+
+    private final ConcurrentHashMap<Long, DataTransfer> sends = new ConcurrentHashMap<Long, DataTransfer>();
+    private final ConcurrentHashMap<String, DataTransfer> receives = new ConcurrentHashMap<String, DataTransfer>();
+
+    public DataTransferManager() {
+
+    }
+
+    /*
+     * 송신 전송 건을 생성한다. 전송 고유 아이디는 PlayRTCData#send* 호출 후 bind로 지정한다.
+     * @param name String, 파일 명, 텍스트/Binary 전송인 경우 null
+     * @param stream InputStream, 송신 파일 InputStream, 없으면 null
+     * @return DataTransfer
+     */
+    public DataTransfer createSend(String name, InputStream stream) {
+        return new DataTransfer(DataTransfer.Direction.Send, null, name, stream);
+    }
+
+    /*
+     * PlayRTCData#send* 가 반환한 전송 고유 아이디를 송신 전송 건에 지정하고 목록에 등록한다.
+     * 아이디를 받기 전에 전송이 완료된 경우(작은 데이터)에는 등록하지 않는다.
+     * @param transfer DataTransfer
+     * @param id long, 전송 고유 아이디
+     */
+    public void bind(DataTransfer transfer, long id) {
+        transfer.setId(id);
+        if (!transfer.isFinished()) {
+            sends.put(id, transfer);
+        }
+    }
+
+    /*
+     * 송신 전송 건을 종료 처리하고 목록에서 제거한다.
+     * @param transfer DataTransfer
+     */
+    public void finish(DataTransfer transfer) {
+        transfer.close();
+        if (transfer.getId() != DataTransfer.NO_ID) {
+            if (transfer.getDirection() == DataTransfer.Direction.Send) {
+                sends.remove(transfer.getId());
+            } else {
+                receives.remove(receiveKey(transfer.getPeerId(), transfer.getId()));
+            }
+        }
+    }
+
+    /*
+     * 전송 고유 아이디로 진행 중인 송신 전송 건을 반환한다.
+     * @param id long
+     * @return DataTransfer, 없으면 null
+     */
+    public DataTransfer getSend(long id) {
+        return sends.get(id);
+    }
+
+    /*
+     * 수신 진행 정보를 갱신한다. 처음 수신되는 데이터이면 수신 전송 건을 생성한다.
+     * @param peerId String, 상대방 peer 아이디
+     * @param id long, PlayRTCDataHeader#getId
+     * @param name String, 파일 명
+     * @param size long, 전체 크기
+     * @param recvSize long, 누적 수신 크기
+     * @return DataTransfer
+     */
+    public DataTransfer onReceive(String peerId, long id, String name, long size, long recvSize) {
+        String key = receiveKey(peerId, id);
+        DataTransfer transfer = receives.get(key);
+        if (transfer == null) {
+            transfer = new DataTransfer(DataTransfer.Direction.Receive, peerId, name, null);
+            transfer.setId(id);
+            DataTransfer prev = receives.putIfAbsent(key, transfer);
+            if (prev != null) {
+                transfer = prev;
+            }
+        }
+        transfer.update(peerId, size, recvSize);
+        return transfer;
+    }
+
+    /*
+     * 수신 완료 처리. 수신 전송 건을 목록에서 제거하여 반환한다.
+     * onProgress 없이 바로 onMessage가 호출된 경우(작은 데이터)에도 전송 건을 생성하여 반환한다.
+     * @param peerId String, 상대방 peer 아이디
+     * @param id long, PlayRTCDataHeader#getId
+     * @param name String, 파일 명
+     * @param size long, 전체 크기
+     * @return DataTransfer
+     */
+    public DataTransfer finishReceive(String peerId, long id, String name, long size) {
+        DataTransfer transfer = receives.remove(receiveKey(peerId, id));
+        if (transfer == null) {
+            transfer = new DataTransfer(DataTransfer.Direction.Receive, peerId, name, null);
+            transfer.setId(id);
+        }
+        transfer.update(peerId, size, size);
+        transfer.close();
+        return transfer;
+    }
+
+    /*
+     * 진행 중인 송신 전송을 중단한다.
+     * @param id long, 전송 고유 아이디
+     * @return boolean, 해당 전송이 없으면 false
+     */
+    public boolean cancel(long id) {
+        DataTransfer transfer = sends.remove(id);
+        if (transfer == null) {
+            return false;
+        }
+        transfer.cancel();
+        return true;
+    }
+
+    /*
+     * 진행 중인 모든 송/수신 전송을 중단하고 목록을 비운다.
+     * 데이터 채널이 닫히는 경우 호출
+     */
+    public void cancelAll() {
+        for (DataTransfer transfer : sends.values()) {
+            transfer.cancel();
+        }
+        sends.clear();
+        for (DataTransfer transfer : receives.values()) {
+            transfer.cancel();
+        }
+        receives.clear();
+    }
+
+    /*
+     * 진행 중인 송/수신 전송 목록을 반환한다.
+     * @return List<DataTransfer>
+     */
+    public List<DataTransfer> getActiveTransfers() {
+        List<DataTransfer> list = new ArrayList<DataTransfer>(sends.values());
+        list.addAll(receives.values());
+        return list;
+    }
+
+    private static String receiveKey(String peerId, long id) {
+        return peerId + ":" + id;
+    }
+}
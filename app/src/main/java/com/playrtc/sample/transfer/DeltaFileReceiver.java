@@ -0,0 +1,375 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/*
+ * DeltaFileSender가 전송하는 파일 차이를 수신하여 새 파일을 만드는 Class
+ *
+ * 1. DELTA key size name을 받으면 같은 이름의 이전 파일을 blockSize 단위로 읽어
+ *    block 별 RollingChecksum과 MD5를 MIME_SIGNATURE로 응답한다. 이전 파일이 없으면 block 수 0
+ * 2. MIME_DELTA 명령 순서대로 OP_COPY는 이전 파일의 block을, OP_LITERAL은 수신 데이터를 임시 파일(key.delta)에 기록한다.
+ * 3. OP_END의 SHA-256과 기록한 데이터의 Digest가 일치하면 임시 파일로 이전 파일을 교체한다.
+ *
+ * signature 계산은 별도 Thread에서 처리하고, 파일 기록은 StreamingFileSink의 Writer Thread에서 처리한다.
+ * MIME_DELTA 명령은 이전 파일 읽기와 기록 대기가 있으므로 Apply Thread에서 순서대로 처리하며,
+ * 데이터 수신 이벤트 Thread는 대기 중인 명령이 APPLY_QUEUE_SIZE 개를 넘을 때만 대기한다.
+ */
+public class DeltaFileReceiver {
+
+    /*
+     * block 크기 범위, 파일 크기의 제곱근에 가까운 크기를 사용한다.
+     */
+    public static final int MIN_BLOCK_SIZE = 2 * 1024;
+    public static final int MAX_BLOCK_SIZE = 64 * 1024;
+
+    /*
+     * Apply Thread의 최대 대기 명령 메세지 수
+     */
+    private static final int APPLY_QUEUE_SIZE = 16;
+
+    /*
+     * 수신 완료/오류를 전달 받기 위한 인터페이스
+     */
+    public interface Listener {
+        /*
+         * 수신 시작, 이전 파일의 block 수를 전달
+         */
+        void onStart(String name, int blocks);
+
+        void onComplete(String name, File file);
+
+        void onError(String name, String desc);
+    }
+
+    /*
+     * 수신 1건의 상태
+     */
+    private static class Session {
+        final String key;
+        final String name;
+        final File basis;
+        final File temp;
+        final MessageDigest digest = TransferDigest.create();
+        int blockSize;
+        int count;
+        RandomAccessFile basisFile = null;
+        StreamingFileSink sink = null;
+        byte[] block = null;
+        boolean ended = false;
+
+        Session(String key, String name, File basis, File temp) {
+            this.key = key;
+            this.name = name;
+            this.basis = basis;
+            this.temp = temp;
+        }
+    }
+
+    private final File dir;
+    private final DataSendScheduler scheduler;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+    private final ExecutorService executor = BoundedExecutor.create("DeltaApply", APPLY_QUEUE_SIZE);
+
+    /*
+     * 생성자
+     * @param dir File, 수신 파일 저장 폴더
+     * @param scheduler DataSendScheduler
+     * @param listener Listener
+     */
+    public DeltaFileReceiver(File dir, DataSendScheduler scheduler, Listener listener) {
+        this.dir = dir;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /*
+     * 송신 측 제어 메세지(DELTA) 처리
+     * @param args String[], TransferProtocol#decodeControl(byte[]) 결과, [3] 파일 명은 공백을 포함할 수 있다.
+     */
+    public void onControl(String[] args) {
+        if (args.length < 4 || !TransferProtocol.CMD_DELTA.equals(args[0])) {
+            return;
+        }
+        final String key = args[1];
+        String name = new File(args[3]).getName();
+        // 키는 임시 파일 명으로 사용하므로 형식이 다르면 파일에 접근하기 전에 거부
+        if (!TransferProtocol.isKey(key)) {
+            if (listener != null) {
+                listener.onError(name, "invalid key");
+            }
+            return;
+        }
+        final Session session = new Session(key, name, new File(dir, name), new File(dir, key + ".delta"));
+        Session prev = sessions.put(key, session);
+        if (prev != null) {
+            close(prev);
+        }
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                byte[] signature;
+                try {
+                    signature = prepare(session);
+                } catch (IOException e) {
+                    fail(session, e.getMessage());
+                    return;
+                }
+                if (listener != null) {
+                    listener.onStart(session.name, session.count);
+                }
+                scheduler.sendByte(DataSendScheduler.Priority.Bulk, signature, TransferProtocol.MIME_SIGNATURE, SilentSendObserver.INSTANCE);
+            }
+        }, "DeltaSignature").start();
+    }
+
+    /*
+     * 이전 파일 크기로 block 크기를 정한다. 크기의 제곱근을 1KB 단위로 내림하여 MIN_BLOCK_SIZE ~ MAX_BLOCK_SIZE로 제한
+     * @param size long, 이전 파일 크기
+     * @return int
+     */
+    static int blockSizeOf(long size) {
+        int blockSize = (int) Math.sqrt(size) & ~1023;
+        return Math.max(MIN_BLOCK_SIZE, Math.min(MAX_BLOCK_SIZE, blockSize));
+    }
+
+    /*
+     * blockSizeOf로 정한 block 크기에서 나올 수 있는 최대 block 수
+     * MAX_BLOCK_SIZE 보다 작은 block 크기는 이전 파일이 (blockSize + 1024)^2 보다 작을 때만 선택된다.
+     * @param blockSize int
+     * @return long, MAX_BLOCK_SIZE이면 제한 없음(Long.MAX_VALUE)
+     */
+    static long maxBlockCount(int blockSize) {
+        if (blockSize >= MAX_BLOCK_SIZE) {
+            return Long.MAX_VALUE;
+        }
+        long limit = blockSize + 1024L;
+        return limit * limit / blockSize;
+    }
+
+    /*
+     * 이전 파일의 block signature를 계산하고 임시 파일 기록을 준비한다.
+     * @return byte[], MIME_SIGNATURE 메세지
+     */
+    private byte[] prepare(final Session session) throws IOException {
+        long size = session.basis.isFile() ? session.basis.length() : 0L;
+        int blockSize = blockSizeOf(size);
+        long blocks = size / blockSize;
+        if (TransferProtocol.SIGNATURE_HEADER_SIZE + blocks * TransferProtocol.SIGNATURE_ENTRY_SIZE > Integer.MAX_VALUE) {
+            throw new IOException("basis too large");
+        }
+        int count = (int) blocks;
+        byte[] signature = new byte[TransferProtocol.SIGNATURE_HEADER_SIZE + count * TransferProtocol.SIGNATURE_ENTRY_SIZE];
+        TransferProtocol.writeKey(signature, session.key);
+        ByteBuffer bb = ByteBuffer.wrap(signature, TransferProtocol.KEY_LENGTH, signature.length - TransferProtocol.KEY_LENGTH);
+        bb.putInt(blockSize);
+        bb.putInt(count);
+        if (count > 0) {
+            MessageDigest md5 = DeltaFileSender.md5();
+            byte[] block = new byte[blockSize];
+            InputStream in = new FileInputStream(session.basis);
+            try {
+                for (int i = 0; i < count; i++) {
+                    readFully(in, block);
+                    bb.putInt(RollingChecksum.of(block, 0, blockSize));
+                    md5.update(block, 0, blockSize);
+                    bb.put(md5.digest());
+                }
+            } finally {
+                in.close();
+            }
+        }
+        synchronized (session) {
+            session.blockSize = blockSize;
+            session.count = count;
+            session.block = new byte[blockSize];
+            if (count > 0) {
+                session.basisFile = new RandomAccessFile(session.basis, "r");
+            }
+            session.sink = StreamingFileSink.create(session.temp, new StreamingFileSink.Listener() {
+                @Override
+                public void onComplete(StreamingFileSink sink, long written) {
+                    finish(session);
+                }
+
+                @Override
+                public void onError(StreamingFileSink sink, IOException e) {
+                    fail(session, e.getMessage());
+                }
+            });
+        }
+        return signature;
+    }
+
+    /*
+     * MIME_DELTA 명령 처리, Apply Thread에 전달한다.
+     * @param frame byte[]
+     */
+    public void onDelta(final byte[] frame) {
+        if (frame.length < TransferProtocol.KEY_LENGTH) {
+            return;
+        }
+        final Session session = sessions.get(TransferProtocol.readKey(frame));
+        if (session == null) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                apply(session, frame);
+            }
+        });
+    }
+
+    /*
+     * MIME_DELTA 명령을 순서대로 임시 파일에 기록한다. Apply Thread에서 호출
+     */
+    private void apply(Session session, byte[] frame) {
+        synchronized (session) {
+            if (session.sink == null || session.ended) {
+                return;
+            }
+            try {
+                applyCommands(session, frame);
+            } catch (IOException e) {
+                fail(session, e.getMessage());
+            } catch (RuntimeException e) {
+                // 잘못된 명령
+                fail(session, "invalid delta " + e);
+            }
+        }
+    }
+
+    private void applyCommands(Session session, byte[] frame) throws IOException {
+        ByteBuffer bb = ByteBuffer.wrap(frame);
+        bb.position(TransferProtocol.KEY_LENGTH);
+        while (bb.hasRemaining()) {
+            byte op = bb.get();
+            if (op == TransferProtocol.OP_COPY) {
+                int index = bb.getInt();
+                int count = bb.getInt();
+                if (index < 0 || count < 0 || index + count > session.count) {
+                    throw new IOException("invalid block " + index + "+" + count);
+                }
+                for (int i = 0; i < count; i++) {
+                    session.basisFile.seek((long) (index + i) * session.blockSize);
+                    session.basisFile.readFully(session.block);
+                    session.sink.write(session.block, 0, session.blockSize);
+                    session.digest.update(session.block, 0, session.blockSize);
+                }
+            } else if (op == TransferProtocol.OP_LITERAL) {
+                int length = bb.getInt();
+                int position = bb.position();
+                session.sink.write(frame, position, length);
+                session.digest.update(frame, position, length);
+                bb.position(position + length);
+            } else if (op == TransferProtocol.OP_END) {
+                byte[] expected = new byte[32];
+                bb.get(expected);
+                session.ended = true;
+                if (!MessageDigest.isEqual(expected, session.digest.digest())) {
+                    throw new IOException("digest mismatch");
+                }
+                closeBasis(session);
+                session.sink.close();
+                return;
+            } else {
+                throw new IOException("invalid op " + op);
+            }
+        }
+    }
+
+    /*
+     * 기록 완료, 임시 파일로 이전 파일을 교체한다.
+     */
+    private void finish(Session session) {
+        if (!sessions.remove(session.key, session)) {
+            return;
+        }
+        synchronized (session) {
+            if (!session.ended) {
+                // 중단된 경우
+                session.temp.delete();
+                return;
+            }
+        }
+        File dest = new File(dir, session.name);
+        if (dest.exists()) {
+            dest.delete();
+        }
+        if (session.temp.renameTo(dest)) {
+            if (listener != null) {
+                listener.onComplete(session.name, dest);
+            }
+        } else if (listener != null) {
+            listener.onError(session.name, "rename failed");
+        }
+    }
+
+    /*
+     * 진행 중인 수신을 모두 중단한다. 데이터 채널이 닫히면 호출
+     */
+    public void suspendAll() {
+        for (Session session : sessions.values()) {
+            fail(session, "suspended");
+        }
+    }
+
+    /*
+     * 진행 중인 수신을 중단하고 Apply Thread를 종료한다. 더 이상 사용하지 않을 때 호출
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        suspendAll();
+    }
+
+    private void fail(Session session, String desc) {
+        if (!sessions.remove(session.key, session)) {
+            return;
+        }
+        close(session);
+        if (listener != null) {
+            listener.onError(session.name, desc);
+        }
+    }
+
+    private void close(Session session) {
+        synchronized (session) {
+            closeBasis(session);
+            if (session.sink != null) {
+                session.sink.abort();
+            }
+        }
+        session.temp.delete();
+    }
+
+    private static void closeBasis(Session session) {
+        if (session.basisFile != null) {
+            try {
+                session.basisFile.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            session.basisFile = null;
+        }
+    }
+
+    private static void readFully(InputStream in, byte[] b) throws IOException {
+        int n = 0;
+        while (n < b.length) {
+            int r = in.read(b, n, b.length - n);
+            if (r < 0) {
+                throw new IOException("basis truncated");
+            }
+            n += r;
+        }
+    }
+}
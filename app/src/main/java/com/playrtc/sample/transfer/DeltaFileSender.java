@@ -0,0 +1,433 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/*
+ * rsync 방식으로 변경된 파일의 차이만 전송하는 송신 Class
+ * 상대방이 같은 이름의 이전 파일을 가지고 있으면, 이전 파일과 같은 block은 block 참조로, 나머지는 데이터로 전송한다.
+ *
+ * 전송 순서
+ * 1. DELTA key size name 전송
+ * 2. 수신 측이 이전 파일의 block signature(MIME_SIGNATURE)를 응답, 이전 파일이 없으면 block 수 0
+ * 3. 파일을 처음부터 읽으며 block 크기의 창을 1byte씩 이동(RollingChecksum)하여 이전 파일의 block과 일치하는 부분을 찾고,
+ *    OP_COPY/OP_LITERAL 명령을 MIME_DELTA 메세지로 전송
+ * 4. 마지막 메세지에 OP_END와 새 파일의 SHA-256을 전송, 수신 측은 Digest를 비교하여 파일을 교체한다.
+ *
+ * 파일 읽기와 block 비교는 전송 마다 별도 Thread에서 처리하며, 전송 중인 MIME_DELTA 메세지는 WINDOW 개로 제한한다.
+ */
+public class DeltaFileSender {
+
+    /*
+     * MIME_DELTA 메세지 최대 크기 256KB
+     */
+    public static final int FRAME_SIZE = 256 * 1024;
+
+    /*
+     * 동시에 전송하는 MIME_DELTA 메세지 수
+     */
+    public static final int WINDOW = 4;
+
+    /*
+     * 한번에 전송하는 변경 데이터 최대 크기, 일치하는 block이 없어도 이 크기 마다 OP_LITERAL을 전송한다.
+     */
+    private static final int LITERAL_MAX = 64 * 1024;
+
+    /*
+     * 전송 진행/완료/오류를 전달 받기 위한 인터페이스
+     */
+    public interface Listener {
+        /*
+         * 차이 계산 시작, 상대방이 가진 이전 파일의 block 수를 전달
+         */
+        void onStart(String name, int blocks);
+
+        /*
+         * 전송 완료, 변경 데이터 크기(literal)와 파일 크기를 전달, peerId는 signature를 응답한 상대방
+         */
+        void onComplete(String peerId, String name, long size, long literal, long elapsed);
+
+        /*
+         * 전송 실패, signature를 받기 전에 실패하면 peerId는 null
+         */
+        void onError(String peerId, String name, String desc);
+    }
+
+    /*
+     * 전송 1건의 상태
+     */
+    private class Session implements Runnable {
+        final String key;
+        final File file;
+        final long startTime = System.currentTimeMillis();
+        final Semaphore window = new Semaphore(WINDOW);
+        volatile boolean closed = false;
+        volatile String peerId = null;
+
+        // signature
+        int blockSize;
+        int count;
+        byte[] signature;
+        HashMap<Integer, Integer> weakIndex;
+        int[] weakNext;
+
+        /*
+         * weak checksum 16bit tag 존재 여부, 매 byte 마다 HashMap을 조회하지 않도록 먼저 확인
+         */
+        final boolean[] tags = new boolean[1 << 16];
+
+        // 전송 메세지
+        byte[] frame = new byte[FRAME_SIZE];
+        int length = TransferProtocol.KEY_LENGTH;
+        int copyIndex = -1;
+        int copyCount = 0;
+        long literal = 0L;
+
+        Session(String key, File file) {
+            this.key = key;
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            try {
+                encode();
+                if (!closed) {
+                    closed = true;
+                    sessions.remove(key, this);
+                    if (listener != null) {
+                        listener.onComplete(peerId, file.getName(), file.length(), literal, System.currentTimeMillis() - startTime);
+                    }
+                }
+            } catch (IOException e) {
+                fail(this, e.getMessage());
+            } catch (InterruptedException e) {
+                fail(this, "interrupted");
+            }
+        }
+
+        /*
+         * 파일을 읽으며 이전 파일 block과 일치하는 부분을 찾아 명령을 생성한다.
+         */
+        private void encode() throws IOException, InterruptedException {
+            final int B = blockSize;
+            MessageDigest digest = TransferDigest.create();
+            MessageDigest md5 = md5();
+            RollingChecksum rc = new RollingChecksum();
+            byte[] buf = new byte[LITERAL_MAX + 2 * B];
+            int start = 0;
+            int litStart = 0;
+            int end = 0;
+            boolean eof = false;
+            boolean haveWeak = false;
+
+            FileInputStream in = new FileInputStream(file);
+            try {
+                while (!closed) {
+                    if (end - start <= B && !eof) {
+                        // 처리하지 않은 데이터를 버퍼 앞으로 옮기고 이어서 읽는다.
+                        if (litStart > 0) {
+                            System.arraycopy(buf, litStart, buf, 0, end - litStart);
+                            start -= litStart;
+                            end -= litStart;
+                            litStart = 0;
+                        }
+                        int n = in.read(buf, end, buf.length - end);
+                        if (n < 0) {
+                            eof = true;
+                        } else {
+                            digest.update(buf, end, n);
+                            end += n;
+                        }
+                        continue;
+                    }
+                    if (end - start < B || count == 0) {
+                        if (eof) {
+                            break;
+                        }
+                        // 이전 파일이 없으면 모두 데이터로 전송
+                        literal(buf, litStart, end);
+                        litStart = start = end;
+                        continue;
+                    }
+                    if (!haveWeak) {
+                        rc.reset(buf, start, B);
+                        haveWeak = true;
+                    }
+                    int index = match(rc.getValue(), md5, buf, start);
+                    if (index >= 0) {
+                        literal(buf, litStart, start);
+                        copy(index);
+                        start += B;
+                        litStart = start;
+                        haveWeak = false;
+                        continue;
+                    }
+                    if (end - start == B) {
+                        // 파일 끝, 남은 데이터는 OP_LITERAL
+                        break;
+                    }
+                    rc.roll(buf[start], buf[start + B]);
+                    start++;
+                    if (start - litStart >= LITERAL_MAX) {
+                        literal(buf, litStart, start);
+                        litStart = start;
+                    }
+                }
+            } finally {
+                in.close();
+            }
+            if (closed) {
+                return;
+            }
+            literal(buf, litStart, end);
+            flushCopy();
+            reserve(1 + 32);
+            frame[length++] = TransferProtocol.OP_END;
+            System.arraycopy(digest.digest(), 0, frame, length, 32);
+            length += 32;
+            sendFrame();
+            // 마지막 메세지 전송 완료 대기
+            window.acquire(WINDOW);
+            window.release(WINDOW);
+        }
+
+        /*
+         * weak checksum이 일치하는 block 중 MD5가 일치하는 block의 index를 반환한다.
+         */
+        private int match(int weak, MessageDigest md5, byte[] buf, int offset) {
+            if (!tags[tag(weak)]) {
+                return -1;
+            }
+            Integer first = weakIndex.get(weak);
+            if (first == null) {
+                return -1;
+            }
+            md5.update(buf, offset, blockSize);
+            byte[] strong = md5.digest();
+            // 연속된 block 참조를 만들기 위해 직전 block 다음 block을 먼저 확인
+            if (copyIndex >= 0) {
+                int next = copyIndex + copyCount;
+                if (next < count && weakOf(next) == weak && strongEquals(next, strong)) {
+                    return next;
+                }
+            }
+            for (int i = first; i >= 0; i = weakNext[i]) {
+                if (strongEquals(i, strong)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int weakOf(int index) {
+            return ByteBuffer.wrap(signature, TransferProtocol.SIGNATURE_HEADER_SIZE + index * TransferProtocol.SIGNATURE_ENTRY_SIZE, 4).getInt();
+        }
+
+        private boolean strongEquals(int index, byte[] strong) {
+            int offset = TransferProtocol.SIGNATURE_HEADER_SIZE + index * TransferProtocol.SIGNATURE_ENTRY_SIZE + 4;
+            for (int i = 0; i < 16; i++) {
+                if (signature[offset + i] != strong[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void copy(int index) throws InterruptedException {
+            if (copyIndex >= 0 && copyIndex + copyCount == index) {
+                copyCount++;
+                return;
+            }
+            flushCopy();
+            copyIndex = index;
+            copyCount = 1;
+        }
+
+        private void flushCopy() throws InterruptedException {
+            if (copyIndex < 0) {
+                return;
+            }
+            reserve(1 + 8);
+            frame[length] = TransferProtocol.OP_COPY;
+            ByteBuffer.wrap(frame, length + 1, 8).putInt(copyIndex).putInt(copyCount);
+            length += 1 + 8;
+            copyIndex = -1;
+            copyCount = 0;
+        }
+
+        private void literal(byte[] buf, int from, int to) throws InterruptedException {
+            if (to <= from) {
+                return;
+            }
+            flushCopy();
+            literal += to - from;
+            while (from < to) {
+                reserve(1 + 4 + 1);
+                int n = Math.min(to - from, FRAME_SIZE - length - 1 - 4);
+                frame[length] = TransferProtocol.OP_LITERAL;
+                ByteBuffer.wrap(frame, length + 1, 4).putInt(n);
+                System.arraycopy(buf, from, frame, length + 1 + 4, n);
+                length += 1 + 4 + n;
+                from += n;
+            }
+        }
+
+        /*
+         * 메세지에 size 만큼 공간이 없으면 지금까지의 메세지를 전송한다.
+         */
+        private void reserve(int size) throws InterruptedException {
+            if (length + size > FRAME_SIZE) {
+                sendFrame();
+            }
+        }
+
+        private void sendFrame() throws InterruptedException {
+            byte[] data = new byte[length];
+            TransferProtocol.writeKey(frame, key);
+            System.arraycopy(frame, 0, data, 0, length);
+            length = TransferProtocol.KEY_LENGTH;
+            window.acquire();
+            if (closed) {
+                window.release();
+                return;
+            }
+            scheduler.sendByte(DataSendScheduler.Priority.Bulk, data, TransferProtocol.MIME_DELTA, new PlayRTCSendDataObserver() {
+                @Override
+                public void onSending(PlayRTCData obj, String peerId, String peerUid, long id, long size, long send, long index, long count) {
+
+                }
+
+                @Override
+                public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                    window.release();
+                }
+
+                @Override
+                public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                    window.release();
+                    fail(Session.this, "[" + code + "] " + desc);
+                }
+            });
+        }
+    }
+
+    private final DataSendScheduler scheduler;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+    /*
+     * 생성자
+     * @param scheduler DataSendScheduler
+     * @param listener Listener
+     */
+    public DeltaFileSender(DataSendScheduler scheduler, Listener listener) {
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /*
+     * 파일의 차이 전송을 시작한다. 상대방은 같은 파일 명의 이전 파일을 기준으로 새 파일을 만든다.
+     * @param file File
+     * @return boolean, 데이터 채널이 연결 상태가 아니거나 이미 전송 중이면 false
+     */
+    public boolean send(File file) {
+        if (!scheduler.isOpen() || !file.isFile()) {
+            return false;
+        }
+        String key = TransferProtocol.makeKey(file.getAbsolutePath(), file.length(), file.lastModified());
+        if (sessions.putIfAbsent(key, new Session(key, file)) != null) {
+            return false;
+        }
+        scheduler.sendByte(DataSendScheduler.Priority.Control, TransferProtocol.encodeControl(TransferProtocol.CMD_DELTA, key,
+                String.valueOf(file.length()), file.getName()), TransferProtocol.MIME_CONTROL, SilentSendObserver.INSTANCE);
+        return true;
+    }
+
+    /*
+     * 수신 측 block signature(MIME_SIGNATURE) 처리, 차이 계산 Thread를 시작한다.
+     * @param peerId String, 수신 측 peer 아이디
+     * @param data byte[]
+     */
+    public void onSignature(String peerId, byte[] data) {
+        if (data.length < TransferProtocol.SIGNATURE_HEADER_SIZE) {
+            return;
+        }
+        Session session = sessions.get(TransferProtocol.readKey(data));
+        if (session == null || session.signature != null) {
+            return;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(data, TransferProtocol.KEY_LENGTH, 8);
+        int blockSize = bb.getInt();
+        int count = bb.getInt();
+        // block 크기는 버퍼 크기와 비교 단위가 되므로 수신 측이 선택하는 범위만 허용한다.
+        if (blockSize < DeltaFileReceiver.MIN_BLOCK_SIZE || blockSize > DeltaFileReceiver.MAX_BLOCK_SIZE
+                || count < 0 || count > DeltaFileReceiver.maxBlockCount(blockSize)
+                || data.length < TransferProtocol.SIGNATURE_HEADER_SIZE + (long) count * TransferProtocol.SIGNATURE_ENTRY_SIZE) {
+            fail(session, "invalid signature");
+            return;
+        }
+        session.peerId = peerId;
+        session.blockSize = blockSize;
+        session.count = count;
+        session.signature = data;
+        // weak checksum 별 block index 목록
+        session.weakIndex = new HashMap<Integer, Integer>(count * 2);
+        session.weakNext = new int[count];
+        for (int i = count - 1; i >= 0; i--) {
+            int weak = session.weakOf(i);
+            session.tags[tag(weak)] = true;
+            Integer prev = session.weakIndex.put(weak, i);
+            session.weakNext[i] = (prev != null) ? prev : -1;
+        }
+        if (listener != null) {
+            listener.onStart(session.file.getName(), count);
+        }
+        new Thread(session, "DeltaFileSender").start();
+    }
+
+    /*
+     * 진행 중인 전송을 모두 중단한다. 데이터 채널이 닫히면 호출
+     */
+    public void suspendAll() {
+        for (Session session : sessions.values()) {
+            fail(session, "suspended");
+        }
+    }
+
+    private void fail(Session session, String desc) {
+        if (session.closed) {
+            return;
+        }
+        session.closed = true;
+        sessions.remove(session.key, session);
+        // 전송 대기 중인 Thread를 깨운다.
+        session.window.release(WINDOW);
+        if (listener != null) {
+            listener.onError(session.peerId, session.file.getName(), desc);
+        }
+    }
+
+    private static int tag(int weak) {
+        return (weak ^ (weak >>> 16)) & 0xFFFF;
+    }
+
+    static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
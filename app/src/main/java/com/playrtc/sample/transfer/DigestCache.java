@@ -0,0 +1,123 @@
+package com.playrtc.sample.transfer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * 송신 측에서 전송한 파일의 Digest를 기억하는 Cache Class
+ * 전송 키(파일 경로, 크기, 수정 시각) 별로 전송 완료 시 계산한 SHA-256을 기록하여,
+ * 같은 파일을 다시 보낼 때 파일을 다시 읽지 않고 OFFER에 Digest를 실어 보낼 수 있게 한다.
+ * 최근 사용한 MAX_ENTRIES 건만 유지한다.
+ *
+ * 한 줄에 한 항목 : key \t sha256
+ */
+public class DigestCache {
+
+    public static final int MAX_ENTRIES = 256;
+
+    private final File file;
+    private final LinkedHashMap<String, String> entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /*
+     * 생성자, Cache 파일이 있으면 읽어 들인다.
+     * @param file File, Cache 파일
+     */
+    public DigestCache(File file) {
+        this.file = file;
+        load();
+    }
+
+    /*
+     * Digest를 반환한다.
+     * @param key String, 전송 키
+     * @return String, 없으면 null
+     */
+    public synchronized String get(String key) {
+        return entries.get(key);
+    }
+
+    /*
+     * Digest를 기록한다.
+     * @param key String, 전송 키
+     * @param digest String
+     */
+    public synchronized void put(String key, String digest) {
+        if (digest.equals(entries.put(key, digest))) {
+            return;
+        }
+        save();
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] v = line.split("\t", 2);
+                if (v.length == 2) {
+                    entries.put(v[0], v[1]);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /*
+     * 임시 파일에 기록한 후 rename
+     */
+    private void save() {
+        File tmp = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            FileOutputStream fos = new FileOutputStream(tmp);
+            writer = new OutputStreamWriter(fos, "UTF-8");
+            for (Map.Entry<String, String> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + "\t" + entry.getValue() + "\n");
+            }
+            writer.flush();
+            fos.getFD().sync();
+            writer.close();
+            writer = null;
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                tmp.renameTo(file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
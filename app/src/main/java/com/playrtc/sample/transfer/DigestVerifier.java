@@ -0,0 +1,116 @@
+package com.playrtc.sample.transfer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * PlayRTCData#sendFile로 수신한 파일의 Digest를 송신 측 Digest와 비교하는 Class
+ * 수신 완료(onMessage) 후 계산한 Digest와 송신 측이 전송 완료 후 보내는 DIGEST 제어 메세지는
+ * 어느 쪽이 먼저 도착할 지 알 수 없으므로, peer 아이디와 전송 고유 아이디 별로 먼저 도착한 값을 보관했다가 둘 다 모이면 비교한다.
+ * 전송 고유 아이디는 송신 측 마다 따로 발급되므로 여러 peer가 같은 아이디를 사용할 수 있다.
+ * 상대 측 메세지가 오지 않는 경우를 대비해 최근 MAX_PENDING 건만 보관한다.
+ */
+public class DigestVerifier {
+
+    /*
+     * 비교 결과를 전달 받기 위한 인터페이스
+     */
+    public interface Listener {
+        void onVerified(String peerId, long id, String name);
+
+        void onMismatch(String peerId, long id, String name, String expected, String actual);
+    }
+
+    public static final int MAX_PENDING = 32;
+
+    private static class Pending {
+        final String peerId;
+        final long id;
+        String name;
+        String expected;
+        String actual;
+
+        Pending(String peerId, long id) {
+            this.peerId = peerId;
+            this.id = id;
+        }
+    }
+
+    private final Listener listener;
+    private final LinkedHashMap<String, Pending> pending = new LinkedHashMap<String, Pending>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pending> eldest) {
+            return size() > MAX_PENDING;
+        }
+    };
+
+    public DigestVerifier(Listener listener) {
+        this.listener = listener;
+    }
+
+    /*
+     * 송신 측 Digest
+     * @param peerId String, 송신 측 peer 아이디
+     * @param id long, 전송 고유 아이디
+     * @param digest String
+     */
+    public void expect(String peerId, long id, String digest) {
+        String key = key(peerId, id);
+        Pending p;
+        synchronized (pending) {
+            p = get(key, peerId, id);
+            p.expected = digest;
+            if (p.actual == null) {
+                return;
+            }
+            pending.remove(key);
+        }
+        compare(p);
+    }
+
+    /*
+     * 수신 측에서 계산한 Digest
+     * @param peerId String, 송신 측 peer 아이디
+     * @param id long, 전송 고유 아이디
+     * @param name String, 파일 명
+     * @param digest String
+     */
+    public void computed(String peerId, long id, String name, String digest) {
+        String key = key(peerId, id);
+        Pending p;
+        synchronized (pending) {
+            p = get(key, peerId, id);
+            p.name = name;
+            p.actual = digest;
+            if (p.expected == null) {
+                return;
+            }
+            pending.remove(key);
+        }
+        compare(p);
+    }
+
+    private static String key(String peerId, long id) {
+        return peerId + ":" + id;
+    }
+
+    private Pending get(String key, String peerId, long id) {
+        Pending p = pending.get(key);
+        if (p == null) {
+            p = new Pending(peerId, id);
+            pending.put(key, p);
+        }
+        return p;
+    }
+
+    private void compare(Pending p) {
+        if (listener == null) {
+            return;
+        }
+        if (p.expected.equalsIgnoreCase(p.actual)) {
+            listener.onVerified(p.peerId, p.id, p.name);
+        } else {
+            listener.onMismatch(p.peerId, p.id, p.name, p.expected, p.actual);
+        }
+    }
+}
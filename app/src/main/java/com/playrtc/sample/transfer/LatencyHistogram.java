@@ -0,0 +1,145 @@
+package com.playrtc.sample.transfer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+ * 소요 시간(msec) 분포를 2의 거듭제곱 구간으로 기록하는 Histogram Class
+ * 구간 0은 1ms 미만, 구간 i는 [2^(i-1), 2^i) ms, 마지막 구간은 그 이상의 모든 값을 기록한다.
+ *
+ * 기록은 Lock 없이 Atomic 연산만 사용하므로 PlayRTCData 이벤트 Thread에서 바로 호출할 수 있다.
+ * 백분위 값은 구간의 상한으로 계산하므로 실제 값보다 최대 2배 클 수 있다.
+ */
+public class LatencyHistogram {
+
+    /*
+     * 구간 수, 마지막 구간의 하한은 2^(BUCKETS - 2) ms(약 262초)
+     */
+    public static final int BUCKETS = 20;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /*
+     * 소요 시간을 기록한다.
+     * @param elapsed long, msec
+     */
+    public void record(long elapsed) {
+        if (elapsed < 0L) {
+            elapsed = 0L;
+        }
+        buckets.incrementAndGet(bucketOf(elapsed));
+        count.incrementAndGet();
+        sum.addAndGet(elapsed);
+        long m = max.get();
+        while (elapsed > m && !max.compareAndSet(m, elapsed)) {
+            m = max.get();
+        }
+    }
+
+    /*
+     * 기록을 모두 지운다.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0L);
+        }
+        count.set(0L);
+        sum.set(0L);
+        max.set(0L);
+    }
+
+    /*
+     * 현재 기록의 복사본을 반환한다.
+     * @return Snapshot
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = buckets.get(i);
+        }
+        return new Snapshot(copy, count.get(), sum.get(), max.get());
+    }
+
+    static int bucketOf(long elapsed) {
+        int bucket = 64 - Long.numberOfLeadingZeros(elapsed);
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    /*
+     * 구간의 상한(msec), 마지막 구간은 Long.MAX_VALUE
+     * @param bucket int
+     * @return long
+     */
+    public static long upperBound(int bucket) {
+        return (bucket >= BUCKETS - 1) ? Long.MAX_VALUE : (1L << bucket);
+    }
+
+    /*
+     * LatencyHistogram의 특정 시점 복사본
+     * 기록 중에 복사하므로 구간 합과 count가 정확히 일치하지 않을 수 있다.
+     */
+    public static class Snapshot {
+        private final long[] buckets;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] buckets, long count, long sum, long max) {
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        /*
+         * 평균 소요 시간(msec)
+         * @return float
+         */
+        public float getMean() {
+            return (count > 0) ? (float) sum / (float) count : 0.0f;
+        }
+
+        /*
+         * 구간 별 기록 수
+         * @return long[], 복사본
+         */
+        public long[] getBuckets() {
+            return buckets.clone();
+        }
+
+        /*
+         * 백분위 소요 시간(msec), 해당 구간의 상한과 최대값 중 작은 값을 반환한다.
+         * @param percentile double, 0 ~ 100
+         * @return long, 기록이 없으면 0
+         */
+        public long getPercentile(double percentile) {
+            long total = 0L;
+            for (long n : buckets) {
+                total += n;
+            }
+            if (total == 0L) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0L;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.playrtc.sample.transfer;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/*
+ * FileChannel을 메모리 매핑(mmap)하여 읽는 InputStream Class
+ * PlayRTCData#sendFile(InputStream, String)은 InputStream만 전달 받으므로,
+ * 파일을 일정 크기(MAP_WINDOW)의 MappedByteBuffer 구간으로 나누어 매핑하고 read 요청 시 매핑 구간에서 바로 복사한다.
+ * - FileInputStream#read 처럼 read 호출 마다 system call 및 커널 버퍼 복사가 발생하지 않는다.
+ * - 매핑 구간 단위로 이동하므로 수백 MB 파일도 주소 공간을 한번에 점유하지 않는다.
+ *
+ * - public static MappedFileInputStream open(File file)
+ *   파일을 열어 MappedFileInputStream을 생성한다.
+ * - public long getPosition()
+ *   현재까지 읽은 위치(byte)를 반환한다.
+ * - public long getLength()
+ *   읽을 전체 크기(byte)를 반환한다.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    /*
+     * 한번에 매핑하는 구간의 크기, 8MB
+     */
+    public static final int MAP_WINDOW = 8 * 1024 * 1024;
+
+    /*
+     * 매핑 대상 FileChannel
+     */
+    private FileChannel channel = null;
+
+    /*
+     * FileChannel을 제공한 객체(FileInputStream, ParcelFileDescriptor 등)
+     * close 시 같이 닫는다.
+     */
+    private Closeable owner = null;
+
+    /*
+     * 현재 매핑된 구간
+     */
+    private MappedByteBuffer window = null;
+
+    /*
+     * 현재 매핑 구간의 시작 위치
+     */
+    private long windowStart = 0L;
+
+    /*
+     * 읽기 시작 위치
+     */
+    private final long start;
+
+    /*
+     * 읽을 마지막 위치 (exclusive)
+     */
+    private final long end;
+
+    /*
+     * 현재 읽기 위치
+     */
+    private long position = 0L;
+
+    /*
+     * 생성자
+     * @param channel FileChannel, 읽기 가능한 FileChannel
+     * @param owner Closeable, FileChannel을 제공한 객체, close 시 같이 닫는다. null 가능
+     * @param start long, 읽기 시작 위치
+     * @param length long, 읽을 크기
+     */
+    public MappedFileInputStream(FileChannel channel, Closeable owner, long start, long length) {
+        this.channel = channel;
+        this.owner = owner;
+        this.start = start;
+        this.end = start + length;
+        this.position = start;
+        this.windowStart = start;
+    }
+
+    /*
+     * 파일 전체를 읽는 MappedFileInputStream을 생성한다.
+     * @param file File
+     * @return MappedFileInputStream
+     * @throws IOException
+     */
+    public static MappedFileInputStream open(File file) throws IOException {
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            FileChannel fc = fis.getChannel();
+            return new MappedFileInputStream(fc, fis, 0L, fc.size());
+        } catch (IOException e) {
+            fis.close();
+            throw e;
+        }
+    }
+
+    /*
+     * 현재까지 읽은 크기를 반환한다.
+     * @return long
+     */
+    public long getPosition() {
+        return position - start;
+    }
+
+    /*
+     * 읽을 전체 크기를 반환한다.
+     * @return long
+     */
+    public long getLength() {
+        return end - start;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureWindow()) {
+            return -1;
+        }
+        position++;
+        return window.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!ensureWindow()) {
+            return -1;
+        }
+        int n = Math.min(len, window.remaining());
+        window.get(b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, end - position);
+        position += skipped;
+        // 현재 매핑 구간 안이면 위치만 이동, 벗어나면 다음 read에서 새로 매핑한다.
+        if (window != null && position < windowStart + window.limit()) {
+            window.position((int) (position - windowStart));
+        } else {
+            window = null;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, end - position);
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+        if (owner != null) {
+            owner.close();
+            owner = null;
+        }
+    }
+
+    /*
+     * 현재 위치를 포함하는 구간이 매핑되어 있는지 확인하고 필요 시 다음 구간을 매핑한다.
+     * @return boolean, 더 읽을 데이터가 없으면 false
+     */
+    private boolean ensureWindow() throws IOException {
+        if (channel == null) {
+            throw new IOException("stream closed");
+        }
+        if (position >= end) {
+            return false;
+        }
+        if (window == null || !window.hasRemaining()) {
+            long size = Math.min(MAP_WINDOW, end - position);
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            windowStart = position;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,270 @@
+package com.playrtc.sample.transfer;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 작은 메세지를 모아서 한번에 전송하는 Class
+ * 커서 위치, 채팅, 상태 정보 등 작은 메세지를 메세지 마다 PlayRTCData#sendText로 전송하면
+ * 메세지 마다 헤더와 전송 이벤트, PlayRTCSendDataObserver 생성 비용이 발생한다.
+ * MessageBatcher는 windowMs 동안 또는 maxBytes 까지 메세지를 하나의 버퍼에 모아 MIME_BATCH Binary 1건으로 전송하고,
+ * 수신 측은 unpack으로 원래 메세지 단위로 분리한다.
+ *
+ * 메세지 형식 : ([type byte][length int][data]) 반복
+ * - TYPE_TEXT : UTF-8 텍스트
+ * - TYPE_BINARY : Binary
+ *
+ * PayloadCompressor를 지정하면 압축 효과가 있는 묶음은 압축하여 MIME_PACKED로 전송한다.
+ *
+ * 묶음 전송 결과는 개별 메세지 단위로 알 수 없으므로 전송 결과 확인이 필요 없는 메세지에 사용한다.
+ */
+public class MessageBatcher {
+
+    /*
+     * 묶음 메세지를 분리하여 전달 받기 위한 인터페이스
+     */
+    public interface Receiver {
+        void onText(String text);
+
+        /*
+         * Binary 메세지, data는 묶음 메세지 버퍼이므로 필요하면 복사하여 사용한다.
+         */
+        void onBinary(byte[] data, int offset, int length);
+    }
+
+    public static final byte TYPE_TEXT = 0;
+    public static final byte TYPE_BINARY = 1;
+
+    /*
+     * 메세지 헤더 크기, type + length
+     */
+    public static final int HEADER_SIZE = 1 + 4;
+
+    /*
+     * 기본 묶음 대기 시간 20ms
+     */
+    public static final long DEFAULT_WINDOW_MS = 20L;
+
+    /*
+     * 기본 묶음 최대 크기 16KB
+     */
+    public static final int DEFAULT_MAX_BYTES = 16 * 1024;
+
+    /*
+     * 묶음 전송 타이머, 모든 MessageBatcher가 공유
+     */
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "MessageBatcher");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    private final DataSendScheduler scheduler;
+    private final long windowMs;
+    private final int maxBytes;
+    private volatile PayloadCompressor compressor = null;
+
+    /*
+     * 묶음 버퍼, 전송 후 재사용
+     */
+    private byte[] buffer;
+    private int length = 0;
+    private int messages = 0;
+    private boolean flushScheduled = false;
+
+    /*
+     * 묶음 꺼내기와 전송 요청 순서를 맞추기 위한 Lock
+     * 타이머 flush와 maxBytes flush가 동시에 실행되어도 먼저 꺼낸 묶음을 먼저 전송 요청한다.
+     */
+    private final Object sendLock = new Object();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (MessageBatcher.this) {
+                flushScheduled = false;
+            }
+            flush();
+        }
+    };
+
+    public MessageBatcher(DataSendScheduler scheduler) {
+        this(scheduler, DEFAULT_WINDOW_MS, DEFAULT_MAX_BYTES);
+    }
+
+    /*
+     * 생성자
+     * @param scheduler DataSendScheduler
+     * @param windowMs long, 첫 메세지 이후 묶음을 전송할 때까지 대기 시간
+     * @param maxBytes int, 묶음 최대 크기, 넘으면 바로 전송
+     */
+    public MessageBatcher(DataSendScheduler scheduler, long windowMs, int maxBytes) {
+        this.scheduler = scheduler;
+        this.windowMs = windowMs;
+        this.maxBytes = maxBytes;
+        this.buffer = new byte[maxBytes];
+    }
+
+    /*
+     * 묶음 압축에 사용할 PayloadCompressor를 지정한다.
+     * @param compressor PayloadCompressor, null이면 압축하지 않음
+     */
+    public void setCompressor(PayloadCompressor compressor) {
+        this.compressor = compressor;
+    }
+
+    /*
+     * 텍스트 메세지를 묶음에 추가한다.
+     * @param text String
+     */
+    public void sendText(String text) {
+        byte[] b = TransferProtocol.utf8(text);
+        append(TYPE_TEXT, b, 0, b.length);
+    }
+
+    /*
+     * Binary 메세지를 묶음에 추가한다. 데이터는 묶음 버퍼에 복사된다.
+     * @param data byte[]
+     */
+    public void sendByte(byte[] data) {
+        append(TYPE_BINARY, data, 0, data.length);
+    }
+
+    /*
+     * 묶음에 모인 메세지를 바로 전송한다.
+     * 묶음을 꺼내고 전송 요청할 때 까지 sendLock을 유지하여 묶음 순서대로 전송한다.
+     * 메세지 추가(append)는 sendLock을 사용하지 않으므로 압축 중에도 대기하지 않는다.
+     */
+    public void flush() {
+        synchronized (sendLock) {
+            byte[] frame;
+            synchronized (this) {
+                if (length == 0) {
+                    return;
+                }
+                // PlayRTCData는 byte[] 전체를 전송하므로 메세지 크기 만큼 복사
+                frame = new byte[length];
+                System.arraycopy(buffer, 0, frame, 0, length);
+                length = 0;
+                messages = 0;
+                if (buffer.length > maxBytes) {
+                    buffer = new byte[maxBytes];
+                }
+            }
+            PayloadCompressor c = compressor;
+            byte[] packed = (c != null) ? c.pack(PayloadCompressor.KIND_BATCH, frame) : null;
+            if (packed != null) {
+                scheduler.sendByte(DataSendScheduler.Priority.Interactive, packed, TransferProtocol.MIME_PACKED, SilentSendObserver.INSTANCE);
+            } else {
+                scheduler.sendByte(DataSendScheduler.Priority.Interactive, frame, TransferProtocol.MIME_BATCH, SilentSendObserver.INSTANCE);
+            }
+        }
+    }
+
+    /*
+     * 전송하지 않은 메세지를 버린다. 데이터 채널이 닫히면 호출
+     */
+    public synchronized void clear() {
+        length = 0;
+        messages = 0;
+    }
+
+    /*
+     * 대기 중인 메세지 수를 반환한다.
+     * @return int
+     */
+    public synchronized int getPending() {
+        return messages;
+    }
+
+    private void append(byte type, byte[] data, int offset, int len) {
+        int need = HEADER_SIZE + len;
+        boolean flushNow;
+        boolean schedule = false;
+        synchronized (this) {
+            flushNow = length > 0 && length + need > maxBytes;
+        }
+        if (flushNow) {
+            flush();
+        }
+        synchronized (this) {
+            ensureCapacity(length + need);
+            buffer[length] = type;
+            ByteBuffer.wrap(buffer, length + 1, 4).putInt(len);
+            System.arraycopy(data, offset, buffer, length + HEADER_SIZE, len);
+            length += need;
+            messages++;
+            flushNow = length >= maxBytes;
+            if (!flushNow && !flushScheduled) {
+                flushScheduled = true;
+                schedule = true;
+            }
+        }
+        if (flushNow) {
+            flush();
+        } else if (schedule) {
+            TIMER.schedule(flushTask, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /*
+     * maxBytes 보다 큰 메세지는 버퍼를 늘려 1건으로 전송한다.
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            byte[] b = new byte[capacity];
+            System.arraycopy(buffer, 0, b, 0, length);
+            buffer = b;
+        }
+    }
+
+    /*
+     * 묶음 메세지를 원래 메세지 단위로 분리한다.
+     * @param frame byte[], MIME_BATCH 메세지
+     * @param receiver Receiver
+     * @return int, 분리한 메세지 수, 형식이 잘못된 경우 그 전까지의 메세지 수
+     */
+    public static int unpack(byte[] frame, Receiver receiver) {
+        return unpack(frame, 0, frame.length, receiver);
+    }
+
+    /*
+     * 버퍼의 일부에 담긴 묶음 메세지를 분리한다. PayloadCompressor로 압축 해제한 묶음에 사용
+     * @param frame byte[]
+     * @param offset int
+     * @param length int
+     * @param receiver Receiver
+     * @return int, 분리한 메세지 수
+     */
+    public static int unpack(byte[] frame, int offset, int length, Receiver receiver) {
+        ByteBuffer bb = ByteBuffer.wrap(frame, offset, length);
+        int count = 0;
+        while (bb.remaining() >= HEADER_SIZE) {
+            byte type = bb.get();
+            int len = bb.getInt();
+            if (len < 0 || len > bb.remaining()) {
+                break;
+            }
+            int position = bb.position();
+            if (type == TYPE_TEXT) {
+                try {
+                    receiver.onText(new String(frame, position, len, "UTF-8"));
+                } catch (UnsupportedEncodingException e) {
+                    throw new IllegalStateException(e);
+                }
+            } else {
+                receiver.onBinary(frame, position, len);
+            }
+            bb.position(position + len);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,86 @@
+package com.playrtc.sample.transfer;
+
+/*
+ * 수신한 MessageSchema 형식 메세지의 필드 값을 읽는 flyweight Class
+ * 수신 데이터를 복사하지 않고 wrap한 byte[]에서 바로 읽으며, BinaryMessageCodec이 1개를 재사용한다.
+ * Receiver#onMessage 안에서만 유효하므로 값을 보관하려면 필요한 필드를 읽어서 보관해야 한다.
+ */
+public class MessageReader {
+
+    private MessageSchema schema = null;
+    private byte[] buffer = null;
+    private int base = 0;
+
+    /*
+     * 수신 데이터를 지정한다.
+     * @param schema MessageSchema
+     * @param buffer byte[]
+     * @param offset int, 메세지 시작 위치(schema id 포함)
+     * @return MessageReader
+     */
+    MessageReader wrap(MessageSchema schema, byte[] buffer, int offset) {
+        this.schema = schema;
+        this.buffer = buffer;
+        this.base = offset;
+        return this;
+    }
+
+    /*
+     * 읽기를 마치고 수신 데이터 참조를 해제한다.
+     */
+    void clear() {
+        this.schema = null;
+        this.buffer = null;
+    }
+
+    public MessageSchema getSchema() {
+        return schema;
+    }
+
+    public byte getByte(int field) {
+        return buffer[base + schema.offset(field, MessageSchema.Type.Byte)];
+    }
+
+    public short getShort(int field) {
+        return (short) MessageSchema.getShort(buffer, base + schema.offset(field, MessageSchema.Type.Short));
+    }
+
+    public int getInt(int field) {
+        return MessageSchema.getInt(buffer, base + schema.offset(field, MessageSchema.Type.Int));
+    }
+
+    public long getLong(int field) {
+        return MessageSchema.getLong(buffer, base + schema.offset(field, MessageSchema.Type.Long));
+    }
+
+    public float getFloat(int field) {
+        return Float.intBitsToFloat(MessageSchema.getInt(buffer, base + schema.offset(field, MessageSchema.Type.Float)));
+    }
+
+    public double getDouble(int field) {
+        return Double.longBitsToDouble(MessageSchema.getLong(buffer, base + schema.offset(field, MessageSchema.Type.Double)));
+    }
+
+    /*
+     * byte 배열 필드 길이
+     * @param field int
+     * @return int
+     */
+    public int getBytesLength(int field) {
+        return schema.length(field);
+    }
+
+    /*
+     * byte 배열 필드를 dest에 복사한다.
+     * @param field int
+     * @param dest byte[]
+     * @param offset int
+     * @return int, 복사한 길이
+     */
+    public int getBytes(int field, byte[] dest, int offset) {
+        int pos = schema.offset(field, MessageSchema.Type.Bytes);
+        int n = Math.min(schema.length(field), dest.length - offset);
+        System.arraycopy(buffer, base + pos, dest, offset, n);
+        return n;
+    }
+}
@@ -0,0 +1,241 @@
+package com.playrtc.sample.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/*
+ * 고정 길이 Binary 메세지의 필드 구성을 정의하는 Class
+ * 필드는 추가 순서대로 고정 offset에 big-endian으로 기록되며, 메세지 크기는 schema 마다 일정하다.
+ *
+ * 메세지 형식 : [schema id short][필드 1][필드 2]...
+ *
+ * 필드를 추가하면 필드 번호를 반환하며, MessageWriter/MessageReader는 필드 번호로 값을 읽고 쓴다.
+ * 필드는 메세지를 처음 만들거나 BinaryMessageCodec에 등록하기 전에 모두 추가해야 한다.
+ *
+ *   static final MessageSchema STATS = new MessageSchema(1, "stats");
+ *   static final int STATS_TIME = STATS.addLong("time");
+ *   static final int STATS_RTT = STATS.addInt("rtt");
+ *
+ * 송신용 MessageWriter는 schema 별 Pool에서 재사용하므로 메세지를 반복해서 보내도 새 버퍼를 만들지 않는다.
+ */
+public class MessageSchema {
+
+    /*
+     * 필드 타입
+     */
+    public enum Type {
+        Byte(1),
+        Short(2),
+        Int(4),
+        Long(8),
+        Float(4),
+        Double(8),
+        Bytes(0);
+
+        final int size;
+
+        Type(int size) {
+            this.size = size;
+        }
+    }
+
+    /*
+     * schema id 크기
+     */
+    public static final int HEADER_SIZE = 2;
+
+    /*
+     * schema 별 Pool에 유지하는 MessageWriter 최대 수
+     */
+    public static final int DEFAULT_POOL_SIZE = 16;
+
+    private final int id;
+    private final String name;
+    private final List<String> names = new ArrayList<String>();
+    private final List<Type> typeList = new ArrayList<Type>();
+    private int[] offsets = new int[8];
+    private int[] lengths = new int[8];
+    private Type[] types = null;
+    private int size = HEADER_SIZE;
+    private volatile boolean frozen = false;
+    private ArrayBlockingQueue<MessageWriter> pool = null;
+
+    /*
+     * 생성자
+     * @param id int, schema id 0 ~ 65535, 수신 측에서 schema를 구분한다.
+     * @param name String, 로그 출력용 이름
+     */
+    public MessageSchema(int id, String name) {
+        if (id < 0 || id > 0xFFFF) {
+            throw new IllegalArgumentException("schema id " + id);
+        }
+        this.id = id;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /*
+     * 메세지 전체 크기(byte)
+     * @return int
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public int getFieldCount() {
+        return names.size();
+    }
+
+    public String getFieldName(int field) {
+        return names.get(field);
+    }
+
+    public int addByte(String name) {
+        return add(name, Type.Byte, Type.Byte.size);
+    }
+
+    public int addShort(String name) {
+        return add(name, Type.Short, Type.Short.size);
+    }
+
+    public int addInt(String name) {
+        return add(name, Type.Int, Type.Int.size);
+    }
+
+    public int addLong(String name) {
+        return add(name, Type.Long, Type.Long.size);
+    }
+
+    public int addFloat(String name) {
+        return add(name, Type.Float, Type.Float.size);
+    }
+
+    public int addDouble(String name) {
+        return add(name, Type.Double, Type.Double.size);
+    }
+
+    /*
+     * 고정 길이 byte 배열 필드를 추가한다. 짧은 아이디, 문자열 등에 사용
+     * @param name String
+     * @param length int, 필드 길이
+     * @return int, 필드 번호
+     */
+    public int addBytes(String name, int length) {
+        if (length <= 0) {
+            throw new IllegalArgumentException("length " + length);
+        }
+        return add(name, Type.Bytes, length);
+    }
+
+    private synchronized int add(String name, Type type, int length) {
+        if (frozen) {
+            throw new IllegalStateException("schema " + this.name + " is already in use");
+        }
+        int field = names.size();
+        if (field == offsets.length) {
+            int[] o = new int[field * 2];
+            int[] l = new int[field * 2];
+            System.arraycopy(offsets, 0, o, 0, field);
+            System.arraycopy(lengths, 0, l, 0, field);
+            offsets = o;
+            lengths = l;
+        }
+        names.add(name);
+        typeList.add(type);
+        offsets[field] = size;
+        lengths[field] = length;
+        size += length;
+        return field;
+    }
+
+    /*
+     * 필드 추가를 마치고 Pool을 준비한다. 처음 메세지를 만들거나 등록할 때 호출된다.
+     */
+    synchronized void freeze() {
+        if (frozen) {
+            return;
+        }
+        types = typeList.toArray(new Type[typeList.size()]);
+        pool = new ArrayBlockingQueue<MessageWriter>(DEFAULT_POOL_SIZE);
+        frozen = true;
+    }
+
+    /*
+     * 송신용 MessageWriter를 가져온다. Pool에 없으면 새로 만든다.
+     * 값을 기록한 후 전송하면 전송 완료 시 Pool로 반환된다.
+     * @return MessageWriter, 필드 값은 이전 메세지의 값이 남아 있을 수 있으므로 모든 필드를 기록해야 한다.
+     */
+    public MessageWriter obtain() {
+        if (!frozen) {
+            freeze();
+        }
+        MessageWriter writer = pool.poll();
+        if (writer == null) {
+            writer = new MessageWriter(this);
+        }
+        writer.recycled = false;
+        return writer;
+    }
+
+    /*
+     * MessageWriter를 Pool에 반환한다. Pool이 가득 차면 버린다.
+     * @param writer MessageWriter
+     */
+    void recycle(MessageWriter writer) {
+        pool.offer(writer);
+    }
+
+    /*
+     * 필드 offset, 타입 확인
+     */
+    int offset(int field, Type type) {
+        if (types[field] != type) {
+            throw new IllegalArgumentException("field " + names.get(field) + " is " + types[field] + ", not " + type);
+        }
+        return offsets[field];
+    }
+
+    int length(int field) {
+        return lengths[field];
+    }
+
+    /*
+     * big-endian 기록/읽기, ByteBuffer를 만들지 않기 위해 직접 처리한다.
+     */
+    static void putShort(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 8);
+        b[off + 1] = (byte) v;
+    }
+
+    static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24);
+        b[off + 1] = (byte) (v >>> 16);
+        b[off + 2] = (byte) (v >>> 8);
+        b[off + 3] = (byte) v;
+    }
+
+    static void putLong(byte[] b, int off, long v) {
+        putInt(b, off, (int) (v >>> 32));
+        putInt(b, off + 4, (int) v);
+    }
+
+    static int getShort(byte[] b, int off) {
+        return ((b[off] & 0xFF) << 8) | (b[off + 1] & 0xFF);
+    }
+
+    static int getInt(byte[] b, int off) {
+        return ((b[off] & 0xFF) << 24) | ((b[off + 1] & 0xFF) << 16) | ((b[off + 2] & 0xFF) << 8) | (b[off + 3] & 0xFF);
+    }
+
+    static long getLong(byte[] b, int off) {
+        return ((long) getInt(b, off) << 32) | (getInt(b, off + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,110 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+
+/*
+ * MessageSchema 형식의 메세지를 기록하는 Class
+ * MessageSchema#obtain으로 가져와서 필드 값을 기록하고 BinaryMessageCodec#send로 전송한다.
+ *
+ * 메세지 버퍼는 schema 크기와 같은 byte[]이며 PlayRTCData#sendByte에 그대로 전달하므로 복사하지 않는다.
+ * 전송 결과 Observer를 겸하여 onSuccess/onError에서 MessageSchema Pool로 반환되므로,
+ * 전송 후에는 MessageWriter를 더 이상 사용하면 안된다.
+ */
+public class MessageWriter extends SilentSendObserver {
+
+    private final MessageSchema schema;
+    private final byte[] buffer;
+
+    /*
+     * Pool 반환 여부, 중복 반환 방지
+     */
+    volatile boolean recycled = false;
+
+    MessageWriter(MessageSchema schema) {
+        this.schema = schema;
+        this.buffer = new byte[schema.getSize()];
+        MessageSchema.putShort(buffer, 0, schema.getId());
+    }
+
+    public MessageSchema getSchema() {
+        return schema;
+    }
+
+    /*
+     * 메세지 버퍼, 전송 전에만 유효하다.
+     * @return byte[]
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    public MessageWriter setByte(int field, byte value) {
+        buffer[schema.offset(field, MessageSchema.Type.Byte)] = value;
+        return this;
+    }
+
+    public MessageWriter setShort(int field, short value) {
+        MessageSchema.putShort(buffer, schema.offset(field, MessageSchema.Type.Short), value);
+        return this;
+    }
+
+    public MessageWriter setInt(int field, int value) {
+        MessageSchema.putInt(buffer, schema.offset(field, MessageSchema.Type.Int), value);
+        return this;
+    }
+
+    public MessageWriter setLong(int field, long value) {
+        MessageSchema.putLong(buffer, schema.offset(field, MessageSchema.Type.Long), value);
+        return this;
+    }
+
+    public MessageWriter setFloat(int field, float value) {
+        MessageSchema.putInt(buffer, schema.offset(field, MessageSchema.Type.Float), Float.floatToRawIntBits(value));
+        return this;
+    }
+
+    public MessageWriter setDouble(int field, double value) {
+        MessageSchema.putLong(buffer, schema.offset(field, MessageSchema.Type.Double), Double.doubleToRawLongBits(value));
+        return this;
+    }
+
+    /*
+     * byte 배열 필드를 기록한다. 필드 길이보다 짧으면 나머지는 0으로 채우고, 길면 필드 길이 만큼만 기록한다.
+     * @param field int
+     * @param value byte[]
+     * @param offset int
+     * @param length int
+     * @return MessageWriter
+     */
+    public MessageWriter setBytes(int field, byte[] value, int offset, int length) {
+        int pos = schema.offset(field, MessageSchema.Type.Bytes);
+        int max = schema.length(field);
+        int n = Math.min(length, max);
+        System.arraycopy(value, offset, buffer, pos, n);
+        for (int i = n; i < max; i++) {
+            buffer[pos + i] = 0;
+        }
+        return this;
+    }
+
+    /*
+     * 전송하지 않고 Pool로 반환한다.
+     */
+    public void recycle() {
+        if (!recycled) {
+            recycled = true;
+            schema.recycle(this);
+        }
+    }
+
+    @Override
+    public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+        recycle();
+    }
+
+    @Override
+    public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+        recycle();
+    }
+}
@@ -0,0 +1,253 @@
+package com.playrtc.sample.transfer;
+
+import java.nio.ByteBuffer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/*
+ * 데이터 채널 메세지 압축 Class
+ * 메세지 마다 크기와 압축률 추정 값으로 압축 여부를 결정하고, 압축한 메세지는 MIME_PACKED Binary로 전송한다.
+ * 압축 효과가 없는 메세지는 pack이 null을 반환하므로 원래 방식 그대로 전송한다.
+ *
+ * 압축 여부 결정
+ * - MIN_SIZE 보다 작은 메세지는 압축하지 않는다.
+ * - JPEG, PNG, GIF, MP4, ZIP/GZIP 등 이미 압축된 형식은 파일 헤더(magic number)로 판단하여 압축하지 않는다.
+ * - SAMPLE_SIZE 보다 큰 메세지는 앞부분 SAMPLE_SIZE만 먼저 압축하여 압축률이 MAX_RATIO 보다 나쁘면 압축하지 않는다.
+ * - 압축 결과가 MAX_RATIO 보다 나쁘면 원래 메세지를 전송한다.
+ *
+ * 메세지 형식 : [codec byte][kind byte][원래 크기 int][압축 데이터]
+ * - codec : CODEC_DEFLATE
+ * - kind : KIND_TEXT, KIND_BINARY, KIND_BATCH, 압축 해제 후 처리 방법
+ *
+ * 수신 측은 unpack으로 압축을 해제하며, 압축 해제 버퍼는 Pool에서 재사용한다.
+ */
+public class PayloadCompressor {
+
+    /*
+     * 압축 해제한 메세지를 전달 받기 위한 인터페이스
+     */
+    public interface Receiver {
+        /*
+         * 압축 해제 데이터, data는 Pool 버퍼이므로 호출 후에는 사용할 수 없다.
+         */
+        void onPayload(int kind, byte[] data, int offset, int length);
+    }
+
+    public static final byte CODEC_DEFLATE = 1;
+
+    public static final byte KIND_TEXT = 0;
+    public static final byte KIND_BINARY = 1;
+    public static final byte KIND_BATCH = 2;
+
+    /*
+     * 메세지 헤더 크기, codec + kind + 원래 크기
+     */
+    public static final int HEADER_SIZE = 1 + 1 + 4;
+
+    /*
+     * 압축 최소 크기 256byte
+     */
+    public static final int MIN_SIZE = 256;
+
+    /*
+     * 압축률 추정 Sample 크기 4KB
+     */
+    public static final int SAMPLE_SIZE = 4 * 1024;
+
+    /*
+     * 압축 크기 / 원래 크기가 이 값 보다 크면 압축하지 않는다.
+     */
+    public static final float MAX_RATIO = 0.9f;
+
+    /*
+     * 압축 해제 버퍼 크기 64KB, 이 보다 큰 메세지는 버퍼를 새로 할당한다.
+     */
+    public static final int POOL_BUFFER_SIZE = 64 * 1024;
+
+    /*
+     * 압축 해제 최대 크기 64MB, 잘못된 헤더로 큰 버퍼를 할당하지 않도록 제한
+     */
+    public static final int MAX_SIZE = 64 * 1024 * 1024;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private final ChunkBufferPool pool = new ChunkBufferPool(POOL_BUFFER_SIZE, 4);
+
+    /*
+     * 압축 출력 버퍼, 압축 후 메세지 크기 만큼 복사하고 재사용
+     */
+    private byte[] scratch = new byte[POOL_BUFFER_SIZE];
+
+    /*
+     * 메세지를 압축한다.
+     * @param kind byte, KIND_TEXT, KIND_BINARY, KIND_BATCH
+     * @param data byte[]
+     * @return byte[], MIME_PACKED 메세지, 압축하지 않는 경우 null
+     */
+    public byte[] pack(byte kind, byte[] data) {
+        if (data.length < MIN_SIZE || isCompressedFormat(data)) {
+            return null;
+        }
+        synchronized (deflater) {
+            if (data.length > SAMPLE_SIZE) {
+                int sample = deflate(data, 0, SAMPLE_SIZE);
+                if (sample < 0 || sample > SAMPLE_SIZE * MAX_RATIO) {
+                    return null;
+                }
+            }
+            int limit = (int) (data.length * MAX_RATIO);
+            int size = deflate(data, 0, data.length);
+            if (size < 0 || size > limit) {
+                return null;
+            }
+            byte[] frame = new byte[HEADER_SIZE + size];
+            ByteBuffer bb = ByteBuffer.wrap(frame);
+            bb.put(CODEC_DEFLATE);
+            bb.put(kind);
+            bb.putInt(data.length);
+            bb.put(scratch, 0, size);
+            return frame;
+        }
+    }
+
+    /*
+     * 텍스트 메세지를 UTF-8로 압축한다.
+     * @param text String
+     * @return byte[], MIME_PACKED 메세지, 압축하지 않는 경우 null
+     */
+    public byte[] packText(String text) {
+        // UTF-8은 문자 당 최대 3byte
+        if (text.length() * 3 < MIN_SIZE) {
+            return null;
+        }
+        return pack(KIND_TEXT, TransferProtocol.utf8(text));
+    }
+
+    /*
+     * 압축을 해제하여 Receiver로 전달한다.
+     * @param frame byte[], MIME_PACKED 메세지
+     * @param receiver Receiver
+     * @return boolean, 형식이 잘못되었거나 압축 해제 실패 시 false
+     */
+    public boolean unpack(byte[] frame, Receiver receiver) {
+        if (frame.length < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer bb = ByteBuffer.wrap(frame);
+        byte codec = bb.get();
+        byte kind = bb.get();
+        int size = bb.getInt();
+        if (codec != CODEC_DEFLATE || size < 0 || size > MAX_SIZE) {
+            return false;
+        }
+        byte[] buf = (size <= POOL_BUFFER_SIZE) ? pool.tryAcquire() : null;
+        if (buf == null) {
+            buf = new byte[size];
+        }
+        try {
+            synchronized (inflater) {
+                inflater.reset();
+                inflater.setInput(frame, HEADER_SIZE, frame.length - HEADER_SIZE);
+                int n = 0;
+                while (n < size && !inflater.finished()) {
+                    int r = inflater.inflate(buf, n, size - n);
+                    if (r == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    n += r;
+                }
+                if (n != size) {
+                    return false;
+                }
+            }
+            receiver.onPayload(kind, buf, 0, size);
+            return true;
+        } catch (DataFormatException e) {
+            return false;
+        } finally {
+            pool.release(buf);
+        }
+    }
+
+    /*
+     * deflater로 data를 scratch에 압축한다. deflater lock 안에서 호출
+     * @return int, 압축 크기, 원래 크기의 MAX_RATIO를 넘으면 중간에 멈추고 -1
+     */
+    private int deflate(byte[] data, int offset, int length) {
+        int limit = (int) (length * MAX_RATIO) + 1;
+        if (scratch.length < limit) {
+            scratch = new byte[limit];
+        }
+        deflater.reset();
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        int n = 0;
+        while (!deflater.finished()) {
+            if (n >= limit) {
+                return -1;
+            }
+            n += deflater.deflate(scratch, n, limit - n);
+        }
+        return n;
+    }
+
+    /*
+     * 이미 압축된 형식인지 파일 헤더로 검사한다.
+     * @param d byte[]
+     * @return boolean
+     */
+    public static boolean isCompressedFormat(byte[] d) {
+        if (d.length < 12) {
+            return false;
+        }
+        int b0 = d[0] & 0xFF, b1 = d[1] & 0xFF, b2 = d[2] & 0xFF, b3 = d[3] & 0xFF;
+        // JPEG
+        if (b0 == 0xFF && b1 == 0xD8 && b2 == 0xFF) {
+            return true;
+        }
+        // PNG
+        if (b0 == 0x89 && b1 == 'P' && b2 == 'N' && b3 == 'G') {
+            return true;
+        }
+        // GIF
+        if (b0 == 'G' && b1 == 'I' && b2 == 'F' && b3 == '8') {
+            return true;
+        }
+        // ZIP, APK, DOCX 등
+        if (b0 == 'P' && b1 == 'K' && b2 == 3 && b3 == 4) {
+            return true;
+        }
+        // GZIP
+        if (b0 == 0x1F && b1 == 0x8B) {
+            return true;
+        }
+        // 7z
+        if (b0 == '7' && b1 == 'z' && b2 == 0xBC && b3 == 0xAF) {
+            return true;
+        }
+        // RAR
+        if (b0 == 'R' && b1 == 'a' && b2 == 'r' && b3 == '!') {
+            return true;
+        }
+        // MP3(ID3), MPEG Audio
+        if ((b0 == 'I' && b1 == 'D' && b2 == '3') || (b0 == 0xFF && (b1 & 0xE0) == 0xE0)) {
+            return true;
+        }
+        // OGG
+        if (b0 == 'O' && b1 == 'g' && b2 == 'g' && b3 == 'S') {
+            return true;
+        }
+        // MP4, 3GP, MOV, HEIF (ftyp box)
+        if (d[4] == 'f' && d[5] == 't' && d[6] == 'y' && d[7] == 'p') {
+            return true;
+        }
+        // WebP, AVI 등 RIFF 컨테이너
+        if (b0 == 'R' && b1 == 'I' && b2 == 'F' && b3 == 'F'
+                && ((d[8] == 'W' && d[9] == 'E' && d[10] == 'B' && d[11] == 'P') || (d[8] == 'A' && d[9] == 'V' && d[10] == 'I'))) {
+            return true;
+        }
+        // Matroska, WebM
+        return b0 == 0x1A && b1 == 0x45 && b2 == 0xDF && b3 == 0xA3;
+    }
+}
@@ -0,0 +1,240 @@
+package com.playrtc.sample.transfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 송/수신 진행 정보를 모아서 일정 주기로 전달하는 Class
+ * PlayRTCData의 onSending/onProgress는 분할 데이터 마다 호출되므로, 매번 문자열을 만들고 화면에 출력하면
+ * 큰 파일 전송 시 초당 수천 번의 UI 갱신이 발생하여 전송 자체가 느려진다.
+ *
+ * 데이터 이벤트 Thread는 Progress#update로 숫자 필드만 기록하고,
+ * 별도 Thread가 interval(기본 100ms, 10Hz) 마다 변경된 Progress만 Listener로 전달한다.
+ * Progress#close 시에는 주기를 기다리지 않고 바로 완료를 전달한다.
+ * 진행 중인 Progress가 없으면 주기 전달을 멈추고, 다음 open 시 다시 시작한다.
+ *
+ * - public Progress open(DataTransfer.Direction direction, String label)
+ *   진행 정보를 등록한다.
+ * - public void shutdown()
+ *   전달 Thread를 종료한다.
+ */
+public class ProgressAggregator {
+
+    /*
+     * 기본 전달 주기 100ms
+     */
+    public static final long DEFAULT_INTERVAL_MS = 100L;
+
+    /*
+     * 진행 정보를 전달 받기 위한 인터페이스, 전달 Thread에서 호출된다.
+     */
+    public interface Listener {
+        void onProgress(Progress progress);
+
+        void onComplete(Progress progress);
+    }
+
+    /*
+     * 송/수신 1건의 진행 정보
+     * update는 한 Thread(데이터 이벤트 Thread)에서만 호출한다.
+     */
+    public static class Progress {
+        private final DataTransfer.Direction direction;
+        private final String label;
+        private volatile long done = 0L;
+        private volatile long total = 0L;
+        private volatile long index = 0L;
+        private volatile long count = 0L;
+        private volatile int updates = 0;
+        private volatile boolean closed = false;
+        private volatile boolean success = false;
+
+        /*
+         * 전달 Thread에서만 사용, 마지막으로 전달한 updates
+         */
+        private int published = 0;
+
+        Progress(DataTransfer.Direction direction, String label) {
+            this.direction = direction;
+            this.label = label;
+        }
+
+        /*
+         * 진행 정보를 기록한다.
+         * @param done long, 누적 처리 크기
+         * @param total long, 전체 크기
+         * @param index long, 분할 데이터 index
+         * @param count long, 전체 분할 데이터 수
+         */
+        public void update(long done, long total, long index, long count) {
+            this.done = done;
+            this.total = total;
+            this.index = index;
+            this.count = count;
+            this.updates++;
+        }
+
+        public DataTransfer.Direction getDirection() {
+            return direction;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public long getDone() {
+            return done;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public long getIndex() {
+            return index;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /*
+         * 진행률 0 ~ 100
+         * @return float
+         */
+        public float getPercent() {
+            long t = total;
+            return (t > 0) ? ((float) done / (float) t) * 100.0f : 0.0f;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+    }
+
+    private final long intervalMs;
+    private final Listener listener;
+    private final CopyOnWriteArrayList<Progress> active = new CopyOnWriteArrayList<Progress>();
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ProgressAggregator");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+    private ScheduledFuture<?> ticker = null;
+
+    private final Runnable publishTask = new Runnable() {
+        @Override
+        public void run() {
+            publish();
+        }
+    };
+
+    public ProgressAggregator(Listener listener) {
+        this(DEFAULT_INTERVAL_MS, listener);
+    }
+
+    /*
+     * 생성자
+     * @param intervalMs long, 전달 주기
+     * @param listener Listener
+     */
+    public ProgressAggregator(long intervalMs, Listener listener) {
+        this.intervalMs = intervalMs;
+        this.listener = listener;
+    }
+
+    /*
+     * 진행 정보를 등록한다. 주기 전달이 멈춰 있으면 시작한다.
+     * @param direction DataTransfer.Direction
+     * @param label String, 출력 구분 문자열
+     * @return Progress
+     */
+    public Progress open(DataTransfer.Direction direction, String label) {
+        Progress progress = new Progress(direction, label);
+        if (executor.isShutdown()) {
+            return progress;
+        }
+        active.add(progress);
+        synchronized (this) {
+            if (ticker == null) {
+                ticker = executor.scheduleAtFixedRate(publishTask, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return progress;
+    }
+
+    /*
+     * 진행을 완료하고 바로 완료를 전달한다.
+     * @param progress Progress
+     * @param success boolean, 성공 여부
+     */
+    public void close(Progress progress, boolean success) {
+        if (progress.closed) {
+            return;
+        }
+        progress.success = success;
+        progress.closed = true;
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(publishTask);
+    }
+
+    /*
+     * 진행 중인 목록을 반환한다.
+     * @return List<Progress>
+     */
+    public List<Progress> getActive() {
+        return new ArrayList<Progress>(active);
+    }
+
+    /*
+     * 전달 Thread를 종료한다. 이후 전달되지 않는다.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        active.clear();
+    }
+
+    /*
+     * 변경된 Progress를 전달한다. 전달 Thread에서만 호출
+     * 진행 중인 Progress가 없으면 주기 전달을 취소한다.
+     */
+    private void publish() {
+        for (Progress progress : active) {
+            if (progress.closed) {
+                active.remove(progress);
+                if (listener != null) {
+                    listener.onComplete(progress);
+                }
+                continue;
+            }
+            int updates = progress.updates;
+            if (updates != progress.published) {
+                progress.published = updates;
+                if (listener != null) {
+                    listener.onProgress(progress);
+                }
+            }
+        }
+        synchronized (this) {
+            if (active.isEmpty() && ticker != null) {
+                ticker.cancel(false);
+                ticker = null;
+            }
+        }
+    }
+}
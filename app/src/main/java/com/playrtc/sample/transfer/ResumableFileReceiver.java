@@ -0,0 +1,406 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/*
+ * ResumableFileSender가 전송하는 분할 파일을 수신하는 Class
+ * 분할 데이터는 도착하는 대로 StreamingFileSink로 "key.part" 임시 파일에 기록하며,
+ * 임시 파일은 전송이 중단되어도 삭제하지 않는다. 같은 전송 키로 OFFER를 다시 받으면
+ * 임시 파일에 저장된 분할 데이터 다음 index를 RESUME으로 응답하여 송신 측이 나머지만 전송하도록 한다.
+ * 모든 분할 데이터를 기록하고 송신 측 DIGEST와 수신 데이터의 Digest가 일치하면 임시 파일을 원래 파일 명으로 변경한다.
+ * Digest는 분할 데이터를 기록할 때 함께 계산하며, 이어 받는 경우 임시 파일에 저장된 앞부분만 읽어 반영한다.
+ * Digest가 일치하지 않으면 임시 파일을 삭제하고 Listener#onError로 전달한다.
+ *
+ * ContentStore를 지정하면 검증된 수신 파일을 Store에 추가하고, OFFER의 Digest와 같은 내용이 Store에 있으면
+ * Store의 파일을 임시 파일로 복사하여 모든 분할 데이터를 가지고 있다고 응답하므로 파일 데이터를 다시 받지 않는다.
+ *
+ * OFFER 처리(Store 복사, 저장된 앞부분 Digest 계산, 이전 Writer 대기)는 파일 크기 만큼 시간이 걸릴 수 있으므로
+ * 데이터 수신 이벤트 Thread가 아닌 별도 Thread에서 처리한다. 송신 측은 RESUME을 받은 후 분할 데이터를 전송한다.
+ */
+public class ResumableFileReceiver {
+
+    /*
+     * 분할 수신 완료/오류를 전달 받기 위한 인터페이스
+     * 시작은 OFFER 처리 Thread, 완료/오류는 StreamingFileSink의 Writer Thread에서 호출된다.
+     */
+    public interface Listener {
+        /*
+         * 수신 시작, 이미 저장되어 있어 건너뛴 분할 데이터 수를 전달
+         */
+        void onStart(String name, int skipped, int count);
+
+        /*
+         * 수신 완료, 이번 연결에서 수신한 파일 데이터 크기를 전달
+         * Store에서 복사하거나 이어 받아 건너뛴 부분은 포함하지 않는다.
+         */
+        void onComplete(String peerId, String name, File file, long bytes, long elapsed);
+
+        /*
+         * 수신 실패, 임시 파일은 남아 이후 이어 받기 가능
+         */
+        void onError(String peerId, String name, String desc);
+    }
+
+    /*
+     * 수신 1건의 상태
+     */
+    private static class Session {
+        final String key;
+        final String peerId;
+        final String name;
+        final File part;
+        final int count;
+        final MessageDigest digest = TransferDigest.create();
+        final long startTime = System.currentTimeMillis();
+        StreamingFileSink sink = null;
+        int expected;
+        volatile long received = 0L;
+
+        /*
+         * 모든 분할 데이터 기록 완료 여부와 수신/송신 측 Digest, 둘 다 모이면 완료 처리
+         */
+        boolean written = false;
+        String actual = null;
+        String remote = null;
+        boolean finished = false;
+
+        Session(String key, String peerId, String name, File part, int count, int expected) {
+            this.key = key;
+            this.peerId = peerId;
+            this.name = name;
+            this.part = part;
+            this.count = count;
+            this.expected = expected;
+        }
+    }
+
+    private final File dir;
+    private final Listener listener;
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+
+    /*
+     * 전송 키 별 마지막 StreamingFileSink, Writer Thread가 끝나면 삭제한다.
+     * 같은 키로 OFFER를 다시 받으면 이전 Writer가 임시 파일 기록을 마칠 때 까지 대기한다.
+     */
+    private final ConcurrentHashMap<String, StreamingFileSink> writers = new ConcurrentHashMap<String, StreamingFileSink>();
+    private final DataSendScheduler scheduler;
+    private volatile ContentStore contentStore = null;
+
+    /*
+     * OFFER 처리 Thread, 수신 순서대로 처리한다.
+     */
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "ResumableReceiver");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /*
+     * 생성자
+     * @param dir File, 수신 파일 저장 폴더
+     * @param scheduler DataSendScheduler, 제어 메세지 전송
+     * @param listener Listener
+     */
+    public ResumableFileReceiver(File dir, DataSendScheduler scheduler, Listener listener) {
+        this.dir = dir;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /*
+     * 수신 파일을 Digest로 저장할 ContentStore를 지정한다.
+     * @param contentStore ContentStore, null이면 사용하지 않음
+     */
+    public void setContentStore(ContentStore contentStore) {
+        this.contentStore = contentStore;
+    }
+
+    /*
+     * 송신 측 제어 메세지(OFFER, DIGEST) 처리
+     * @param peerId String, 송신 측 peer 아이디
+     * @param args String[], TransferProtocol#decodeControl 결과
+     */
+    public void onControl(final String peerId, String[] args) {
+        if (args.length >= 3 && TransferProtocol.CMD_DIGEST.equals(args[0])) {
+            Session session = sessions.get(args[1]);
+            if (session != null) {
+                synchronized (session) {
+                    session.remote = args[2];
+                }
+                tryFinish(session);
+            }
+            return;
+        }
+        if (args.length < 6 || !TransferProtocol.CMD_OFFER.equals(args[0])) {
+            return;
+        }
+        final String key = args[1];
+        final String digest = ContentStore.isDigest(args[4]) ? args[4] : null;
+        final String name = new File(args[5]).getName();
+        // 키는 임시 파일 명으로 사용하므로 형식이 다르면 파일에 접근하기 전에 거부
+        if (!TransferProtocol.isKey(key)) {
+            reject(peerId, name, "invalid key");
+            return;
+        }
+        final long size;
+        final int chunkSize;
+        try {
+            size = Long.parseLong(args[2]);
+            chunkSize = Integer.parseInt(args[3]);
+        } catch (NumberFormatException e) {
+            reject(peerId, name, "invalid offer " + args[2] + " " + args[3]);
+            return;
+        }
+        if (size < 0 || chunkSize <= 0) {
+            reject(peerId, name, "invalid offer " + size + " " + chunkSize);
+            return;
+        }
+        long chunks = size / chunkSize + ((size % chunkSize != 0) ? 1 : 0);
+        if (chunks > Integer.MAX_VALUE) {
+            reject(peerId, name, "too many chunks " + chunks);
+            return;
+        }
+        final int count = (int) chunks;
+
+        Session prev = sessions.remove(key);
+        if (prev != null) {
+            prev.sink.close();
+        }
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                prepare(peerId, key, name, digest, size, chunkSize, count);
+            }
+        });
+    }
+
+    /*
+     * OFFER 처리, 임시 파일과 Store로 이어 받을 위치를 정하고 RESUME을 응답한다.
+     * executor Thread에서 호출
+     */
+    private void prepare(final String peerId, final String key, final String name, final String digest, final long size, int chunkSize, int count) {
+        // 임시 파일에 이미 저장된 크기, 이전 Writer가 있으면 종료를 기다려 fsync 된 크기 까지만 사용
+        final File part = new File(dir, key + ".part");
+        long saved = awaitWriter(key, part);
+        if (saved < 0) {
+            return;
+        }
+        ContentStore store = contentStore;
+        boolean stored = false;
+        if (digest != null && store != null && saved < size && store.contains(digest, size)) {
+            // 같은 내용을 이미 받은 적이 있으면 Store에서 복사, 복사한 내용의 Digest가 다르면 처음 부터 수신
+            try {
+                stored = store.copyTo(digest, part);
+            } catch (IOException e) {
+                e.printStackTrace();
+                part.delete();
+                saved = 0L;
+            }
+            if (stored) {
+                saved = size;
+            } else {
+                // Digest가 달라 copyTo가 임시 파일을 삭제한 경우
+                saved = Math.min(saved, part.length());
+            }
+        }
+        // 마지막 분할 데이터는 chunkSize 보다 작을 수 있으므로 파일 크기 만큼 저장되어 있으면 모두 저장된 것으로 처리
+        int nextIndex = (saved >= size) ? count : (int) Math.min(saved / chunkSize, count);
+        final Session session = new Session(key, peerId, name, part, count, nextIndex);
+        try {
+            // 임시 파일에 저장된 앞부분을 Digest에 반영
+            long position = Math.min((long) nextIndex * chunkSize, size);
+            if (position > 0 && !stored) {
+                FileInputStream fis = new FileInputStream(part);
+                try {
+                    TransferDigest.update(session.digest, fis.getChannel(), position);
+                } finally {
+                    fis.close();
+                }
+            }
+            session.sink = new StreamingFileSink(part, position, StreamingFileSink.DEFAULT_CHUNK_SIZE, StreamingFileSink.DEFAULT_BUFFER_COUNT,
+                    StreamingFileSink.DEFAULT_SYNC_BYTES, new StreamingFileSink.Listener() {
+                @Override
+                public void onComplete(StreamingFileSink sink, long written) {
+                    writers.remove(key, sink);
+                    if (written < size) {
+                        // 중단된 경우, 임시 파일 유지
+                        return;
+                    }
+                    synchronized (session) {
+                        session.written = true;
+                    }
+                    tryFinish(session);
+                }
+
+                @Override
+                public void onError(StreamingFileSink sink, IOException e) {
+                    writers.remove(key, sink);
+                    sessions.remove(key, session);
+                    if (listener != null) {
+                        listener.onError(peerId, name, e.getMessage());
+                    }
+                }
+            });
+            writers.put(key, session.sink);
+            sessions.put(key, session);
+            if (nextIndex >= count) {
+                session.actual = stored ? digest : TransferDigest.finish(session.digest);
+                session.sink.close();
+            }
+        } catch (IOException e) {
+            if (listener != null) {
+                listener.onError(peerId, name, e.getMessage());
+            }
+            return;
+        }
+        if (listener != null) {
+            listener.onStart(name, nextIndex, count);
+        }
+        scheduler.sendByte(DataSendScheduler.Priority.Control, TransferProtocol.encodeControl(TransferProtocol.CMD_RESUME, key,
+                String.valueOf(nextIndex)), TransferProtocol.MIME_CONTROL, SilentSendObserver.INSTANCE);
+    }
+
+    /*
+     * 분할 데이터 처리. 데이터 채널은 순서를 보장하므로 index 순서대로 도착한다.
+     * @param frame byte[], TransferProtocol#MIME_CHUNK 메세지
+     */
+    public void onChunk(byte[] frame) {
+        if (frame.length < TransferProtocol.CHUNK_HEADER_SIZE) {
+            return;
+        }
+        String key = TransferProtocol.readChunkKey(frame);
+        if (!TransferProtocol.isKey(key)) {
+            return;
+        }
+        Session session = sessions.get(key);
+        if (session == null || session.expected >= session.count) {
+            return;
+        }
+        int index = TransferProtocol.readChunkIndex(frame);
+        if (index != session.expected) {
+            // 순서가 맞지 않으면 이후 데이터를 기록할 수 없으므로 중단, 다음 OFFER에서 이어 받는다.
+            fail(session, "unexpected chunk " + index + "/" + session.expected);
+            return;
+        }
+        try {
+            session.sink.write(frame, TransferProtocol.CHUNK_HEADER_SIZE, frame.length - TransferProtocol.CHUNK_HEADER_SIZE);
+        } catch (IOException e) {
+            fail(session, e.getMessage());
+            return;
+        }
+        session.digest.update(frame, TransferProtocol.CHUNK_HEADER_SIZE, frame.length - TransferProtocol.CHUNK_HEADER_SIZE);
+        session.received += frame.length - TransferProtocol.CHUNK_HEADER_SIZE;
+        session.expected++;
+        if (session.expected >= session.count) {
+            // 송신 측 DIGEST를 받을 때 까지 Session 유지
+            synchronized (session) {
+                session.actual = TransferDigest.finish(session.digest);
+            }
+            session.sink.close();
+        }
+    }
+
+    /*
+     * 진행 중인 수신을 모두 중단한다. 기록한 데이터는 임시 파일에 남는다.
+     * 데이터 채널이 닫히면 호출
+     */
+    public void suspendAll() {
+        for (Session session : sessions.values()) {
+            sessions.remove(session.key);
+            session.sink.close();
+        }
+    }
+
+    /*
+     * 진행 중인 수신을 중단하고 OFFER 처리 Thread를 종료한다. 더 이상 사용하지 않을 때 호출
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        suspendAll();
+    }
+
+    /*
+     * 기록 완료 후 송신 측 Digest와 비교하여 일치하면 임시 파일을 원래 파일 명으로 변경한다.
+     * 일치하지 않으면 잘못된 데이터로 이어 받지 않도록 임시 파일을 삭제한다.
+     */
+    private void tryFinish(Session session) {
+        boolean match;
+        synchronized (session) {
+            if (session.finished || !session.written || session.actual == null || session.remote == null) {
+                return;
+            }
+            session.finished = true;
+            match = session.actual.equalsIgnoreCase(session.remote);
+        }
+        sessions.remove(session.key, session);
+        if (!match) {
+            session.part.delete();
+            if (listener != null) {
+                listener.onError(session.peerId, session.name, "digest mismatch");
+            }
+            return;
+        }
+        File dest = new File(dir, session.name);
+        if (dest.exists()) {
+            dest.delete();
+        }
+        if (session.part.renameTo(dest)) {
+            ContentStore store = contentStore;
+            if (store != null) {
+                store.put(session.remote, dest);
+            }
+            if (listener != null) {
+                listener.onComplete(session.peerId, session.name, dest, session.received, System.currentTimeMillis() - session.startTime);
+            }
+        } else if (listener != null) {
+            listener.onError(session.peerId, session.name, "rename failed");
+        }
+    }
+
+    /*
+     * 이전 StreamingFileSink의 Writer Thread가 끝날 때 까지 대기하고 임시 파일에 저장된 크기를 반환한다.
+     * 이전 Writer가 없으면(앱 재시작 등) 임시 파일 크기를 사용한다.
+     * @return long, 대기 중 interrupt 된 경우 -1
+     */
+    private long awaitWriter(String key, File part) {
+        StreamingFileSink sink = writers.remove(key);
+        if (sink == null) {
+            return part.length();
+        }
+        sink.close();
+        try {
+            sink.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1L;
+        }
+        return Math.min(sink.getCommitted(), part.length());
+    }
+
+    private void reject(String peerId, String name, String desc) {
+        if (listener != null) {
+            listener.onError(peerId, name, desc);
+        }
+    }
+
+    private void fail(Session session, String desc) {
+        sessions.remove(session.key);
+        session.sink.close();
+        if (listener != null) {
+            listener.onError(session.peerId, session.name, desc);
+        }
+    }
+}
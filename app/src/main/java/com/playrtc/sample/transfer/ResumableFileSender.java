@@ -0,0 +1,386 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+ * 이어 보내기를 지원하는 분할 파일 송신 Class
+ * 파일을 CHUNK_SIZE 단위로 나누어 DataSendScheduler의 Bulk 우선 순위로 전송(MIME_CHUNK)하고,
+ * 분할 데이터 송신이 완료(onSuccess)될 때 마다 TransferJournal에 송신 완료 수를 기록한다.
+ *
+ * 전송 순서
+ * 1. OFFER key size chunkSize sha256 name 전송, 이전에 전송한 파일이면 DigestCache의 Digest를 함께 전달
+ * 2. 수신 측이 RESUME key nextIndex 응답, 수신 측이 이미 저장한 분할 데이터는 건너뛴다.
+ *    수신 측 ContentStore에 같은 내용이 있으면 nextIndex는 전체 분할 수가 되어 파일 데이터를 전송하지 않는다.
+ * 3. nextIndex 부터 최대 WINDOW 개의 분할 데이터를 동시에 전송
+ * 4. 모든 분할 데이터 송신이 완료되면 DIGEST key sha256 전송 후 Journal 항목 삭제
+ *
+ * 파일 Digest는 분할 데이터를 읽을 때 함께 계산하며, 건너뛴 앞부분만 전송 시작 시 파일에서 읽어 반영한다.
+ *
+ * 전송이 실패하거나 데이터 채널이 닫히면 Journal 항목이 남으므로, 데이터 채널이 다시 열리면
+ * resumePending을 호출하여 중단된 전송을 이어서 진행한다.
+ */
+public class ResumableFileSender {
+
+    /*
+     * 분할 데이터 크기 256KB
+     */
+    public static final int CHUNK_SIZE = 256 * 1024;
+
+    /*
+     * 동시에 전송하는 분할 데이터 수
+     */
+    public static final int WINDOW = 4;
+
+    /*
+     * 분할 전송 진행/완료/오류를 전달 받기 위한 인터페이스
+     */
+    public interface Listener {
+        /*
+         * 전송 시작, 수신 측 응답으로 건너뛴 분할 데이터 수를 전달
+         */
+        void onStart(String name, int skipped, int count);
+
+        /*
+         * 분할 데이터 송신 완료
+         */
+        void onProgress(String name, int acked, int count);
+
+        /*
+         * 전송 완료, peerId는 RESUME을 응답한 상대방
+         */
+        void onComplete(String peerId, String name, long size, long elapsed);
+
+        /*
+         * 전송 실패, Journal에 기록이 남아 이후 이어 보내기 가능
+         * RESUME을 받기 전에 실패하면 peerId는 null
+         */
+        void onError(String peerId, String name, String desc);
+    }
+
+    /*
+     * 전송 1건의 상태
+     */
+    private class Session {
+        final TransferJournal.Entry entry;
+        final File file;
+        final int count;
+        final BitSet done;
+        final MessageDigest digest = TransferDigest.create();
+
+        /*
+         * DigestCache에 기록된 Digest, 없으면 null
+         */
+        final String knownDigest;
+        boolean useKnownDigest = false;
+        FileChannel channel = null;
+        int next = 0;
+        int acked = 0;
+        int inFlight = 0;
+        boolean started = false;
+        boolean closed = false;
+        long startTime = 0L;
+        volatile String peerId = null;
+
+        Session(TransferJournal.Entry entry, File file, String knownDigest) {
+            this.entry = entry;
+            this.file = file;
+            this.knownDigest = knownDigest;
+            this.count = entry.getCount();
+            this.done = new BitSet(count);
+        }
+    }
+
+    private final TransferJournal journal;
+    private final Listener listener;
+    private final ChunkBufferPool pool = new ChunkBufferPool(TransferProtocol.CHUNK_HEADER_SIZE + CHUNK_SIZE, WINDOW);
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<String, Session>();
+    private final DataSendScheduler scheduler;
+    private volatile DigestCache digestCache = null;
+
+    /*
+     * 생성자
+     * @param journal TransferJournal
+     * @param scheduler DataSendScheduler
+     * @param listener Listener
+     */
+    public ResumableFileSender(TransferJournal journal, DataSendScheduler scheduler, Listener listener) {
+        this.journal = journal;
+        this.scheduler = scheduler;
+        this.listener = listener;
+    }
+
+    /*
+     * 전송 완료한 파일의 Digest를 기록할 DigestCache를 지정한다.
+     * 지정하면 같은 파일을 다시 보낼 때 OFFER에 Digest를 실어 수신 측 ContentStore를 사용할 수 있다.
+     * @param digestCache DigestCache, null이면 사용하지 않음
+     */
+    public void setDigestCache(DigestCache digestCache) {
+        this.digestCache = digestCache;
+    }
+
+    /*
+     * 파일 전송을 시작한다. 같은 파일의 중단된 전송이 있으면 이어서 전송한다.
+     * @param file File
+     * @return boolean, 데이터 채널이 연결 상태가 아니거나 이미 전송 중이면 false
+     */
+    public boolean send(File file) {
+        if (!scheduler.isOpen() || !file.isFile()) {
+            return false;
+        }
+        String key = TransferProtocol.makeKey(file.getAbsolutePath(), file.length(), file.lastModified());
+        TransferJournal.Entry entry = journal.begin(key, file.getAbsolutePath(), file.length(), CHUNK_SIZE);
+        DigestCache cache = digestCache;
+        String known = (cache != null) ? cache.get(key) : null;
+        Session session = new Session(entry, file, known);
+        if (sessions.putIfAbsent(key, session) != null) {
+            return false;
+        }
+        scheduler.sendByte(DataSendScheduler.Priority.Control, TransferProtocol.encodeControl(TransferProtocol.CMD_OFFER, key,
+                String.valueOf(entry.size), String.valueOf(entry.chunkSize), (known != null) ? known : "-", file.getName()),
+                TransferProtocol.MIME_CONTROL, SilentSendObserver.INSTANCE);
+        return true;
+    }
+
+    /*
+     * Journal에 남아 있는 중단된 전송을 다시 시작한다. 데이터 채널이 열리면 호출
+     * 파일이 삭제되었거나 변경된 경우 Journal 항목을 삭제한다.
+     * @return int, 다시 시작한 전송 수
+     */
+    public int resumePending() {
+        int resumed = 0;
+        for (TransferJournal.Entry entry : journal.getEntries()) {
+            File file = new File(entry.path);
+            if (!file.isFile() || file.length() != entry.size
+                    || !entry.key.equals(TransferProtocol.makeKey(entry.path, file.length(), file.lastModified()))) {
+                journal.remove(entry.key);
+                continue;
+            }
+            if (send(file)) {
+                resumed++;
+            }
+        }
+        return resumed;
+    }
+
+    /*
+     * 수신 측 제어 메세지 처리
+     * @param peerId String, 수신 측 peer 아이디
+     * @param args String[], TransferProtocol#decodeControl 결과
+     */
+    public void onControl(String peerId, String[] args) {
+        if (args.length < 3 || !TransferProtocol.CMD_RESUME.equals(args[0])) {
+            return;
+        }
+        Session session = sessions.get(args[1]);
+        if (session == null) {
+            return;
+        }
+        int nextIndex;
+        try {
+            nextIndex = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            fail(session, "invalid resume index");
+            return;
+        }
+        synchronized (session) {
+            if (session.started) {
+                return;
+            }
+            // 수신 측이 이미 저장한 분할 데이터는 건너뛰고, 건너뛴 부분은 Digest에만 반영한다.
+            // 수신 측이 모두 가지고 있고 Digest를 알고 있으면 파일을 읽지 않는다.
+            int skip = Math.max(0, Math.min(nextIndex, session.count));
+            try {
+                session.channel = new FileInputStream(session.file).getChannel();
+                session.useKnownDigest = skip >= session.count && session.knownDigest != null;
+                if (!session.useKnownDigest) {
+                    TransferDigest.update(session.digest, session.channel, Math.min((long) skip * session.entry.chunkSize, session.entry.size));
+                }
+            } catch (IOException e) {
+                fail(session, e.getMessage());
+                return;
+            }
+            session.done.set(0, skip);
+            session.acked = skip;
+            session.next = skip;
+            session.started = true;
+            session.startTime = System.currentTimeMillis();
+            session.peerId = peerId;
+            journal.ack(session.entry.key, skip);
+        }
+        if (listener != null) {
+            listener.onStart(session.file.getName(), session.acked, session.count);
+        }
+        if (session.acked >= session.count) {
+            // 수신 측이 모두 저장한 경우
+            synchronized (session) {
+                close(session);
+            }
+            complete(session);
+            return;
+        }
+        pump(session);
+    }
+
+    /*
+     * 진행 중인 전송을 모두 중단한다. Journal 기록은 유지된다.
+     * 데이터 채널이 닫히면 호출
+     */
+    public void suspendAll() {
+        for (Session session : sessions.values()) {
+            fail(session, "suspended");
+        }
+        journal.flush();
+    }
+
+    /*
+     * WINDOW 개 까지 분할 데이터를 전송한다.
+     * pump는 여러 Thread에서 호출되므로 분할 데이터가 index 순서대로 Scheduler에 요청되도록 전송 요청까지 Session lock 안에서 한다.
+     */
+    private void pump(final Session session) {
+        while (true) {
+            synchronized (session) {
+                if (session.closed || session.inFlight >= WINDOW || session.next >= session.count) {
+                    return;
+                }
+                final int index = session.next;
+                long offset = (long) index * session.entry.chunkSize;
+                int length = (int) Math.min(session.entry.chunkSize, session.entry.size - offset);
+                final byte[] frame;
+                try {
+                    frame = readChunk(session, index, offset, length);
+                } catch (IOException e) {
+                    fail(session, e.getMessage());
+                    return;
+                }
+                session.next++;
+                session.inFlight++;
+                scheduler.sendByte(DataSendScheduler.Priority.Bulk, frame, TransferProtocol.MIME_CHUNK, new PlayRTCSendDataObserver() {
+                    @Override
+                    public void onSending(PlayRTCData obj, String peerId, String peerUid, long id, long size, long send, long index, long count) {
+
+                    }
+
+                    @Override
+                    public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                        pool.release(frame);
+                        onChunkSent(session, index);
+                    }
+
+                    @Override
+                    public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                        pool.release(frame);
+                        fail(session, "[" + code + "] " + desc);
+                    }
+                });
+            }
+        }
+    }
+
+    /*
+     * 분할 데이터를 읽어 헤더를 붙인 전송 프레임을 생성한다.
+     * 분할 크기와 같은 프레임은 Pool의 버퍼를 재사용하고, 마지막 분할 데이터이거나 Pool에 남은 버퍼가 없으면 새로 할당한다.
+     * pump는 PlayRTCData 이벤트 Thread에서도 호출되므로 버퍼를 기다리지 않는다.
+     */
+    private byte[] readChunk(Session session, int index, long offset, int length) throws IOException {
+        byte[] frame = (length == CHUNK_SIZE) ? pool.tryAcquire() : null;
+        if (frame == null) {
+            frame = new byte[TransferProtocol.CHUNK_HEADER_SIZE + length];
+        }
+        TransferProtocol.writeChunkHeader(frame, session.entry.key, index, session.count);
+        ByteBuffer bb = ByteBuffer.wrap(frame, TransferProtocol.CHUNK_HEADER_SIZE, length);
+        long position = offset;
+        while (bb.hasRemaining()) {
+            int n = session.channel.read(bb, position);
+            if (n < 0) {
+                pool.release(frame);
+                throw new IOException("file truncated");
+            }
+            position += n;
+        }
+        // pump는 index 순서대로 읽으므로 읽는 대로 Digest에 반영
+        session.digest.update(frame, TransferProtocol.CHUNK_HEADER_SIZE, length);
+        return frame;
+    }
+
+    private void onChunkSent(Session session, int index) {
+        boolean complete;
+        synchronized (session) {
+            if (session.closed) {
+                return;
+            }
+            session.inFlight--;
+            session.done.set(index);
+            // 처음부터 연속으로 완료된 분할 데이터 수를 Journal에 기록
+            int acked = session.done.nextClearBit(session.acked);
+            session.acked = Math.min(acked, session.count);
+            journal.ack(session.entry.key, session.acked);
+            complete = session.acked >= session.count;
+            if (complete) {
+                close(session);
+            }
+        }
+        if (complete) {
+            complete(session);
+            return;
+        }
+        if (listener != null) {
+            listener.onProgress(session.file.getName(), session.acked, session.count);
+        }
+        pump(session);
+    }
+
+    /*
+     * 파일 Digest를 전송하고 Journal 항목을 삭제한다.
+     * 수신 측은 Digest를 비교한 후 파일을 저장하며, 불일치하면 수신 측 오류로 처리된다.
+     */
+    private void complete(Session session) {
+        String digest = session.useKnownDigest ? session.knownDigest : TransferDigest.finish(session.digest);
+        scheduler.sendByte(DataSendScheduler.Priority.Control, TransferProtocol.encodeControl(TransferProtocol.CMD_DIGEST,
+                session.entry.key, digest), TransferProtocol.MIME_CONTROL, SilentSendObserver.INSTANCE);
+        DigestCache cache = digestCache;
+        if (cache != null) {
+            cache.put(session.entry.key, digest);
+        }
+        journal.remove(session.entry.key);
+        if (listener != null) {
+            listener.onComplete(session.peerId, session.file.getName(), session.entry.size, System.currentTimeMillis() - session.startTime);
+        }
+    }
+
+    private void fail(Session session, String desc) {
+        synchronized (session) {
+            if (session.closed) {
+                return;
+            }
+            close(session);
+        }
+        journal.flush();
+        if (listener != null) {
+            listener.onError(session.peerId, session.file.getName(), desc);
+        }
+    }
+
+    private void close(Session session) {
+        session.closed = true;
+        sessions.remove(session.entry.key, session);
+        if (session.channel != null) {
+            try {
+                session.channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            session.channel = null;
+        }
+    }
+}
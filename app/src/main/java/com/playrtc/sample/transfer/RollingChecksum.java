@@ -0,0 +1,63 @@
+package com.playrtc.sample.transfer;
+
+/*
+ * rsync 방식의 Rolling Checksum Class
+ * 고정 길이 block의 약한 hash를 계산하며, block을 1byte 이동할 때 빠지는 byte와 들어오는 byte만으로 갱신(roll)할 수 있다.
+ *
+ * a = sum(x[i]), b = sum((length - i) * x[i]), value = (a & 0xFFFF) | (b << 16)
+ *
+ * 충돌이 있을 수 있으므로 일치하면 강한 hash(MD5)로 다시 확인해야 한다.
+ */
+public final class RollingChecksum {
+
+    private int a = 0;
+    private int b = 0;
+    private int length = 0;
+
+    /*
+     * block의 checksum을 새로 계산한다.
+     * @param buf byte[]
+     * @param offset int
+     * @param length int, block 크기
+     */
+    public void reset(byte[] buf, int offset, int length) {
+        int sa = 0;
+        int sb = 0;
+        for (int i = 0; i < length; i++) {
+            int x = buf[offset + i] & 0xFF;
+            sa += x;
+            sb += (length - i) * x;
+        }
+        this.a = sa;
+        this.b = sb;
+        this.length = length;
+    }
+
+    /*
+     * block을 1byte 이동한다.
+     * @param out byte, block 앞에서 빠지는 byte
+     * @param in byte, block 뒤에 들어오는 byte
+     */
+    public void roll(byte out, byte in) {
+        int o = out & 0xFF;
+        a += (in & 0xFF) - o;
+        b += a - length * o;
+    }
+
+    public int getValue() {
+        return (a & 0xFFFF) | (b << 16);
+    }
+
+    /*
+     * block의 checksum을 계산한다.
+     * @param buf byte[]
+     * @param offset int
+     * @param length int
+     * @return int
+     */
+    public static int of(byte[] buf, int offset, int length) {
+        RollingChecksum rc = new RollingChecksum();
+        rc.reset(buf, offset, length);
+        return rc.getValue();
+    }
+}
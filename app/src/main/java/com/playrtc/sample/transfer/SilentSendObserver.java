@@ -0,0 +1,29 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+
+/*
+ * 전송 결과를 확인할 필요가 없는 제어 메세지 전송 시 사용하는 PlayRTCSendDataObserver 구현 Class
+ * 필요한 이벤트만 재정의하여 사용할 수 있다.
+ */
+public class SilentSendObserver implements PlayRTCSendDataObserver {
+
+    public static final SilentSendObserver INSTANCE = new SilentSendObserver();
+
+    @Override
+    public void onSending(PlayRTCData obj, String peerId, String peerUid, long id, long size, long send, long index, long count) {
+
+    }
+
+    @Override
+    public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+
+    }
+
+    @Override
+    public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+
+    }
+}
@@ -0,0 +1,296 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/*
+ * 수신 데이터를 분할 단위로 파일에 기록하는 Sink Class
+ * 데이터 수신 이벤트 Thread에서 파일 I/O를 하지 않도록 별도 Writer Thread가 파일에 기록한다.
+ *
+ * - 수신 데이터는 ChunkBufferPool의 고정 크기 버퍼에 복사하여 크기가 제한된 Queue로 Writer Thread에 전달
+ *   버퍼가 모두 사용 중이면 write는 대기하므로 사용 메모리는 파일 크기와 관계없이 chunkSize * bufferCount 이내
+ * - syncBytes 만큼 기록할 때 마다 FileChannel#force를 호출하여 fsync를 묶어서 처리
+ * - close 시 남은 데이터를 기록하고 fsync 한 후 Listener에 완료를 전달
+ *
+ * 사용 예
+ *   StreamingFileSink sink = new StreamingFileSink(file, 0L, 64 * 1024, 4, 4 * 1024 * 1024, listener);
+ *   sink.write(data, 0, data.length);
+ *   sink.close();
+ */
+public class StreamingFileSink {
+
+    /*
+     * 기본 분할 버퍼 크기 64KB
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    /*
+     * 기본 버퍼 수
+     */
+    public static final int DEFAULT_BUFFER_COUNT = 4;
+
+    /*
+     * 기본 fsync 간격 4MB
+     */
+    public static final long DEFAULT_SYNC_BYTES = 4 * 1024 * 1024;
+
+    /*
+     * 파일 기록 완료/오류를 전달 받기 위한 인터페이스
+     * Writer Thread에서 호출된다.
+     */
+    public interface Listener {
+        /*
+         * 모든 데이터를 기록하고 fsync 완료
+         * @param sink StreamingFileSink
+         * @param written long, 기록한 크기
+         */
+        void onComplete(StreamingFileSink sink, long written);
+
+        /*
+         * 파일 기록 오류
+         * @param sink StreamingFileSink
+         * @param e IOException
+         */
+        void onError(StreamingFileSink sink, IOException e);
+    }
+
+    /*
+     * Writer Thread로 전달하는 분할 데이터
+     */
+    private static class Chunk {
+        final byte[] buf;
+        final int length;
+
+        Chunk(byte[] buf, int length) {
+            this.buf = buf;
+            this.length = length;
+        }
+    }
+
+    /*
+     * 기록 종료 표시
+     */
+    private static final Chunk END = new Chunk(null, 0);
+
+    private final File file;
+    private final ChunkBufferPool pool;
+    private final ArrayBlockingQueue<Chunk> queue;
+    private final long syncBytes;
+    private final Listener listener;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final Thread writer;
+
+    /*
+     * 파일 시작 위치, 이어받기인 경우 0보다 크다.
+     */
+    private final long startPosition;
+
+    /*
+     * 파일에 기록한 크기
+     */
+    private volatile long written = 0L;
+
+    /*
+     * fsync가 완료된 크기, 이 크기까지는 전원이 꺼져도 파일에 남아 있다.
+     */
+    private volatile long committed = 0L;
+
+    private volatile IOException error = null;
+    private volatile boolean closed = false;
+
+    /*
+     * 생성자
+     * @param file File, 기록할 파일
+     * @param position long, 기록 시작 위치, 0이면 새로 기록하고 0보다 크면 해당 위치 이후를 잘라내고 이어서 기록
+     * @param chunkSize int, 분할 버퍼 크기
+     * @param bufferCount int, 최대 버퍼 수
+     * @param syncBytes long, fsync 간격(byte)
+     * @param listener Listener, 완료/오류 Listener, null 가능
+     * @throws IOException
+     */
+    public StreamingFileSink(File file, long position, int chunkSize, int bufferCount, long syncBytes, Listener listener) throws IOException {
+        this.file = file;
+        this.pool = new ChunkBufferPool(chunkSize, bufferCount);
+        this.queue = new ArrayBlockingQueue<Chunk>(bufferCount + 1);
+        this.syncBytes = syncBytes;
+        this.listener = listener;
+        this.startPosition = position;
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists()) {
+            dir.mkdirs();
+        }
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = raf.getChannel();
+        channel.truncate(position);
+        channel.position(position);
+
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "StreamingFileSink");
+        this.writer.start();
+    }
+
+    /*
+     * 기본 버퍼 설정으로 새 파일에 기록하는 StreamingFileSink를 생성한다.
+     * @param file File
+     * @param listener Listener
+     * @return StreamingFileSink
+     * @throws IOException
+     */
+    public static StreamingFileSink create(File file, Listener listener) throws IOException {
+        return new StreamingFileSink(file, 0L, DEFAULT_CHUNK_SIZE, DEFAULT_BUFFER_COUNT, DEFAULT_SYNC_BYTES, listener);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /*
+     * 파일에 기록한 크기(시작 위치 포함)를 반환한다.
+     * @return long
+     */
+    public long getWritten() {
+        return startPosition + written;
+    }
+
+    /*
+     * fsync가 완료된 크기(시작 위치 포함)를 반환한다.
+     * @return long
+     */
+    public long getCommitted() {
+        return startPosition + committed;
+    }
+
+    /*
+     * 데이터를 분할 버퍼에 복사하여 Writer Thread에 전달한다.
+     * 사용 가능한 버퍼가 없으면 Writer Thread가 버퍼를 반환할 때 까지 대기한다.
+     * @param data byte[]
+     * @param off int
+     * @param len int
+     * @throws IOException 이전 기록 오류가 있거나 이미 close 된 경우
+     */
+    public void write(byte[] data, int off, int len) throws IOException {
+        checkState();
+        int chunkSize = pool.getChunkSize();
+        try {
+            while (len > 0) {
+                int n = Math.min(len, chunkSize);
+                byte[] buf = pool.acquire();
+                System.arraycopy(data, off, buf, 0, n);
+                queue.put(new Chunk(buf, n));
+                off += n;
+                len -= n;
+                checkState();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("write interrupted");
+        }
+    }
+
+    /*
+     * 기록 종료를 요청한다. 남은 데이터를 기록하고 fsync 한 후 Listener#onComplete를 호출한다.
+     * 호출 Thread는 대기하지 않는다.
+     */
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            queue.put(END);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            writer.interrupt();
+        }
+    }
+
+    /*
+     * 기록을 중단한다. 남은 데이터는 기록하지 않으며 Listener#onComplete를 호출하지 않는다.
+     */
+    public void abort() {
+        closed = true;
+        if (error == null) {
+            error = new IOException("aborted");
+        }
+        writer.interrupt();
+    }
+
+    /*
+     * Writer Thread가 종료될 때 까지 대기한다.
+     * @throws InterruptedException
+     */
+    public void await() throws InterruptedException {
+        writer.join();
+    }
+
+    private void checkState() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+        if (closed) {
+            throw new IOException("sink closed");
+        }
+    }
+
+    private void writeLoop() {
+        long unsynced = 0L;
+        try {
+            while (true) {
+                Chunk chunk = queue.take();
+                if (chunk == END) {
+                    break;
+                }
+                ByteBuffer bb = ByteBuffer.wrap(chunk.buf, 0, chunk.length);
+                while (bb.hasRemaining()) {
+                    channel.write(bb);
+                }
+                pool.release(chunk.buf);
+                written += chunk.length;
+                unsynced += chunk.length;
+                if (unsynced >= syncBytes) {
+                    channel.force(false);
+                    committed = written;
+                    unsynced = 0L;
+                }
+            }
+            channel.force(false);
+            committed = written;
+            closeFile();
+            if (listener != null) {
+                listener.onComplete(this, getWritten());
+            }
+        } catch (InterruptedException e) {
+            // abort
+            closeFile();
+        } catch (IOException e) {
+            error = e;
+            closeFile();
+            // 대기 중인 write가 있으면 깨우기 위해 버퍼를 반환
+            Chunk chunk;
+            while ((chunk = queue.poll()) != null) {
+                pool.release(chunk.buf);
+            }
+            if (listener != null) {
+                listener.onError(this, e);
+            }
+        }
+    }
+
+    private void closeFile() {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.playrtc.sample.transfer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/*
+ * 전송 데이터 무결성 검사용 SHA-256 Digest 유틸리티 Class
+ * 송/수신 측은 데이터가 지나가는 대로 MessageDigest#update를 호출하여 별도의 파일 읽기 없이 Digest를 계산하고,
+ * 전송 완료 시 DIGEST 제어 메세지로 송신 측 Digest를 전달하여 비교한다.
+ *
+ * 이어 보내기로 건너뛴 앞부분은 전송 데이터가 지나가지 않으므로 update(MessageDigest, FileChannel, long)로
+ * 해당 부분만 파일에서 읽어 Digest에 반영한다.
+ */
+public final class TransferDigest {
+
+    public static final String ALGORITHM = "SHA-256";
+
+    private static final int READ_SIZE = 64 * 1024;
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private TransferDigest() {
+
+    }
+
+    /*
+     * SHA-256 MessageDigest를 생성한다.
+     * @return MessageDigest
+     */
+    public static MessageDigest create() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Digest를 완료하고 16진수 문자열로 반환한다.
+     * @param md MessageDigest
+     * @return String
+     */
+    public static String finish(MessageDigest md) {
+        byte[] d = md.digest();
+        char[] c = new char[d.length * 2];
+        for (int i = 0; i < d.length; i++) {
+            c[i * 2] = HEX[(d[i] >> 4) & 0x0F];
+            c[i * 2 + 1] = HEX[d[i] & 0x0F];
+        }
+        return new String(c);
+    }
+
+    /*
+     * 파일의 앞부분 length 만큼 Digest에 반영한다.
+     * @param md MessageDigest
+     * @param channel FileChannel
+     * @param length long
+     * @throws IOException
+     */
+    public static void update(MessageDigest md, FileChannel channel, long length) throws IOException {
+        ByteBuffer bb = ByteBuffer.allocate(READ_SIZE);
+        long position = 0L;
+        while (position < length) {
+            bb.clear();
+            bb.limit((int) Math.min(READ_SIZE, length - position));
+            int n = channel.read(bb, position);
+            if (n < 0) {
+                throw new IOException("file truncated");
+            }
+            md.update(bb.array(), 0, n);
+            position += n;
+        }
+    }
+
+    /*
+     * 파일 전체의 Digest를 계산한다.
+     * 수신 데이터가 앱을 거치지 않고 파일에 기록되는 경우(PlayRTCFileReveType.File)에만 사용
+     * @param file File
+     * @return String
+     * @throws IOException
+     */
+    public static String digest(File file) throws IOException {
+        MessageDigest md = create();
+        FileInputStream fis = new FileInputStream(file);
+        try {
+            update(md, fis.getChannel(), file.length());
+        } finally {
+            fis.close();
+        }
+        return finish(md);
+    }
+}
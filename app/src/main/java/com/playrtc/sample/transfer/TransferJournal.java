@@ -0,0 +1,205 @@
+package com.playrtc.sample.transfer;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/*
+ * 이어 보내기를 위해 진행 중인 분할 파일 전송 정보를 기록하는 Journal Class
+ * 전송 키 별로 파일 경로, 크기, 분할 크기, 송신 완료된 분할 데이터 수를 앱 파일 영역의 작은 텍스트 파일에 기록한다.
+ * 전송이 완료되면 항목을 삭제하므로 Journal에 남아 있는 항목은 중단된 전송이다.
+ *
+ * 한 줄에 한 항목 : key \t size \t chunkSize \t acked \t path
+ */
+public class TransferJournal {
+
+    /*
+     * 송신 완료 기록을 이 횟수 마다 파일에 저장
+     */
+    private static final int SAVE_INTERVAL = 8;
+
+    /*
+     * Journal 항목
+     */
+    public static class Entry {
+        public final String key;
+        public final String path;
+        public final long size;
+        public final int chunkSize;
+
+        /*
+         * 처음부터 연속으로 송신 완료된 분할 데이터 수
+         */
+        public int acked;
+
+        public Entry(String key, String path, long size, int chunkSize, int acked) {
+            this.key = key;
+            this.path = path;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.acked = acked;
+        }
+
+        /*
+         * 전체 분할 데이터 수
+         * @return int
+         */
+        public int getCount() {
+            return (int) ((size + chunkSize - 1) / chunkSize);
+        }
+    }
+
+    private final File file;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private int pendingUpdates = 0;
+
+    /*
+     * 생성자, Journal 파일이 있으면 읽어 들인다.
+     * @param file File, Journal 파일
+     */
+    public TransferJournal(File file) {
+        this.file = file;
+        load();
+    }
+
+    /*
+     * 항목을 반환한다.
+     * @param key String, 전송 키
+     * @return Entry, 없으면 null
+     */
+    public synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /*
+     * 중단된 전송 항목 목록을 반환한다.
+     * @return List<Entry>
+     */
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<Entry>(entries.values());
+    }
+
+    /*
+     * 전송 항목을 추가한다. 이미 있으면 기존 항목을 반환한다.
+     * @return Entry
+     */
+    public synchronized Entry begin(String key, String path, long size, int chunkSize) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.chunkSize != chunkSize) {
+            entry = new Entry(key, path, size, chunkSize, 0);
+            entries.put(key, entry);
+            save();
+        }
+        return entry;
+    }
+
+    /*
+     * 송신 완료된 분할 데이터 수를 기록한다. SAVE_INTERVAL 마다 파일에 저장
+     * @param key String
+     * @param acked int, 처음부터 연속으로 송신 완료된 분할 데이터 수
+     */
+    public synchronized void ack(String key, int acked) {
+        Entry entry = entries.get(key);
+        if (entry == null || acked <= entry.acked) {
+            return;
+        }
+        entry.acked = acked;
+        if (++pendingUpdates >= SAVE_INTERVAL) {
+            save();
+        }
+    }
+
+    /*
+     * 전송 완료된 항목을 삭제한다.
+     * @param key String
+     */
+    public synchronized void remove(String key) {
+        if (entries.remove(key) != null) {
+            save();
+        }
+    }
+
+    /*
+     * 기록되지 않은 변경 사항을 파일에 저장한다.
+     */
+    public synchronized void flush() {
+        if (pendingUpdates > 0) {
+            save();
+        }
+    }
+
+    private void load() {
+        if (!file.exists()) {
+            return;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] v = line.split("\t", 5);
+                if (v.length < 5) {
+                    continue;
+                }
+                try {
+                    Entry entry = new Entry(v[0], v[4], Long.parseLong(v[1]), Integer.parseInt(v[2]), Integer.parseInt(v[3]));
+                    entries.put(entry.key, entry);
+                } catch (NumberFormatException e) {
+                    // 손상된 항목은 무시
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    /*
+     * 임시 파일에 기록한 후 rename하여 기록 도중 중단되어도 이전 Journal이 유지되도록 한다.
+     */
+    private void save() {
+        pendingUpdates = 0;
+        File tmp = new File(file.getPath() + ".tmp");
+        Writer writer = null;
+        try {
+            FileOutputStream fos = new FileOutputStream(tmp);
+            writer = new OutputStreamWriter(fos, "UTF-8");
+            for (Entry entry : entries.values()) {
+                writer.write(entry.key + "\t" + entry.size + "\t" + entry.chunkSize + "\t" + entry.acked + "\t" + entry.path + "\n");
+            }
+            writer.flush();
+            fos.getFD().sync();
+            writer.close();
+            writer = null;
+            if (!tmp.renameTo(file)) {
+                file.delete();
+                tmp.renameTo(file);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
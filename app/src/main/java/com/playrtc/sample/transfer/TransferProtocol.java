@@ -0,0 +1,247 @@
+package com.playrtc.sample.transfer;
+
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+
+/*
+ * 데이터 채널 위에서 Application이 사용하는 전송 프로토콜 정의 Class
+ * PlayRTCData#sendByte의 MimeType으로 메세지 종류를 구분하며, 수신 측은 PlayRTCDataHeader#getMimeType으로 확인한다.
+ *
+ * - MIME_CONTROL : 전송 제어 메세지, UTF-8 텍스트 "명령 인자1 인자2 ..."
+ *   - OFFER key size chunkSize sha256 name : 송신 측이 전송할 파일 정보를 전달, Digest를 모르면 sha256은 "-"
+ *   - RESUME key nextIndex : 수신 측이 이미 저장한 분할 데이터 다음 index를 응답
+ *   - DIGEST key sha256 : 송신 측이 분할 전송 완료 후 파일 Digest를 전달
+ *   - STREAM_DIGEST id sha256 : 송신 측이 PlayRTCData#sendFile 전송 완료 후 파일 Digest를 전달
+ *   - DELTA key size name : 송신 측이 변경된 파일의 차이(delta) 전송을 요청
+ * - MIME_CHUNK : 분할 파일 데이터
+ *   - [key 16byte ASCII][index int][count int][data]
+ * - MIME_BATCH : 작은 메세지 묶음, MessageBatcher 참고
+ *   - ([type byte][length int][data]) 반복
+ * - MIME_PACKED : 압축 메세지, PayloadCompressor 참고
+ *   - [codec byte][kind byte][원래 크기 int][압축 데이터]
+ * - MIME_SIGNATURE : 수신 측이 가진 이전 파일의 block signature
+ *   - [key 16byte ASCII][blockSize int][count int]([weak int][MD5 16byte]) * count
+ * - MIME_DELTA : 송신 측 파일을 이전 파일 block 참조와 변경 데이터로 표현한 명령 목록
+ *   - [key 16byte ASCII](명령) 반복
+ *   - OP_COPY [index int][count int] : 이전 파일의 index 부터 count 개 block 복사
+ *   - OP_LITERAL [length int][data] : 데이터 추가
+ *   - OP_END [sha256 32byte] : 완료, 새 파일의 Digest
+ * - MIME_ARCHIVE : 폴더 archive 스트림, ArchiveInputStream 참고
+ *   - [key 16byte ASCII][seq int][archive 데이터]
+ * - MIME_MESSAGE : 고정 길이 Binary 메세지, MessageSchema 참고
+ *   - [schema id short](필드) 반복
+ */
+public final class TransferProtocol {
+
+    public static final String MIME_PREFIX = "application/x-playrtc-";
+    public static final String MIME_CONTROL = MIME_PREFIX + "control";
+    public static final String MIME_CHUNK = MIME_PREFIX + "chunk";
+    public static final String MIME_BATCH = MIME_PREFIX + "batch";
+    public static final String MIME_PACKED = MIME_PREFIX + "packed";
+    public static final String MIME_SIGNATURE = MIME_PREFIX + "signature";
+    public static final String MIME_DELTA = MIME_PREFIX + "delta";
+    public static final String MIME_MESSAGE = MIME_PREFIX + "message";
+    public static final String MIME_ARCHIVE = MIME_PREFIX + "archive";
+
+    public static final String CMD_OFFER = "OFFER";
+    public static final String CMD_RESUME = "RESUME";
+    public static final String CMD_DIGEST = "DIGEST";
+    public static final String CMD_STREAM_DIGEST = "STREAM_DIGEST";
+    public static final String CMD_DELTA = "DELTA";
+
+    public static final byte OP_COPY = 1;
+    public static final byte OP_LITERAL = 2;
+    public static final byte OP_END = 3;
+
+    /*
+     * 전송 키 길이, 64bit hash의 16진수 문자열
+     */
+    public static final int KEY_LENGTH = 16;
+
+    /*
+     * 분할 데이터 헤더 크기
+     */
+    public static final int CHUNK_HEADER_SIZE = KEY_LENGTH + 4 + 4;
+
+    /*
+     * block signature 헤더 크기와 block 당 크기
+     */
+    public static final int SIGNATURE_HEADER_SIZE = KEY_LENGTH + 4 + 4;
+    public static final int SIGNATURE_ENTRY_SIZE = 4 + 16;
+
+    /*
+     * archive 메세지 헤더 크기
+     */
+    public static final int ARCHIVE_HEADER_SIZE = KEY_LENGTH + 4;
+
+    private TransferProtocol() {
+
+    }
+
+    /*
+     * Application 프로토콜 메세지 인지 검사한다.
+     * @param mimeType String, PlayRTCDataHeader#getMimeType
+     * @return boolean
+     */
+    public static boolean isProtocolMessage(String mimeType) {
+        return mimeType != null && mimeType.startsWith(MIME_PREFIX);
+    }
+
+    /*
+     * 제어 메세지를 생성한다.
+     * @param args String..., 명령과 인자
+     * @return byte[], UTF-8
+     */
+    public static byte[] encodeControl(String... args) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < args.length; i++) {
+            if (i > 0) {
+                sb.append(' ');
+            }
+            sb.append(args[i]);
+        }
+        return utf8(sb.toString());
+    }
+
+    /*
+     * 제어 메세지를 분리한다. 마지막 인자는 공백을 포함할 수 있다.(파일 명)
+     * @param data byte[]
+     * @param limit int, 최대 분리 수
+     * @return String[]
+     */
+    public static String[] decodeControl(byte[] data, int limit) {
+        try {
+            return new String(data, "UTF-8").split(" ", limit);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * 제어 메세지를 명령 별 인자 수로 분리한다. 마지막 인자(파일 명)는 공백이 있어도 나누지 않는다.
+     * @param data byte[]
+     * @return String[], [0]은 명령
+     */
+    public static String[] decodeControl(byte[] data) {
+        String[] args = decodeControl(data, 2);
+        return decodeControl(data, argumentCount(args[0]));
+    }
+
+    /*
+     * 명령과 인자 수, 알 수 없는 명령은 OFFER와 같은 6개
+     */
+    static int argumentCount(String cmd) {
+        if (CMD_DELTA.equals(cmd)) {
+            return 4;
+        }
+        if (CMD_RESUME.equals(cmd) || CMD_DIGEST.equals(cmd) || CMD_STREAM_DIGEST.equals(cmd)) {
+            return 3;
+        }
+        return 6;
+    }
+
+    /*
+     * 분할 데이터 헤더를 기록한다.
+     * @param frame byte[], CHUNK_HEADER_SIZE + 데이터 크기
+     * @param key String, 전송 키
+     * @param index int, 분할 데이터 index
+     * @param count int, 전체 분할 데이터 수
+     */
+    public static void writeChunkHeader(byte[] frame, String key, int index, int count) {
+        writeKey(frame, key);
+        ByteBuffer bb = ByteBuffer.wrap(frame, KEY_LENGTH, 8);
+        bb.putInt(index);
+        bb.putInt(count);
+    }
+
+    /*
+     * 분할 데이터 헤더의 전송 키를 반환한다.
+     * @param frame byte[]
+     * @return String
+     */
+    public static String readChunkKey(byte[] frame) {
+        return readKey(frame);
+    }
+
+    /*
+     * 메세지 앞부분에 전송 키를 기록한다.
+     * @param frame byte[]
+     * @param key String
+     */
+    public static void writeKey(byte[] frame, String key) {
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            frame[i] = (byte) key.charAt(i);
+        }
+    }
+
+    /*
+     * 메세지 앞부분의 전송 키를 반환한다.
+     * @param frame byte[]
+     * @return String
+     */
+    public static String readKey(byte[] frame) {
+        char[] key = new char[KEY_LENGTH];
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            key[i] = (char) frame[i];
+        }
+        return new String(key);
+    }
+
+    /*
+     * 전송 키 형식(KEY_LENGTH 자리 소문자 16진수)인지 검사한다.
+     * 상대방이 보낸 키는 임시 파일 명으로 사용하므로 다른 경로를 가리키지 않도록 확인
+     * @param key String
+     * @return boolean
+     */
+    public static boolean isKey(String key) {
+        if (key == null || key.length() != KEY_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < KEY_LENGTH; i++) {
+            char c = key.charAt(i);
+            if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static int readChunkIndex(byte[] frame) {
+        return ByteBuffer.wrap(frame, KEY_LENGTH, 4).getInt();
+    }
+
+    public static int readChunkCount(byte[] frame) {
+        return ByteBuffer.wrap(frame, KEY_LENGTH + 4, 4).getInt();
+    }
+
+    /*
+     * 파일 경로, 크기, 수정 시각으로 전송 키를 생성한다.
+     * 같은 파일을 다시 전송하면 같은 키가 생성되어 이어 보내기를 할 수 있다.
+     * @param path String
+     * @param size long
+     * @param modified long
+     * @return String, 16자리 16진수
+     */
+    public static String makeKey(String path, long size, long modified) {
+        // FNV-1a 64bit
+        long h = 0xcbf29ce484222325L;
+        byte[] b = utf8(path + "|" + size + "|" + modified);
+        for (byte x : b) {
+            h ^= (x & 0xFF);
+            h *= 0x100000001b3L;
+        }
+        String hex = Long.toHexString(h);
+        while (hex.length() < KEY_LENGTH) {
+            hex = "0" + hex;
+        }
+        return hex;
+    }
+
+    static byte[] utf8(String s) {
+        try {
+            return s.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
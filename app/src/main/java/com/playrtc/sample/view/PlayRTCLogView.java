@@ -1,52 +1,290 @@
 package com.playrtc.sample.view;
 
 import android.content.Context;
-import android.text.Layout;
-import android.text.method.ScrollingMovementMethod;
+import android.content.res.TypedArray;
+import android.graphics.Color;
 import android.util.AttributeSet;
+import android.util.TypedValue;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
+import android.widget.AbsListView;
+import android.widget.BaseAdapter;
+import android.widget.ListView;
 import android.widget.TextView;
 
 import com.playrtc.sample.R;
 
+import java.util.concurrent.ConcurrentLinkedQueue;
+
 /*
- * PlayRTC 로그를 출력하기위해 TextView를 확장한 Class
- * 
+ * PlayRTC 로그를 출력하기위해 ListView를 확장한 Class
+ * 로그는 최대 capacity 개를 Ring Buffer에 보관하며, 가장 오래된 로그부터 삭제한다.
+ * 화면에 보이는 줄만 TextView를 재사용하여 출력하므로 로그가 많아져도 Layout 비용은 일정하다.
  *
  * - public void appendLog(final String msg)
  *    로그창 하단에 로그 문자열울 추가하고 스크롤를 하단으로 이동한다.
  * - public void progressLog(final String msg)
  *   로그창 하단의 마지막 라인을 갱신하고 스크롤를 하단으로 이동한다.
- *   데이터 채널 데이터 전송/수신 등의 진척도를 표시하기 위해 사용 
+ *   데이터 채널 데이터 전송/수신 등의 진척도를 표시하기 위해 사용
+ * - public int openProgressSlot(final String msg)
+ *   진행 상태 줄(Slot)을 추가하고 Slot 번호를 반환한다. 전송 여러 건을 동시에 표시할 때 전송 마다 Slot을 사용
+ * - public void updateProgressSlot(int slot, final String msg)
+ *   Slot 줄의 문자열만 바꾼다. 해당 줄이 화면에 보이면 그 줄의 TextView만 갱신한다.
+ * - public void closeProgressSlot(int slot)
+ *   Slot을 반환한다. 줄은 로그에 남는다.
  *
+ * 로그 추가는 어느 Thread에서나 호출할 수 있으며, UI Thread에서 모아서 반영한다.
+ * Layout 속성 android:textSize, android:textColor를 사용한다.
  */
-public class PlayRTCLogView extends TextView{
+public class PlayRTCLogView extends ListView {
+
+	/*
+	 * 기본 로그 보관 수
+	 */
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	/*
+	 * 동시에 사용할 수 있는 진행 상태 Slot 수
+	 */
+	public static final int MAX_PROGRESS_SLOTS = 8;
+
+	private static final int[] STYLE_ATTRS = {android.R.attr.textSize, android.R.attr.textColor};
+
+	/*
+	 * 로그 Ring Buffer, UI Thread에서만 사용
+	 */
+	private static class LogBuffer {
+		private String[] lines;
+		private int head = 0;
+		private int size = 0;
+		// 지금까지 추가된 줄 수, 줄 번호(seq)를 위치로 바꿀 때 사용
+		private long total = 0L;
+
+		LogBuffer(int capacity) {
+			lines = new String[capacity];
+		}
+
+		int size() {
+			return size;
+		}
+
+		String get(int index) {
+			return lines[(head + index) % lines.length];
+		}
+
+		void set(int index, String line) {
+			lines[(head + index) % lines.length] = line;
+		}
+
+		/*
+		 * 줄을 추가하고 줄 번호를 반환한다.
+		 */
+		long add(String line) {
+			if (size < lines.length) {
+				lines[(head + size) % lines.length] = line;
+				size++;
+			} else {
+				lines[head] = line;
+				head = (head + 1) % lines.length;
+			}
+			return total++;
+		}
+
+		/*
+		 * 줄 번호의 현재 위치, 이미 삭제된 줄이면 -1
+		 */
+		int position(long seq) {
+			long index = seq - (total - size);
+			return (index >= 0 && index < size) ? (int) index : -1;
+		}
+
+		/*
+		 * 보관 중인 로그를 모두 삭제한다. 줄 번호는 이어서 증가하므로 삭제 전 줄 번호의 position은 -1
+		 */
+		void clear() {
+			for (int i = 0; i < lines.length; i++) {
+				lines[i] = null;
+			}
+			head = 0;
+			size = 0;
+		}
+
+		/*
+		 * 보관 수를 변경한다. 줄어드는 경우 오래된 로그를 삭제
+		 */
+		void resize(int capacity) {
+			String[] b = new String[capacity];
+			int n = Math.min(size, capacity);
+			for (int i = 0; i < n; i++) {
+				b[i] = get(size - n + i);
+			}
+			lines = b;
+			head = 0;
+			size = n;
+		}
+	}
+
+	/*
+	 * 다른 Thread에서 요청한 로그 작업
+	 */
+	private static class Pending {
+		static final int APPEND = 0;
+		static final int PROGRESS = 1;
+		static final int SLOT_OPEN = 2;
+		static final int SLOT_UPDATE = 3;
+		static final int SLOT_CLOSE = 4;
+
+		final int type;
+		final int slot;
+		final String message;
+
+		Pending(int type, int slot, String message) {
+			this.type = type;
+			this.slot = slot;
+			this.message = message;
+		}
+	}
+
+	private final LogBuffer buffer = new LogBuffer(DEFAULT_CAPACITY);
+	private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<Pending>();
+	// progressLogMessage로 출력한 마지막 줄 번호, 이후 다른 줄이 추가되면 -1
+	private long progressLine = -1L;
+	// Slot 별 줄 번호, UI Thread에서만 사용
+	private final long[] slotLines = new long[MAX_PROGRESS_SLOTS];
+	// Slot 사용 여부, slotUsed로 Lock
+	private final boolean[] slotUsed = new boolean[MAX_PROGRESS_SLOTS];
+	private boolean drainPosted = false;
+	private final Object drainLock = new Object();
+
+	private float textSize = 0;
+	private int textColor = Color.BLACK;
+
+	private final BaseAdapter adapter = new BaseAdapter() {
+		@Override
+		public int getCount() {
+			return buffer.size();
+		}
+
+		@Override
+		public Object getItem(int position) {
+			return buffer.get(position);
+		}
+
+		@Override
+		public long getItemId(int position) {
+			return position;
+		}
+
+		@Override
+		public View getView(int position, View convertView, ViewGroup parent) {
+			TextView view = (TextView) convertView;
+			if (view == null) {
+				view = new TextView(getContext());
+				// 폭을 고정하여 문자열만 바뀌는 경우 줄 높이가 같으면 다시 Layout하지 않도록 한다.
+				view.setLayoutParams(new AbsListView.LayoutParams(AbsListView.LayoutParams.MATCH_PARENT, AbsListView.LayoutParams.WRAP_CONTENT));
+				view.setTextSize(TypedValue.COMPLEX_UNIT_PX, textSize);
+				view.setTextColor(textColor);
+			}
+			view.setText(buffer.get(position));
+			return view;
+		}
+	};
+
+	/*
+	 * 다른 Thread에서 요청한 로그 작업을 UI Thread에서 한 번에 반영한다.
+	 * 줄이 추가된 경우만 notifyDataSetChanged를 호출하고,
+	 * 기존 줄의 문자열만 바뀐 경우는 화면에 보이는 해당 줄만 갱신한다.
+	 */
+	private final Runnable drain = new Runnable() {
+		@Override
+		public void run() {
+			synchronized (drainLock) {
+				drainPosted = false;
+			}
+			boolean added = false;
+			Pending p;
+			while ((p = pending.poll()) != null) {
+				switch (p.type) {
+					case Pending.PROGRESS:
+						if (replace(progressLine, p.message, added)) {
+							break;
+						}
+						progressLine = buffer.add(p.message);
+						added = true;
+						break;
+					case Pending.SLOT_OPEN:
+						slotLines[p.slot] = buffer.add(p.message);
+						progressLine = -1L;
+						added = true;
+						break;
+					case Pending.SLOT_UPDATE:
+						if (!replace(slotLines[p.slot], p.message, added)) {
+							// Ring Buffer에서 밀려난 Slot 줄은 하단에 다시 추가
+							slotLines[p.slot] = buffer.add(p.message);
+							progressLine = -1L;
+							added = true;
+						}
+						break;
+					case Pending.SLOT_CLOSE:
+						synchronized (slotUsed) {
+							slotUsed[p.slot] = false;
+						}
+						break;
+					default:
+						buffer.add(p.message);
+						progressLine = -1L;
+						added = true;
+						break;
+				}
+			}
+			if (added) {
+				adapter.notifyDataSetChanged();
+			}
+		}
+	};
+
+	/*
+	 * 줄 번호의 문자열을 바꾸고 화면에 보이면 해당 줄만 갱신한다.
+	 * @param seq long, 줄 번호
+	 * @param message String
+	 * @param added boolean, 이번에 줄이 추가되어 전체 갱신 예정이면 true
+	 * @return boolean, 이미 삭제된 줄이면 false
+	 */
+	private boolean replace(long seq, String message, boolean added) {
+		int position = (seq < 0) ? -1 : buffer.position(seq);
+		if (position < 0) {
+			return false;
+		}
+		buffer.set(position, message);
+		if (!added) {
+			int child = position - getFirstVisiblePosition();
+			if (child >= 0 && child < getChildCount()) {
+				((TextView) getChildAt(child)).setText(message);
+			}
+		}
+		return true;
+	}
 
-	private String prevText = null;
-	private boolean hasPrevText = false;
-	
 	/**
-	 * 생성자 
+	 * 생성자
 	 * @param context Context
 	 */
 	public PlayRTCLogView(Context context) {
 		super(context);
-		// 스크롤 갱신을 위해 
-		this.setMovementMethod(new ScrollingMovementMethod());
+		init(context, null);
 	}
 	/**
-	 * 생성자 
+	 * 생성자
 	 * @param context Context
 	 * @param attrs AttributeSet
 	 */
 	public PlayRTCLogView(Context context, AttributeSet attrs) {
 		super(context, attrs);
-		// 스크롤 갱신을 위해
-		this.setMovementMethod(new ScrollingMovementMethod());
+		init(context, attrs);
 	}
-	
+
 	/**
 	 * 생성자
 	 * @param context Context
@@ -55,40 +293,69 @@ public class PlayRTCLogView extends TextView{
 	 */
 	public PlayRTCLogView(Context context, AttributeSet attrs, int defStyleAttr) {
 		super(context, attrs, defStyleAttr);
-		// 스크롤 갱신을 위해
-		this.setMovementMethod(new ScrollingMovementMethod());
+		init(context, attrs);
+	}
+
+	private void init(Context context, AttributeSet attrs) {
+		textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 13, context.getResources().getDisplayMetrics());
+		if (attrs != null) {
+			TypedArray a = context.obtainStyledAttributes(attrs, STYLE_ATTRS);
+			textSize = a.getDimension(0, textSize);
+			textColor = a.getColor(1, textColor);
+			a.recycle();
+		}
+		// 로그가 추가되면 스크롤을 하단으로 이동
+		setTranscriptMode(TRANSCRIPT_MODE_ALWAYS_SCROLL);
+		setDivider(null);
+		setAdapter(adapter);
 	}
-	
+
+	/**
+	 * 로그 보관 수를 지정한다. 기본 DEFAULT_CAPACITY
+	 * @param capacity int
+	 */
+	public void setCapacity(final int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		this.post(new Runnable() {
+			public void run() {
+				buffer.resize(capacity);
+				adapter.notifyDataSetChanged();
+			}
+		});
+	}
+
 	/**
-	 * 로그뷰를 화면에 출력 
+	 * 로그뷰를 화면에 출력
 	 */
 	public void show() {
 		Animation animation = AnimationUtils.loadAnimation(this.getContext(), R.anim.log_show);
 		animation.setAnimationListener(new Animation.AnimationListener(){
-			
+
 			@Override
 			public void onAnimationEnd(Animation anim) {
-				
+
 			}
 
 			@Override
 			public void onAnimationRepeat(Animation anim) {
-		
+
 			}
 
 			@Override
 			public void onAnimationStart(Animation anim) {
 				PlayRTCLogView.this.setVisibility(View.VISIBLE);
 			}
-			
+
 		});
 		this.startAnimation(animation);
 		PlayRTCLogView.this.bringToFront();
-		
+
 	}
-	
+
 	/**
-	 * 로그뷰를 화면에서 숨긴다. 
+	 * 로그뷰를 화면에서 숨긴다.
 	 */
 	public void hide() {
 		Animation animation = AnimationUtils.loadAnimation(this.getContext(), R.anim.log_hide);
@@ -101,26 +368,30 @@ public class PlayRTCLogView extends TextView{
 
 			@Override
 			public void onAnimationRepeat(Animation anim) {
-				
+
 			}
 
 			@Override
 			public void onAnimationStart(Animation anim) {
-				
+
 			}
-			
+
 		});
 		this.startAnimation(animation);
 	}
-	
+
 	/**
-	 * 로그 창 초기화 
+	 * 로그 창 초기화
 	 */
 	public void clear() {
 		this.post(new Runnable(){
 		   public void run()
 		   {
-			   setText("");
+			   // 먼저 추가된 로그까지 반영 후 초기화
+			   drain.run();
+			   buffer.clear();
+			   progressLine = -1L;
+			   adapter.notifyDataSetChanged();
 		   }
 	   });
 	}
@@ -129,52 +400,70 @@ public class PlayRTCLogView extends TextView{
 	 * @param message String, 로그 출력 메세지
 	 */
 	public void appnedLogMessage(final String message) {
-
-
-	   this.post(new Runnable(){
-		   public void run()
-		   {
-			   if(hasPrevText == true) {
-				   hasPrevText = false;
-				   prevText = null;
-			   }
-			   append(message + "\n");
-			   final Layout layout = PlayRTCLogView.this.getLayout();
-		        if(layout != null){
-					int scrollDelta = layout.getLineBottom(getLineCount() - 1) - getScrollY() - getHeight();
-		            if(scrollDelta > 0) {
-						scrollBy(0, scrollDelta);
-					}
-		        }
-		   }
-	   });
-		    
+		enqueue(new Pending(Pending.APPEND, -1, message));
 	}
 	/**
 	 * 로그창 하단의 마지막 라인을 갱신하고 스크롤를 하단으로 이동한다.<br>
-	 * 데이터 채널 데이터 전송/수신 등의 진척도를 표시하기 위해 사용 
+	 * 데이터 채널 데이터 전송/수신 등의 진척도를 표시하기 위해 사용
 	 * @param message String, 로그 출력 메세지
 	 */
 	public void progressLogMessage(final String message) {
+		enqueue(new Pending(Pending.PROGRESS, -1, message));
+	}
 
-		this.post(new Runnable(){
-		   public void run()
-		   {
-			   if(hasPrevText == false) {
-				   hasPrevText = true;
-				   prevText = getText().toString();
-			   }
-			   setText(prevText + message+"\n");
-			   
-			   final Layout layout = getLayout();
-		        if(layout != null){
-		            int scrollDelta = layout.getLineBottom(getLineCount() - 1) - getScrollY() - getHeight();
-		            if(scrollDelta > 0) {
-						scrollBy(0, scrollDelta);
-					}
-		        }
-		   }
-		});
-		    
+	/**
+	 * 로그창 하단에 진행 상태 줄(Slot)을 추가한다.<br>
+	 * 전송 여러 건의 진척도를 동시에 표시할 때 전송 마다 Slot을 열고 updateProgressSlot으로 갱신한다.
+	 * 사용 가능한 Slot이 없으면 일반 로그로 추가하고 -1을 반환한다.
+	 * @param message String, 로그 출력 메세지
+	 * @return int, Slot 번호
+	 */
+	public int openProgressSlot(final String message) {
+		int slot = -1;
+		synchronized (slotUsed) {
+			for (int i = 0; i < slotUsed.length; i++) {
+				if (!slotUsed[i]) {
+					slotUsed[i] = true;
+					slot = i;
+					break;
+				}
+			}
+		}
+		enqueue(new Pending((slot < 0) ? Pending.APPEND : Pending.SLOT_OPEN, slot, message));
+		return slot;
+	}
+
+	/**
+	 * Slot 줄의 문자열을 바꾼다. 비용은 줄 길이에 비례하며 전체 로그 크기와 무관하다.
+	 * @param slot int, openProgressSlot 반환 값, -1이면 무시
+	 * @param message String, 로그 출력 메세지
+	 */
+	public void updateProgressSlot(int slot, final String message) {
+		if (slot < 0 || slot >= MAX_PROGRESS_SLOTS) {
+			return;
+		}
+		enqueue(new Pending(Pending.SLOT_UPDATE, slot, message));
+	}
+
+	/**
+	 * Slot을 반환한다. 마지막 문자열은 로그에 남는다.
+	 * @param slot int, openProgressSlot 반환 값, -1이면 무시
+	 */
+	public void closeProgressSlot(int slot) {
+		if (slot < 0 || slot >= MAX_PROGRESS_SLOTS) {
+			return;
+		}
+		enqueue(new Pending(Pending.SLOT_CLOSE, slot, null));
+	}
+
+	private void enqueue(Pending p) {
+		pending.add(p);
+		synchronized (drainLock) {
+			if (drainPosted) {
+				return;
+			}
+			drainPosted = true;
+		}
+		this.post(drain);
 	}
 }
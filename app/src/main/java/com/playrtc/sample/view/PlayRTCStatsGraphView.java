@@ -0,0 +1,202 @@
+package com.playrtc.sample.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.playrtc.sample.stats.StatsHistory;
+
+/*
+ * StatsHistory에 기록된 RTT, 대역폭, Packet Loss 추이를 Sparkline으로 출력하는 View
+ * 최근 WINDOW_MS 구간을 기록 시각 기준으로 그리므로 조회 주기가 바뀌어도 시간 축은 일정하다.
+ *
+ * - 줄 1개에 항목 1~2개(송신/수신, Local/Remote)를 겹쳐 그리며, 세로 축은 줄 별로 0 ~ 구간 최대값
+ * - Path, Paint, 조회 버퍼는 미리 할당하여 onDraw에서 객체를 생성하지 않는다.
+ * - Path 그리기는 하드웨어 가속 Canvas에서 처리된다.
+ *
+ * update는 어느 Thread에서나 호출할 수 있다.
+ */
+public class PlayRTCStatsGraphView extends View {
+
+    /*
+     * 출력 구간 msec
+     */
+    public static final long WINDOW_MS = 60 * 1000;
+
+    private static final String[] ROW_LABELS = {"RTT", "BW", "VLost", "ALost"};
+
+    /*
+     * 그리는 항목과 출력 줄, 색상
+     * 두번째 항목(수신, Remote)은 다른 색으로 겹쳐 그린다.
+     */
+    private static final StatsHistory.Field[] SERIES_FIELDS = {
+            StatsHistory.Field.Rtt,
+            StatsHistory.Field.SendBandwidth,
+            StatsHistory.Field.ReceiveBandwidth,
+            StatsHistory.Field.LocalVideoLostValue,
+            StatsHistory.Field.RemoteVideoLostValue,
+            StatsHistory.Field.LocalAudioLostValue,
+            StatsHistory.Field.RemoteAudioLostValue
+    };
+    private static final int[] SERIES_ROWS = {0, 1, 1, 2, 2, 3, 3};
+    private static final int[] SERIES_COLORS = {
+            0xFF1E88E5,
+            0xFF43A047, 0xFFFB8C00,
+            0xFF43A047, 0xFFFB8C00,
+            0xFF43A047, 0xFFFB8C00
+    };
+
+    private volatile StatsHistory history = null;
+
+    private final Path[] paths = new Path[SERIES_FIELDS.length];
+    private final Paint[] linePaints = new Paint[SERIES_FIELDS.length];
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint gridPaint = new Paint();
+    private final double[] rowMax = new double[ROW_LABELS.length];
+    private final int[] counts = new int[SERIES_FIELDS.length];
+
+    /*
+     * 항목 별 조회 버퍼, StatsHistory 보관 수 크기
+     */
+    private long[][] times = new long[SERIES_FIELDS.length][0];
+    private double[][] values = new double[SERIES_FIELDS.length][0];
+
+    /**
+     * 생성자
+     * @param context Context
+     */
+    public PlayRTCStatsGraphView(Context context) {
+        super(context);
+        init(context);
+    }
+
+    /**
+     * 생성자
+     * @param context Context
+     * @param attrs AttributeSet
+     */
+    public PlayRTCStatsGraphView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context);
+    }
+
+    /**
+     * 생성자
+     * @param context Context
+     * @param attrs AttributeSet
+     * @param defStyleAttr int
+     */
+    public PlayRTCStatsGraphView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context);
+    }
+
+    private void init(Context context) {
+        float density = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 1, context.getResources().getDisplayMetrics());
+        for (int i = 0; i < SERIES_FIELDS.length; i++) {
+            paths[i] = new Path();
+            Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            paint.setStyle(Paint.Style.STROKE);
+            paint.setStrokeWidth(1.5f * density);
+            paint.setColor(SERIES_COLORS[i]);
+            linePaints[i] = paint;
+        }
+        labelPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 9, context.getResources().getDisplayMetrics()));
+        labelPaint.setColor(Color.BLACK);
+        gridPaint.setColor(Color.GRAY);
+        gridPaint.setStrokeWidth(1);
+    }
+
+    /*
+     * 새 기록을 출력한다. StatsReport 기록 후 호출
+     * @param history StatsHistory
+     */
+    public void update(StatsHistory history) {
+        this.history = history;
+        postInvalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        StatsHistory history = this.history;
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        int width = getWidth() - left - getPaddingRight();
+        int rowHeight = (getHeight() - top - getPaddingBottom()) / ROW_LABELS.length;
+        if (history == null || width <= 0 || rowHeight <= 0) {
+            return;
+        }
+        ensureBuffers(history.getCapacity());
+
+        // 항목 별로 구간 데이터를 복사하고 줄 별 최대값을 구한다.
+        long end = 0L;
+        for (int r = 0; r < rowMax.length; r++) {
+            rowMax[r] = 0;
+        }
+        for (int i = 0; i < SERIES_FIELDS.length; i++) {
+            int n = history.copyTo(SERIES_FIELDS[i], WINDOW_MS, times[i], values[i]);
+            counts[i] = n;
+            if (n > 0) {
+                end = Math.max(end, times[i][n - 1]);
+            }
+            double[] v = values[i];
+            int row = SERIES_ROWS[i];
+            for (int k = 0; k < n; k++) {
+                if (v[k] > rowMax[row]) {
+                    rowMax[row] = v[k];
+                }
+            }
+        }
+        long start = end - WINDOW_MS;
+
+        for (int r = 0; r < ROW_LABELS.length; r++) {
+            float bottom = top + rowHeight * (r + 1);
+            canvas.drawLine(left, bottom, left + width, bottom, gridPaint);
+            canvas.drawText(ROW_LABELS[r], left + 2, top + rowHeight * r - labelPaint.ascent(), labelPaint);
+        }
+
+        for (int i = 0; i < SERIES_FIELDS.length; i++) {
+            int n = counts[i];
+            if (n < 2) {
+                continue;
+            }
+            int row = SERIES_ROWS[i];
+            double max = (rowMax[row] > 0) ? rowMax[row] : 1;
+            // 선 두께만큼 위/아래 여백
+            float bottom = top + rowHeight * (row + 1) - 2;
+            float scale = (rowHeight - 4) / (float) max;
+            long[] t = times[i];
+            double[] v = values[i];
+            Path path = paths[i];
+            path.rewind();
+            for (int k = 0; k < n; k++) {
+                float x = left + (float) ((t[k] - start) * width / (double) WINDOW_MS);
+                float y = bottom - (float) (v[k] * scale);
+                if (k == 0) {
+                    path.moveTo(x, y);
+                } else {
+                    path.lineTo(x, y);
+                }
+            }
+            canvas.drawPath(path, linePaints[i]);
+        }
+    }
+
+    /*
+     * 조회 버퍼를 StatsHistory 보관 수 크기로 맞춘다. StatsHistory가 바뀌는 경우만 할당
+     */
+    private void ensureBuffers(int capacity) {
+        if (values[0].length == capacity) {
+            return;
+        }
+        for (int i = 0; i < SERIES_FIELDS.length; i++) {
+            times[i] = new long[capacity];
+            values[i] = new double[capacity];
+        }
+    }
+}
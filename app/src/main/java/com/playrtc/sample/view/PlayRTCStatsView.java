@@ -0,0 +1,344 @@
+package com.playrtc.sample.view;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import com.sktelecom.playrtc.PlayRTCStatsReport;
+import com.sktelecom.playrtc.PlayRTCStatsReport.RatingValue;
+
+/*
+ * PlayRTC P2P 상태(PlayRTCStatsReport)를 출력하는 View
+ * TextView에 포맷 문자열을 지정하면 조회 시 마다 문자열 생성과 전체 텍스트 Layout을 다시 계산하므로,
+ * 줄 별 char[] 버퍼에 숫자를 직접 기록하고 Canvas에 그린다.
+ *
+ * - setStatsReport는 어느 Thread에서나 호출할 수 있으며, 내용이 바뀐 줄의 영역만 postInvalidate 한다.
+ * - 조회 시 객체를 생성하지 않는다. 줄 버퍼가 부족한 경우(긴 ICE 문자열)만 버퍼를 늘린다.
+ * - View 폭을 넘는 줄(긴 ICE 문자열)은 뒷부분을 생략하고 "…"을 붙여 그린다.
+ *
+ * Layout 속성 android:textSize, android:textColor를 사용한다.
+ */
+public class PlayRTCStatsView extends View {
+
+    private static final int[] STYLE_ATTRS = {android.R.attr.textSize, android.R.attr.textColor};
+
+    private static final int ROW_LOCAL = 0;
+    private static final int ROW_LOCAL_ICE = 1;
+    private static final int ROW_LOCAL_FRAME = 2;
+    private static final int ROW_LOCAL_CODEC = 3;
+    private static final int ROW_LOCAL_BANDWIDTH = 4;
+    private static final int ROW_RTT = 5;
+    private static final int ROW_RTT_RATING = 6;
+    private static final int ROW_LOCAL_VIDEO_LOST = 7;
+    private static final int ROW_LOCAL_AUDIO_LOST = 8;
+    private static final int ROW_REMOTE = 10;
+    private static final int ROW_REMOTE_ICE = 11;
+    private static final int ROW_REMOTE_FRAME = 12;
+    private static final int ROW_REMOTE_CODEC = 13;
+    private static final int ROW_REMOTE_BANDWIDTH = 14;
+    private static final int ROW_REMOTE_VIDEO_LOST = 15;
+    private static final int ROW_REMOTE_AUDIO_LOST = 16;
+    private static final int ROW_COUNT = 17;
+
+    private static final String[] SIZE_UNITS = {"B", "KB", "MB", "GB"};
+
+    private static final String ELLIPSIS = "\u2026";
+
+    /*
+     * 출력 줄 1개의 문자 버퍼
+     */
+    private static class Row {
+        char[] text = new char[48];
+        int length = 0;
+    }
+
+    private final Row[] rows = new Row[ROW_COUNT];
+
+    /*
+     * 줄 내용을 만드는 작업 버퍼, 기존 내용과 다른 경우만 Row에 복사한다.
+     */
+    private char[] line = new char[48];
+    private int lineLength = 0;
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint.FontMetrics fontMetrics = new Paint.FontMetrics();
+    private int lineHeight = 0;
+    private float ellipsisWidth = 0;
+    private final float[] measuredWidth = new float[1];
+
+    /**
+     * 생성자
+     * @param context Context
+     */
+    public PlayRTCStatsView(Context context) {
+        super(context);
+        init(context, null);
+    }
+
+    /**
+     * 생성자
+     * @param context Context
+     * @param attrs AttributeSet
+     */
+    public PlayRTCStatsView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(context, attrs);
+    }
+
+    /**
+     * 생성자
+     * @param context Context
+     * @param attrs AttributeSet
+     * @param defStyleAttr int
+     */
+    public PlayRTCStatsView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(context, attrs);
+    }
+
+    private void init(Context context, AttributeSet attrs) {
+        float textSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 10, context.getResources().getDisplayMetrics());
+        int textColor = Color.BLACK;
+        if (attrs != null) {
+            TypedArray a = context.obtainStyledAttributes(attrs, STYLE_ATTRS);
+            textSize = a.getDimension(0, textSize);
+            textColor = a.getColor(1, textColor);
+            a.recycle();
+        }
+        paint.setTextSize(textSize);
+        paint.setColor(textColor);
+        paint.getFontMetrics(fontMetrics);
+        lineHeight = (int) Math.ceil(fontMetrics.descent - fontMetrics.ascent + fontMetrics.leading);
+        ellipsisWidth = paint.measureText(ELLIPSIS);
+
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows[i] = new Row();
+        }
+        clear();
+    }
+
+    /*
+     * 조회 전 초기 상태로 출력한다.
+     */
+    public void clear() {
+        synchronized (rows) {
+            begin().append("Local").commit(ROW_LOCAL);
+            begin().append(" ICE:none").commit(ROW_LOCAL_ICE);
+            begin().append(" Frame:0x0x0").commit(ROW_LOCAL_FRAME);
+            begin().append(" 코덱:-").commit(ROW_LOCAL_CODEC);
+            begin().append(" Bandwidth[0bps]").commit(ROW_LOCAL_BANDWIDTH);
+            begin().append(" RTT[0]").commit(ROW_RTT);
+            begin().append(" RttRating[-]").commit(ROW_RTT_RATING);
+            begin().append(" VFLost[0]").commit(ROW_LOCAL_VIDEO_LOST);
+            begin().append(" AFLost[0]").commit(ROW_LOCAL_AUDIO_LOST);
+            begin().append("Remote").commit(ROW_REMOTE);
+            begin().append(" ICE:none").commit(ROW_REMOTE_ICE);
+            begin().append(" Frame:0x0x0").commit(ROW_REMOTE_FRAME);
+            begin().append(" 코덱:-").commit(ROW_REMOTE_CODEC);
+            begin().append(" Bandwidth[0bps]").commit(ROW_REMOTE_BANDWIDTH);
+            begin().append(" VFLost[0]").commit(ROW_REMOTE_VIDEO_LOST);
+            begin().append(" AFLost[0]").commit(ROW_REMOTE_AUDIO_LOST);
+        }
+    }
+
+    /*
+     * StatsReport를 출력한다. PlayRTCStatsReportObserver#onStatsReport에서 바로 호출할 수 있다.
+     * @param report PlayRTCStatsReport
+     */
+    public void setStatsReport(PlayRTCStatsReport report) {
+        synchronized (rows) {
+            begin().append(" ICE:").append(report.getLocalCandidate()).commit(ROW_LOCAL_ICE);
+            begin().append(" Frame:").append(report.getLocalFrameWidth()).append('x').append(report.getLocalFrameHeight())
+                    .append('x').append(report.getLocalFrameRate()).commit(ROW_LOCAL_FRAME);
+            begin().append(" 코덱:").append(report.getLocalVideoCodec()).append(',').append(report.getLocalAudioCodec()).commit(ROW_LOCAL_CODEC);
+            begin().append(" Bandwidth[").appendSize(report.getAvailableSendBandwidth()).append("ps]").commit(ROW_LOCAL_BANDWIDTH);
+            begin().append(" RTT[").append(report.getRtt()).append(']').commit(ROW_RTT);
+            begin().append(" RttRating").append(report.getRttRating()).commit(ROW_RTT_RATING);
+            begin().append(" VFLost").append(report.getLocalVideoFractionLost()).commit(ROW_LOCAL_VIDEO_LOST);
+            begin().append(" AFLost").append(report.getLocalAudioFractionLost()).commit(ROW_LOCAL_AUDIO_LOST);
+
+            begin().append(" ICE:").append(report.getRemoteCandidate()).commit(ROW_REMOTE_ICE);
+            begin().append(" Frame:").append(report.getRemoteFrameWidth()).append('x').append(report.getRemoteFrameHeight())
+                    .append('x').append(report.getRemoteFrameRate()).commit(ROW_REMOTE_FRAME);
+            begin().append(" 코덱:").append(report.getRemoteVideoCodec()).append(',').append(report.getRemoteAudioCodec()).commit(ROW_REMOTE_CODEC);
+            begin().append(" Bandwidth[").appendSize(report.getAvailableReceiveBandwidth()).append("ps]").commit(ROW_REMOTE_BANDWIDTH);
+            begin().append(" VFLost").append(report.getRemoteVideoFractionLost()).commit(ROW_REMOTE_VIDEO_LOST);
+            begin().append(" AFLost").append(report.getRemoteAudioFractionLost()).commit(ROW_REMOTE_AUDIO_LOST);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int height = getPaddingTop() + getPaddingBottom() + lineHeight * ROW_COUNT;
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float x = getPaddingLeft();
+        float y = getPaddingTop() - fontMetrics.ascent;
+        float maxWidth = getWidth() - getPaddingLeft() - getPaddingRight();
+        synchronized (rows) {
+            for (int i = 0; i < ROW_COUNT; i++) {
+                Row row = rows[i];
+                if (row.length > 0) {
+                    drawRow(canvas, row, x, y, maxWidth);
+                }
+                y += lineHeight;
+            }
+        }
+    }
+
+    /*
+     * 줄을 그린다. maxWidth를 넘으면 들어가는 문자까지만 그리고 "…"을 붙인다.
+     */
+    private void drawRow(Canvas canvas, Row row, float x, float y, float maxWidth) {
+        if (maxWidth <= ellipsisWidth || paint.measureText(row.text, 0, row.length) <= maxWidth) {
+            canvas.drawText(row.text, 0, row.length, x, y, paint);
+            return;
+        }
+        int count = paint.breakText(row.text, 0, row.length, maxWidth - ellipsisWidth, measuredWidth);
+        canvas.drawText(row.text, 0, count, x, y, paint);
+        canvas.drawText(ELLIPSIS, x + measuredWidth[0], y, paint);
+    }
+
+    private PlayRTCStatsView begin() {
+        lineLength = 0;
+        return this;
+    }
+
+    /*
+     * 작업 버퍼 내용이 기존 줄과 다르면 복사하고 해당 줄 영역만 다시 그린다.
+     */
+    private void commit(int index) {
+        Row row = rows[index];
+        if (row.length == lineLength) {
+            boolean same = true;
+            for (int i = 0; i < lineLength; i++) {
+                if (row.text[i] != line[i]) {
+                    same = false;
+                    break;
+                }
+            }
+            if (same) {
+                return;
+            }
+        }
+        if (row.text.length < lineLength) {
+            row.text = new char[line.length];
+        }
+        System.arraycopy(line, 0, row.text, 0, lineLength);
+        row.length = lineLength;
+
+        int top = getPaddingTop() + lineHeight * index;
+        postInvalidate(0, top, getWidth(), top + lineHeight);
+    }
+
+    private void ensure(int extra) {
+        if (lineLength + extra > line.length) {
+            char[] b = new char[Math.max(line.length * 2, lineLength + extra)];
+            System.arraycopy(line, 0, b, 0, lineLength);
+            line = b;
+        }
+    }
+
+    private PlayRTCStatsView append(char c) {
+        ensure(1);
+        line[lineLength++] = c;
+        return this;
+    }
+
+    private PlayRTCStatsView append(String s) {
+        if (s == null) {
+            s = "null";
+        }
+        int n = s.length();
+        ensure(n);
+        s.getChars(0, n, line, lineLength);
+        lineLength += n;
+        return this;
+    }
+
+    private PlayRTCStatsView append(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                return append(Long.toString(value));
+            }
+            append('-');
+            value = -value;
+        }
+        ensure(20);
+        int start = lineLength;
+        do {
+            line[lineLength++] = (char) ('0' + (value % 10));
+            value /= 10;
+        } while (value > 0);
+        // 역순으로 기록한 숫자를 뒤집는다.
+        for (int i = start, j = lineLength - 1; i < j; i++, j--) {
+            char t = line[i];
+            line[i] = line[j];
+            line[j] = t;
+        }
+        return this;
+    }
+
+    /*
+     * 소수점 이하 digits 자리까지 반올림하여 기록한다.
+     */
+    private PlayRTCStatsView append(double value, int digits) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return append(String.valueOf(value));
+        }
+        if (value < 0) {
+            append('-');
+            value = -value;
+        }
+        long scale = 1;
+        for (int i = 0; i < digits; i++) {
+            scale *= 10;
+        }
+        long scaled = Math.round(value * scale);
+        append(scaled / scale);
+        if (digits > 0) {
+            append('.');
+            long fraction = scaled % scale;
+            for (long d = scale / 10; d > 0; d /= 10) {
+                append((char) ('0' + (fraction / d) % 10));
+            }
+        }
+        return this;
+    }
+
+    /*
+     * [등급/값] 형식으로 기록한다.
+     */
+    private PlayRTCStatsView append(RatingValue rating) {
+        if (rating == null) {
+            return append("[-]");
+        }
+        return append('[').append(rating.getLevel()).append('/').append(rating.getValue(), 4).append(']');
+    }
+
+    /*
+     * 크기를 B/KB/MB/GB 단위로 기록한다.(android.text.format.Formatter#formatFileSize와 같은 1024 단위)
+     */
+    private PlayRTCStatsView appendSize(long size) {
+        double value = size;
+        int unit = 0;
+        while (value > 900 && unit < SIZE_UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        if (unit == 0) {
+            append(size);
+        } else {
+            append(value, (value < 100) ? 2 : 0);
+        }
+        return append(' ').append(SIZE_UNITS[unit]);
+    }
+}
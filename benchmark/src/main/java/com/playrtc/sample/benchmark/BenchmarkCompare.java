@@ -0,0 +1,139 @@
+package com.playrtc.sample.benchmark;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+ * JMH CSV 결과 2개를 비교하여 느려진 benchmark를 출력하는 Class, :benchmark:jmhCompare에서 실행
+ *
+ * usage : BenchmarkCompare <baseline.csv> <current.csv> [threshold %]
+ * 시간 측정(avgt, sample, ss)은 score가 커지면, 처리량(thrpt)은 score가 작아지면 느려진 것으로 판단한다.
+ * threshold 이상 느려진 benchmark가 있으면 exit code 1로 종료한다.
+ */
+public class BenchmarkCompare {
+
+    /*
+     * 결과 1건
+     */
+    static class Result {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Result(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = error;
+            this.unit = unit;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage : BenchmarkCompare <baseline.csv> <current.csv> [threshold %]");
+            System.exit(2);
+        }
+        double threshold = (args.length > 2) ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, Result> baseline = read(args[0]);
+        Map<String, Result> current = read(args[1]);
+
+        int regressions = 0;
+        for (Map.Entry<String, Result> e : current.entrySet()) {
+            Result base = baseline.get(e.getKey());
+            Result cur = e.getValue();
+            if (base == null || base.score == 0.0) {
+                System.out.println(String.format(Locale.US, "  NEW  %s %.3f %s", e.getKey(), cur.score, cur.unit));
+                continue;
+            }
+            // 양수이면 느려진 비율(%)
+            double change = "thrpt".equals(cur.mode) ? (base.score - cur.score) / base.score * 100.0
+                    : (cur.score - base.score) / base.score * 100.0;
+            boolean regressed = change > threshold && Math.abs(cur.score - base.score) > cur.error + base.error;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.println(String.format(Locale.US, "%s %s %.3f -> %.3f %s (%+.1f%%)", regressed ? "SLOW " : "  OK ",
+                    e.getKey(), base.score, cur.score, cur.unit, change));
+        }
+        System.out.println(regressions + " regression(s), threshold " + threshold + "%");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /*
+     * JMH CSV(-rf csv) 결과를 읽는다. 키는 benchmark 이름과 Param 값
+     */
+    static Map<String, Result> read(String path) throws IOException {
+        Map<String, Result> results = new LinkedHashMap<String, Result>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path), "UTF-8"));
+        try {
+            List<String> header = split(reader.readLine());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() == 0) {
+                    continue;
+                }
+                List<String> row = split(line);
+                StringBuilder key = new StringBuilder(row.get(0));
+                for (int i = 7; i < row.size() && i < header.size(); i++) {
+                    if (row.get(i).length() > 0) {
+                        key.append(' ').append(header.get(i).replace("Param: ", "")).append('=').append(row.get(i));
+                    }
+                }
+                results.put(key.toString(), new Result(row.get(1), parse(row.get(4)), parse(row.get(5)), row.get(6)));
+            }
+        } finally {
+            reader.close();
+        }
+        return results;
+    }
+
+    /*
+     * 단일 측정 등 JMH가 오차 값을 NaN 또는 빈 값으로 기록한 경우 0을 반환한다.
+     */
+    private static double parse(String s) {
+        double value;
+        try {
+            value = Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            return 0.0;
+        }
+        return Double.isNaN(value) ? 0.0 : value;
+    }
+
+    /*
+     * 따옴표로 묶인 CSV 1줄을 분리한다.
+     */
+    static List<String> split(String line) {
+        List<String> fields = new ArrayList<String>();
+        StringBuilder sb = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    sb.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                fields.add(sb.toString());
+                sb.setLength(0);
+            } else {
+                sb.append(c);
+            }
+        }
+        fields.add(sb.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,76 @@
+package com.playrtc.sample.benchmark;
+
+import com.playrtc.sample.transfer.PayloadCompressor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * PayloadCompressor 압축/해제 비용
+ * - packText : JSON 형식 텍스트 압축
+ * - packRandom : 압축 효과가 없는 데이터, 앞부분 sample 압축으로 포기하는 비용
+ * - unpack : packText 결과 압축 해제
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompressionBenchmark {
+
+    /*
+     * 메세지 크기(byte)
+     */
+    @Param({"1024", "65536"})
+    public int size;
+
+    private PayloadCompressor compressor;
+    private byte[] json;
+    private byte[] random;
+    private byte[] packed;
+
+    @Setup
+    public void setup() {
+        compressor = new PayloadCompressor();
+        StringBuilder sb = new StringBuilder(size + 64);
+        int i = 0;
+        while (sb.length() < size) {
+            sb.append("{\"seq\":").append(i).append(",\"type\":\"stats\",\"rtt\":").append(i % 97).append("},");
+            i++;
+        }
+        sb.setLength(size);
+        json = sb.toString().getBytes(Charset.forName("UTF-8"));
+        random = new byte[size];
+        new Random(1).nextBytes(random);
+        packed = compressor.pack(PayloadCompressor.KIND_TEXT, json);
+    }
+
+    @Benchmark
+    public byte[] packText() {
+        return compressor.pack(PayloadCompressor.KIND_TEXT, json);
+    }
+
+    @Benchmark
+    public byte[] packRandom() {
+        return compressor.pack(PayloadCompressor.KIND_BINARY, random);
+    }
+
+    @Benchmark
+    public boolean unpack(final Blackhole bh) {
+        return compressor.unpack(packed, new PayloadCompressor.Receiver() {
+            @Override
+            public void onPayload(int kind, byte[] data, int offset, int length) {
+                bh.consume(data[offset + length - 1]);
+            }
+        });
+    }
+}
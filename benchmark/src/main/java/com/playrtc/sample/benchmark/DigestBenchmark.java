@@ -0,0 +1,59 @@
+package com.playrtc.sample.benchmark;
+
+import com.playrtc.sample.transfer.RollingChecksum;
+import com.playrtc.sample.transfer.TransferDigest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 파일 전송 무결성/차이 계산 비용, 256KB 분할 데이터 1건 기준
+ * - sha256 : TransferDigest(SHA-256) 갱신
+ * - rollingChecksum : DeltaFileSender의 1byte 단위 RollingChecksum 이동
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DigestBenchmark {
+
+    private static final int CHUNK_SIZE = 256 * 1024;
+    private static final int BLOCK_SIZE = 4 * 1024;
+
+    private byte[] chunk;
+    private MessageDigest md;
+    private RollingChecksum rc;
+
+    @Setup
+    public void setup() {
+        chunk = new byte[CHUNK_SIZE + BLOCK_SIZE];
+        new Random(1).nextBytes(chunk);
+        md = TransferDigest.create();
+        rc = new RollingChecksum();
+    }
+
+    @Benchmark
+    public MessageDigest sha256() {
+        md.update(chunk, 0, CHUNK_SIZE);
+        return md;
+    }
+
+    @Benchmark
+    public int rollingChecksum() {
+        rc.reset(chunk, 0, BLOCK_SIZE);
+        int h = 0;
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            rc.roll(chunk[i], chunk[i + BLOCK_SIZE]);
+            h ^= rc.getValue();
+        }
+        return h;
+    }
+}
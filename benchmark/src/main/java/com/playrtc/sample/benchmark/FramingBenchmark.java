@@ -0,0 +1,74 @@
+package com.playrtc.sample.benchmark;
+
+import com.playrtc.sample.transfer.DataSendScheduler;
+import com.playrtc.sample.transfer.MessageBatcher;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * MessageBatcher 묶음 전송/분리 비용, 결과는 메세지 1건 기준
+ * - batchText : 작은 텍스트 메세지 MESSAGES건을 묶음에 추가하고 flush(DataSendScheduler 포함)
+ * - unpack : MESSAGES건 묶음 메세지 분리
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FramingBenchmark {
+
+    private static final int MESSAGES = 100;
+    private static final String MESSAGE = "{\"type\":\"cursor\",\"x\":120,\"y\":340}";
+
+    private NullDataChannel channel;
+    private MessageBatcher batcher;
+    private byte[] frame;
+
+    @Setup
+    public void setup() {
+        channel = new NullDataChannel();
+        DataSendScheduler scheduler = new DataSendScheduler();
+        scheduler.setDataChannel(channel);
+        // window를 길게 두어 Timer flush 없이 명시적으로 flush 한다.
+        batcher = new MessageBatcher(scheduler, 60000L, MessageBatcher.DEFAULT_MAX_BYTES);
+        for (int i = 0; i < MESSAGES; i++) {
+            batcher.sendText(MESSAGE);
+        }
+        batcher.flush();
+        frame = channel.getLastBytes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public byte[] batchText() {
+        for (int i = 0; i < MESSAGES; i++) {
+            batcher.sendText(MESSAGE);
+        }
+        batcher.flush();
+        return channel.getLastBytes();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int unpack(final Blackhole bh) {
+        return MessageBatcher.unpack(frame, new MessageBatcher.Receiver() {
+            @Override
+            public void onText(String text) {
+                bh.consume(text);
+            }
+
+            @Override
+            public void onBinary(byte[] data, int offset, int length) {
+                bh.consume(length);
+            }
+        });
+    }
+}
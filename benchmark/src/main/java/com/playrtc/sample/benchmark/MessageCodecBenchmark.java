@@ -0,0 +1,71 @@
+package com.playrtc.sample.benchmark;
+
+import com.playrtc.sample.transfer.BinaryMessageCodec;
+import com.playrtc.sample.transfer.MessageReader;
+import com.playrtc.sample.transfer.MessageSchema;
+import com.playrtc.sample.transfer.MessageWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 텔레메트리 메세지 1건 encode + decode 비용
+ * - string : 문자열로 만들어 UTF-8 encode 후 decode/parse 하는 방식
+ * - schema : MessageSchema 필드로 기록하고 MessageReader로 읽는 방식 (-prof gc로 할당이 없는지 확인)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageCodecBenchmark {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final MessageSchema STATS = new MessageSchema(1, "stats");
+    private static final int TIME = STATS.addLong("time");
+    private static final int RTT = STATS.addInt("rtt");
+    private static final int LOSS = STATS.addFloat("loss");
+
+    private BinaryMessageCodec codec;
+    private long sum = 0L;
+    private long seq = 0L;
+
+    private final BinaryMessageCodec.Receiver receiver = new BinaryMessageCodec.Receiver() {
+        @Override
+        public void onMessage(MessageReader reader) {
+            sum += reader.getLong(TIME) + reader.getInt(RTT) + (long) reader.getFloat(LOSS);
+        }
+    };
+
+    @Setup
+    public void setup() {
+        codec = new BinaryMessageCodec(null);
+        codec.register(STATS, receiver);
+    }
+
+    @Benchmark
+    public long string() {
+        long s = seq++;
+        byte[] data = (s + "," + (s % 100) + "," + 0.5f).getBytes(UTF8);
+        String[] fields = new String(data, UTF8).split(",");
+        sum += Long.parseLong(fields[0]) + Integer.parseInt(fields[1]) + (long) Float.parseFloat(fields[2]);
+        return sum;
+    }
+
+    @Benchmark
+    public long schema() {
+        long s = seq++;
+        MessageWriter writer = STATS.obtain();
+        writer.setLong(TIME, s).setInt(RTT, (int) (s % 100)).setFloat(LOSS, 0.5f);
+        codec.decode(writer.getBuffer());
+        writer.recycle();
+        return sum;
+    }
+}
@@ -0,0 +1,78 @@
+package com.playrtc.sample.benchmark;
+
+import com.sktelecom.playrtc.observer.PlayRTCDataObserver;
+import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+
+import java.io.File;
+import java.io.InputStream;
+
+/*
+ * 전송 데이터를 버리고 바로 onSuccess를 호출하는 PlayRTCData
+ * DataSendScheduler, MessageBatcher 등 송신 경로의 처리 비용만 측정하기 위해 사용한다.
+ * 마지막 sendByte 데이터는 getLastBytes로 확인할 수 있다.
+ */
+public class NullDataChannel extends PlayRTCData {
+
+    private long id = 0L;
+    private byte[] lastBytes = null;
+    private String lastMimeType = null;
+
+    public byte[] getLastBytes() {
+        return lastBytes;
+    }
+
+    public String getLastMimeType() {
+        return lastMimeType;
+    }
+
+    @Override
+    public void setFileReveMode(PlayRTCFileReveType mode) {
+
+    }
+
+    @Override
+    public PlayRTCFileReveType getFileReveMode() {
+        return PlayRTCFileReveType.Byte;
+    }
+
+    @Override
+    public void setEventObserver(PlayRTCDataObserver observer) {
+
+    }
+
+    @Override
+    public PlayRTCDataStatus getStatus() {
+        return PlayRTCDataStatus.Open;
+    }
+
+    @Override
+    public long sendText(String text, PlayRTCSendDataObserver observer) {
+        return complete(text.length() * 2L, observer);
+    }
+
+    @Override
+    public long sendByte(byte[] data, String mimeType, PlayRTCSendDataObserver observer) {
+        lastBytes = data;
+        lastMimeType = mimeType;
+        return complete(data.length, observer);
+    }
+
+    @Override
+    public long sendFile(File file, PlayRTCSendDataObserver observer) {
+        return complete(file.length(), observer);
+    }
+
+    @Override
+    public long sendFile(InputStream in, String fileName, PlayRTCSendDataObserver observer) {
+        return complete(0L, observer);
+    }
+
+    private long complete(long size, PlayRTCSendDataObserver observer) {
+        long sid = ++id;
+        if (observer != null) {
+            observer.onSuccess(this, "null", "null", sid, size);
+        }
+        return sid;
+    }
+}
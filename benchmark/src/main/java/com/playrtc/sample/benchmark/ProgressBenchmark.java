@@ -0,0 +1,60 @@
+package com.playrtc.sample.benchmark;
+
+import com.playrtc.sample.transfer.DataTransfer;
+import com.playrtc.sample.transfer.ProgressAggregator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 분할 데이터 1건 마다 호출되는 진행 정보 처리 비용
+ * - formatPerChunk : 분할 데이터 마다 String.format으로 진행 문자열을 만드는 방식
+ * - aggregatorUpdate : ProgressAggregator.Progress에 숫자만 기록하는 방식
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProgressBenchmark {
+
+    private static final long SIZE = 100L * 1024 * 1024;
+    private static final long COUNT = SIZE / (16 * 1024);
+
+    private ProgressAggregator aggregator;
+    private ProgressAggregator.Progress progress;
+    private long index = 0L;
+
+    @Setup
+    public void setup() {
+        aggregator = new ProgressAggregator(null);
+        progress = aggregator.open(DataTransfer.Direction.Receive, "onProgress");
+    }
+
+    @TearDown
+    public void tearDown() {
+        aggregator.shutdown();
+    }
+
+    @Benchmark
+    public String formatPerChunk() {
+        long i = (index++ % COUNT);
+        long send = i * 16 * 1024;
+        float per = ((float) send / (float) SIZE) * 100.0f;
+        return String.format(Locale.US, "Data onSending [%d/%d] [%d/%d]  %.2f%%", i + 1, COUNT, send, SIZE, per);
+    }
+
+    @Benchmark
+    public ProgressAggregator.Progress aggregatorUpdate() {
+        long i = (index++ % COUNT);
+        progress.update(i * 16 * 1024, SIZE, i + 1, COUNT);
+        return progress;
+    }
+}
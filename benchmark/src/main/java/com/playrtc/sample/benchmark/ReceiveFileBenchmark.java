@@ -0,0 +1,78 @@
+package com.playrtc.sample.benchmark;
+
+import com.playrtc.sample.transfer.StreamingFileSink;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * 수신 데이터 파일 기록 비용, 16KB 분할 데이터로 전체 size를 기록
+ * - fileOutputStream : 분할 데이터 마다 FileOutputStream#write 후 close
+ * - streamingFileSink : StreamingFileSink#write 후 close, Writer Thread 종료(fsync 포함)까지 대기
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReceiveFileBenchmark {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    /*
+     * 파일 크기(byte)
+     */
+    @Param({"1048576", "16777216"})
+    public int size;
+
+    private byte[] chunk;
+    private File file;
+
+    @Setup
+    public void setup() throws IOException {
+        chunk = new byte[CHUNK_SIZE];
+        new Random(1).nextBytes(chunk);
+        file = File.createTempFile("recv", ".bin");
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public long fileOutputStream() throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            for (int n = 0; n < size; n += CHUNK_SIZE) {
+                out.write(chunk, 0, Math.min(CHUNK_SIZE, size - n));
+            }
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        return file.length();
+    }
+
+    @Benchmark
+    public long streamingFileSink() throws IOException, InterruptedException {
+        StreamingFileSink sink = StreamingFileSink.create(file, null);
+        for (int n = 0; n < size; n += CHUNK_SIZE) {
+            sink.write(chunk, 0, Math.min(CHUNK_SIZE, size - n));
+        }
+        sink.close();
+        sink.await();
+        return sink.getWritten();
+    }
+}
@@ -0,0 +1,67 @@
+package com.playrtc.sample.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * onMessage/sendBinary의 텍스트 encode/decode 비용
+ * - defaultCharset : getBytes() / new String(data), 단말의 기본 문자셋 사용
+ * - utf8 : Charset을 지정한 getBytes(UTF8) / new String(data, UTF8)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TextCodecBenchmark {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final String SAMPLE = "DataChannel Hello 안녕하세요 こんにちは 你好... {\"x\":120,\"y\":340} ";
+
+    /*
+     * 메세지 길이(문자 수)
+     */
+    @Param({"64", "4096"})
+    public int length;
+
+    private String text;
+    private byte[] data;
+
+    @Setup
+    public void setup() {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            sb.append(SAMPLE);
+        }
+        sb.setLength(length);
+        text = sb.toString();
+        data = text.getBytes(UTF8);
+    }
+
+    @Benchmark
+    public byte[] encodeDefaultCharset() {
+        return text.getBytes();
+    }
+
+    @Benchmark
+    public byte[] encodeUtf8() {
+        return text.getBytes(UTF8);
+    }
+
+    @Benchmark
+    public String decodeDefaultCharset() {
+        return new String(data);
+    }
+
+    @Benchmark
+    public String decodeUtf8() {
+        return new String(data, UTF8);
+    }
+}
@@ -0,0 +1,711 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.observer.PlayRTCDataObserver;
+import com.sktelecom.playrtc.observer.PlayRTCSendDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCDataHeader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * PlayRTC 서비스 없이 같은 프로세스 안에서 두 PlayRTCData를 연결하는 Loopback 구현 Class
+ * 단말 2대 없이 일반 JVM에서 PlayRTCDataChannelHandler, DataSendScheduler 등의 전송 처리량, 분할 전송, 이벤트 순서를
+ * 측정하고 확인하기 위해 사용한다.
+ *
+ * PlayRTCData와 같은 방식으로 동작한다.
+ * - send* 는 전송 고유 아이디를 바로 반환하고, 데이터를 chunkSize 단위로 분할하여 송신 Thread에서 전송한다.
+ * - 송신 측 PlayRTCSendDataObserver : 분할 데이터 마다 onSending, 마지막 분할 데이터 전송 후 onSuccess, 실패 시 onError
+ * - 수신 측 PlayRTCDataObserver : 분할 데이터 마다 onProgress(누적 수신 크기), 수신 완료 시 onMessage
+ *   PlayRTCFileReveType.File 모드의 파일 수신은 Config#receiveDir에 저장하고 onMessage로 파일 경로를 전달한다.
+ * - 분할 데이터는 순서대로 전달되며, 수신 이벤트는 endpoint 별 1개의 Thread에서 호출된다.
+ *
+ * 네트워크 조건(Config)
+ * - latencyMs : 분할 데이터 전달 지연(단방향)
+ * - bandwidth : 초당 전송 크기 제한, 0이면 제한 없음
+ * - lossRate : 분할 데이터 손실 확률. 데이터 채널은 신뢰성 있는 전송이므로 손실된 데이터는 retransmitMs 후 재전송되며
+ *   재전송 크기만큼 bandwidth를 추가로 사용한다.
+ *
+ * 사용 예
+ *   LoopbackDataChannel[] pair = LoopbackDataChannel.createPair(new LoopbackDataChannel.Config().setLatency(20).setBandwidth(1024 * 1024));
+ *   pair[0].setEventObserver(handlerA);
+ *   pair[1].setEventObserver(handlerB);
+ *   pair[0].open();
+ */
+public class LoopbackDataChannel extends PlayRTCData {
+
+    /*
+     * 기본 분할 크기 16KB
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+
+    /*
+     * 기본 재전송 지연 200ms
+     */
+    public static final long DEFAULT_RETRANSMIT_MS = 200L;
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /*
+     * Loopback 네트워크 조건
+     */
+    public static class Config {
+        private int chunkSize = DEFAULT_CHUNK_SIZE;
+        private long latencyMs = 0L;
+        private long bandwidth = 0L;
+        private double lossRate = 0.0;
+        private long retransmitMs = DEFAULT_RETRANSMIT_MS;
+        private long seed = 0L;
+        private File receiveDir = new File(System.getProperty("java.io.tmpdir"));
+
+        /*
+         * @param chunkSize int, 분할 크기 byte
+         */
+        public Config setChunkSize(int chunkSize) {
+            if (chunkSize <= 0) {
+                throw new IllegalArgumentException("chunkSize " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+            return this;
+        }
+
+        /*
+         * @param latencyMs long, 단방향 전달 지연 msec
+         */
+        public Config setLatency(long latencyMs) {
+            this.latencyMs = Math.max(0L, latencyMs);
+            return this;
+        }
+
+        /*
+         * @param bandwidth long, 초당 전송 크기 byte, 0이면 제한 없음
+         */
+        public Config setBandwidth(long bandwidth) {
+            this.bandwidth = Math.max(0L, bandwidth);
+            return this;
+        }
+
+        /*
+         * @param lossRate double, 분할 데이터 손실 확률 0 ~ 1
+         */
+        public Config setLossRate(double lossRate) {
+            if (lossRate < 0.0 || lossRate >= 1.0) {
+                throw new IllegalArgumentException("lossRate " + lossRate);
+            }
+            this.lossRate = lossRate;
+            return this;
+        }
+
+        /*
+         * @param retransmitMs long, 손실된 분할 데이터의 재전송 지연 msec
+         */
+        public Config setRetransmit(long retransmitMs) {
+            this.retransmitMs = Math.max(0L, retransmitMs);
+            return this;
+        }
+
+        /*
+         * @param seed long, 손실 발생 Random seed, 같은 seed는 같은 손실 순서를 만든다.
+         */
+        public Config setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /*
+         * @param receiveDir File, PlayRTCFileReveType.File 모드의 파일 저장 폴더
+         */
+        public Config setReceiveDir(File receiveDir) {
+            this.receiveDir = receiveDir;
+            return this;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public long getLatency() {
+            return latencyMs;
+        }
+
+        public long getBandwidth() {
+            return bandwidth;
+        }
+
+        public double getLossRate() {
+            return lossRate;
+        }
+    }
+
+    /*
+     * 수신 측에 전달하는 PlayRTCDataHeader
+     */
+    private static class Header extends PlayRTCDataHeader {
+        private final long id;
+        private final long size;
+        private final long count;
+        private final int type;
+        private final String fileName;
+        private final String mimeType;
+
+        Header(long id, long size, long count, int type, String fileName, String mimeType) {
+            this.id = id;
+            this.size = size;
+            this.count = count;
+            this.type = type;
+            this.fileName = fileName;
+            this.mimeType = mimeType;
+        }
+
+        @Override
+        public long getId() {
+            return id;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public int getType() {
+            return type;
+        }
+
+        @Override
+        public boolean isBinary() {
+            return type == DATA_TYPE_BINARY;
+        }
+
+        @Override
+        public String getFileName() {
+            return fileName;
+        }
+
+        @Override
+        public String getMimeType() {
+            return mimeType;
+        }
+    }
+
+    /*
+     * 수신 측의 전송 1건 수신 상태, 수신 이벤트 Thread에서만 사용
+     */
+    private static class Inbound {
+        final Header header;
+        final File file;
+        final OutputStream out;
+        long received = 0L;
+        boolean failed = false;
+
+        Inbound(Header header, File file, OutputStream out) {
+            this.header = header;
+            this.file = file;
+            this.out = out;
+        }
+    }
+
+    /*
+     * 전달 대기 중인 분할 데이터
+     */
+    private static class Delivery {
+        final Header header;
+        final int index;
+        final byte[] chunk;
+
+        Delivery(Header header, int index, byte[] chunk) {
+            this.header = header;
+            this.index = index;
+            this.chunk = chunk;
+        }
+    }
+
+    private final String peerId;
+    private final String peerUid;
+    private final Config config;
+    private final Random random;
+    private final AtomicLong idGenerator = new AtomicLong();
+    private final ExecutorService sender;
+    private final ScheduledExecutorService receiver;
+
+    /*
+     * 전달 대기 중인 분할 데이터, 전달 예정 시각 순서
+     */
+    private final ConcurrentLinkedQueue<Delivery> deliveries = new ConcurrentLinkedQueue<Delivery>();
+
+    /*
+     * 수신 중인 전송 목록, 수신 이벤트 Thread에서만 사용
+     */
+    private final HashMap<Long, Inbound> inbounds = new HashMap<Long, Inbound>();
+
+    private LoopbackDataChannel peer = null;
+    private volatile PlayRTCDataObserver observer = null;
+    private volatile PlayRTCFileReveType fileReveMode = PlayRTCFileReveType.Byte;
+    private volatile PlayRTCDataStatus status = PlayRTCDataStatus.None;
+
+    /*
+     * 송신 Thread에서만 사용
+     * nextSendTime : bandwidth 제한에 따른 다음 전송 가능 시각(nano)
+     * lastDeliverTime : 순서 유지를 위한 마지막 전달 예정 시각(nano)
+     */
+    private long nextSendTime = 0L;
+    private long lastDeliverTime = 0L;
+
+    /*
+     * 생성자, createPair로 생성한다.
+     * @param peerId String, 이 endpoint의 peer 아이디, 상대방 이벤트의 peerId로 전달
+     * @param peerUid String, 이 endpoint의 사용자 아이디
+     * @param config Config
+     */
+    private LoopbackDataChannel(String peerId, String peerUid, Config config, long seed) {
+        this.peerId = peerId;
+        this.peerUid = peerUid;
+        this.config = config;
+        this.random = new Random(seed);
+        this.sender = Executors.newSingleThreadExecutor(daemon("LoopbackSend-" + peerId));
+        this.receiver = Executors.newSingleThreadScheduledExecutor(daemon("LoopbackRecv-" + peerId));
+    }
+
+    /*
+     * 서로 연결된 endpoint 2개를 생성한다. 상태는 None이며 open 호출 시 Open이 된다.
+     * @param config Config
+     * @return LoopbackDataChannel[2], peerId "loopback-a", "loopback-b"
+     */
+    public static LoopbackDataChannel[] createPair(Config config) {
+        return createPair("loopback-a", "loopback-b", config);
+    }
+
+    /*
+     * 서로 연결된 endpoint 2개를 생성한다.
+     * @param peerIdA String, 첫번째 endpoint의 peer 아이디
+     * @param peerIdB String, 두번째 endpoint의 peer 아이디
+     * @param config Config
+     * @return LoopbackDataChannel[2]
+     */
+    public static LoopbackDataChannel[] createPair(String peerIdA, String peerIdB, Config config) {
+        LoopbackDataChannel a = new LoopbackDataChannel(peerIdA, peerIdA, config, config.seed);
+        LoopbackDataChannel b = new LoopbackDataChannel(peerIdB, peerIdB, config, config.seed + 1);
+        a.peer = b;
+        b.peer = a;
+        return new LoopbackDataChannel[]{a, b};
+    }
+
+    /*
+     * 양쪽 endpoint를 Open 상태로 변경하고 각 PlayRTCDataObserver#onStateChange를 호출한다.
+     */
+    public void open() {
+        changeState(PlayRTCDataStatus.Open);
+        peer.changeState(PlayRTCDataStatus.Open);
+    }
+
+    /*
+     * 양쪽 endpoint를 Closed 상태로 변경하고 Thread를 종료한다.
+     * 진행 중인 송신은 onError(NotOpen)로 종료된다.
+     */
+    public void close() {
+        changeState(PlayRTCDataStatus.Closed);
+        peer.changeState(PlayRTCDataStatus.Closed);
+        shutdown();
+        peer.shutdown();
+    }
+
+    public String getPeerId() {
+        return peerId;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    @Override
+    public void setFileReveMode(PlayRTCFileReveType mode) {
+        this.fileReveMode = mode;
+    }
+
+    @Override
+    public PlayRTCFileReveType getFileReveMode() {
+        return fileReveMode;
+    }
+
+    @Override
+    public void setEventObserver(PlayRTCDataObserver observer) {
+        this.observer = observer;
+    }
+
+    @Override
+    public PlayRTCDataStatus getStatus() {
+        return status;
+    }
+
+    @Override
+    public long sendText(String text, PlayRTCSendDataObserver observer) {
+        byte[] data = text.getBytes(UTF8);
+        return send(PlayRTCDataHeader.DATA_TYPE_TEXT, new ByteArrayInputStream(data), data.length, null, null, observer);
+    }
+
+    @Override
+    public long sendByte(byte[] data, String mimeType, PlayRTCSendDataObserver observer) {
+        // 호출 후 원본 배열을 변경해도 전송 데이터에 영향이 없도록 복사
+        byte[] copy = data.clone();
+        return send(PlayRTCDataHeader.DATA_TYPE_BINARY, new ByteArrayInputStream(copy), copy.length, null, mimeType, observer);
+    }
+
+    @Override
+    public long sendFile(File file, PlayRTCSendDataObserver observer) {
+        InputStream in;
+        try {
+            in = new FileInputStream(file);
+        } catch (IOException e) {
+            long id = idGenerator.incrementAndGet();
+            notifyError(observer, id, PlayRTCDataCode.FileIO, e.getMessage());
+            return id;
+        }
+        return send(PlayRTCDataHeader.DATA_TYPE_BINARY, in, file.length(), file.getName(), null, observer);
+    }
+
+    /*
+     * InputStream 파일 전송, InputStream#available은 전체 크기가 아닐 수 있으므로
+     * 송신 Thread에서 끝까지 읽어 임시 파일에 저장한 후 전송한다.
+     */
+    @Override
+    public long sendFile(InputStream in, String fileName, PlayRTCSendDataObserver observer) {
+        return send(PlayRTCDataHeader.DATA_TYPE_BINARY, in, -1L, fileName, null, observer);
+    }
+
+    private long send(final int type, final InputStream in, final long size, final String fileName, final String mimeType,
+                      final PlayRTCSendDataObserver observer) {
+        final long id = idGenerator.incrementAndGet();
+        if (status != PlayRTCDataStatus.Open) {
+            closeQuietly(in);
+            notifyError(observer, id, PlayRTCDataCode.NotOpen, "data channel not open");
+            return id;
+        }
+        try {
+            sender.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        transmit(id, type, in, size, fileName, mimeType, observer);
+                    } finally {
+                        closeQuietly(in);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            closeQuietly(in);
+            notifyError(observer, id, PlayRTCDataCode.NotOpen, "data channel closed");
+        }
+        return id;
+    }
+
+    /*
+     * 분할 전송, 송신 Thread에서 호출
+     * size가 0보다 작으면 크기를 모르는 InputStream으로 임시 파일에 저장하여 크기를 정한 후 전송한다.
+     */
+    private void transmit(long id, int type, InputStream in, long size, String fileName, String mimeType,
+                          PlayRTCSendDataObserver observer) {
+        if (size < 0L) {
+            File spool = null;
+            InputStream spooled = null;
+            try {
+                spool = spool(in);
+                spooled = new FileInputStream(spool);
+                transmit(id, type, spooled, spool.length(), fileName, mimeType, observer);
+            } catch (IOException e) {
+                notifyError(observer, id, PlayRTCDataCode.FileIO, e.getMessage());
+            } finally {
+                closeQuietly(spooled);
+                if (spool != null) {
+                    spool.delete();
+                }
+            }
+            return;
+        }
+        int chunkSize = config.chunkSize;
+        long count = Math.max(1L, (size + chunkSize - 1) / chunkSize);
+        Header header = new Header(id, size, count, type, fileName, mimeType);
+        long sent = 0L;
+        for (long index = 0; index < count; index++) {
+            if (status != PlayRTCDataStatus.Open) {
+                notifyError(observer, id, PlayRTCDataCode.NotOpen, "data channel closed");
+                return;
+            }
+            int length = (int) Math.min(chunkSize, size - sent);
+            byte[] chunk = new byte[length];
+            try {
+                readFully(in, chunk);
+            } catch (IOException e) {
+                // 전송 중 InputStream을 닫은 경우(전송 취소) 포함
+                peer.deliver(header, (int) index, null, pendingDelay());
+                notifyError(observer, id, PlayRTCDataCode.FileIO, e.getMessage());
+                return;
+            }
+            if (!pace(length)) {
+                notifyError(observer, id, PlayRTCDataCode.SendFail, "interrupted");
+                return;
+            }
+            sent += length;
+            peer.deliver(header, (int) index, chunk, deliverDelay(length));
+            if (observer != null) {
+                observer.onSending(this, peer.peerId, peer.peerUid, id, size, sent, index, count);
+            }
+        }
+        if (observer != null) {
+            observer.onSuccess(this, peer.peerId, peer.peerUid, id, size);
+        }
+    }
+
+    /*
+     * bandwidth 제한만큼 대기한다. 손실된 분할 데이터는 재전송 크기만큼 추가로 사용한다.
+     * @return boolean, 대기 중 중단되면 false
+     */
+    private boolean pace(int length) {
+        if (config.bandwidth <= 0L) {
+            return true;
+        }
+        long now = System.nanoTime();
+        if (nextSendTime < now) {
+            nextSendTime = now;
+        }
+        nextSendTime += length * 1000000000L / config.bandwidth;
+        long wait = nextSendTime - now;
+        if (wait > 0L) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * 분할 데이터의 전달 지연(nano)을 계산한다. 손실이 발생하면 재전송 지연과 bandwidth를 추가한다.
+     * 먼저 보낸 데이터보다 먼저 도착하지 않도록 마지막 전달 예정 시각 이후로 정한다.
+     */
+    private long deliverDelay(int length) {
+        long now = System.nanoTime();
+        long delay = TimeUnit.MILLISECONDS.toNanos(config.latencyMs);
+        while (config.lossRate > 0.0 && random.nextDouble() < config.lossRate) {
+            delay += TimeUnit.MILLISECONDS.toNanos(config.retransmitMs);
+            pace(length);
+        }
+        long deliverTime = Math.max(System.nanoTime() + delay, lastDeliverTime);
+        lastDeliverTime = deliverTime;
+        return deliverTime - now;
+    }
+
+    /*
+     * 마지막 전달 예정 시각까지의 지연(nano), 전송 중단 전달 시 사용
+     */
+    private long pendingDelay() {
+        return Math.max(0L, lastDeliverTime - System.nanoTime());
+    }
+
+    /*
+     * 분할 데이터 수신 처리를 예약한다. 상대방 송신 Thread에서 호출
+     * 예약 작업은 대기열의 첫번째 항목을 처리하므로, 예약 시각 오차로 작업 실행 순서가 바뀌어도 전달 순서는 유지된다.
+     * @param chunk byte[], null이면 전송 중단
+     */
+    private void deliver(Header header, int index, byte[] chunk, long delay) {
+        deliveries.add(new Delivery(header, index, chunk));
+        try {
+            receiver.schedule(deliverTask, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // 닫힌 경우
+            deliveries.clear();
+        }
+    }
+
+    private final Runnable deliverTask = new Runnable() {
+        @Override
+        public void run() {
+            Delivery delivery = deliveries.poll();
+            if (delivery == null) {
+                return;
+            }
+            if (delivery.chunk != null) {
+                receive(delivery.header, delivery.index, delivery.chunk);
+            } else {
+                abort(delivery.header.getId());
+            }
+        }
+    };
+
+    /*
+     * 송신 측이 전송을 중단한 경우 수신 중인 데이터를 정리한다. 수신 이벤트 Thread에서 호출
+     */
+    private void abort(long id) {
+        Inbound inbound = inbounds.remove(id);
+        if (inbound != null) {
+            closeQuietly(inbound.out);
+            if (inbound.file != null) {
+                inbound.file.delete();
+            }
+        }
+    }
+
+    /*
+     * 분할 데이터 수신, 수신 이벤트 Thread에서 호출
+     */
+    private void receive(Header header, int index, byte[] chunk) {
+        Inbound inbound = inbounds.get(header.getId());
+        if (inbound == null) {
+            inbound = open(header);
+            inbounds.put(header.getId(), inbound);
+        }
+        if (!inbound.failed) {
+            try {
+                inbound.out.write(chunk);
+            } catch (IOException e) {
+                inbound.failed = true;
+                PlayRTCDataObserver o = observer;
+                if (o != null) {
+                    o.onError(this, peer.peerId, peer.peerUid, header.getId(), PlayRTCDataCode.FileIO, e.getMessage());
+                }
+            }
+        }
+        inbound.received += chunk.length;
+        PlayRTCDataObserver o = observer;
+        if (!inbound.failed && o != null) {
+            o.onProgress(this, peer.peerId, peer.peerUid, index, inbound.received, header);
+        }
+        if (index + 1 < header.getCount()) {
+            return;
+        }
+        inbounds.remove(header.getId());
+        closeQuietly(inbound.out);
+        if (inbound.failed || o == null) {
+            return;
+        }
+        byte[] data = (inbound.file != null) ? inbound.file.getAbsolutePath().getBytes(UTF8)
+                : ((ByteArrayOutputStream) inbound.out).toByteArray();
+        o.onMessage(this, peer.peerId, peer.peerUid, header, data);
+    }
+
+    /*
+     * 수신 데이터 저장 대상을 만든다. File 모드의 파일 수신은 파일, 그 외에는 메모리
+     */
+    private Inbound open(Header header) {
+        if (header.getFileName() != null && fileReveMode == PlayRTCFileReveType.File) {
+            File file = new File(config.receiveDir, new File(header.getFileName()).getName());
+            try {
+                return new Inbound(header, file, new FileOutputStream(file));
+            } catch (IOException e) {
+                Inbound inbound = new Inbound(header, null, new ByteArrayOutputStream());
+                inbound.failed = true;
+                PlayRTCDataObserver o = observer;
+                if (o != null) {
+                    o.onError(this, peer.peerId, peer.peerUid, header.getId(), PlayRTCDataCode.FileIO, e.getMessage());
+                }
+                return inbound;
+            }
+        }
+        return new Inbound(header, null, new ByteArrayOutputStream((int) Math.min(header.getSize(), Integer.MAX_VALUE - 8)));
+    }
+
+    private void changeState(PlayRTCDataStatus state) {
+        if (status == state) {
+            return;
+        }
+        status = state;
+        PlayRTCDataObserver o = observer;
+        if (o != null) {
+            o.onStateChange(this, peer.peerId, peer.peerUid, state);
+        }
+    }
+
+    /*
+     * 대기 중인 송신은 onError(NotOpen)로 종료되도록 실행하고, 아직 전달되지 않은 수신 데이터는 버린다.
+     */
+    private void shutdown() {
+        sender.shutdown();
+        receiver.shutdownNow();
+    }
+
+    private void notifyError(PlayRTCSendDataObserver observer, long id, PlayRTCDataCode code, String desc) {
+        if (observer != null) {
+            observer.onError(this, peer.peerId, peer.peerUid, id, code, desc);
+        }
+    }
+
+    /*
+     * InputStream을 끝까지 읽어 임시 파일에 저장한다.
+     */
+    private static File spool(InputStream in) throws IOException {
+        File file = File.createTempFile("loopback", ".spool");
+        OutputStream out = new FileOutputStream(file);
+        boolean done = false;
+        try {
+            byte[] buf = new byte[DEFAULT_CHUNK_SIZE];
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                out.write(buf, 0, n);
+            }
+            done = true;
+        } finally {
+            out.close();
+            if (!done) {
+                file.delete();
+            }
+        }
+        return file;
+    }
+
+    private static void readFully(InputStream in, byte[] b) throws IOException {
+        int n = 0;
+        while (n < b.length) {
+            int r = in.read(b, n, b.length - n);
+            if (r < 0) {
+                throw new IOException("unexpected end of stream");
+            }
+            n += r;
+        }
+    }
+
+    private static void closeQuietly(Closeable c) {
+        if (c == null) {
+            return;
+        }
+        try {
+            c.close();
+        } catch (IOException e) {
+            // 무시
+        }
+    }
+
+    private static ThreadFactory daemon(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            }
+        };
+    }
+}
@@ -0,0 +1,380 @@
+package com.playrtc.sample.transfer;
+
+import com.sktelecom.playrtc.observer.PlayRTCDataObserver;
+import com.sktelecom.playrtc.stream.PlayRTCData;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataCode;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCDataStatus;
+import com.sktelecom.playrtc.stream.PlayRTCData.PlayRTCFileReveType;
+import com.sktelecom.playrtc.stream.PlayRTCDataHeader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/*
+ * LoopbackDataChannel 2개를 연결하여 DataSendScheduler, 분할 전송(ResumableFileSender/Receiver)과
+ * PlayRTCData 이벤트를 단말 없이 확인하는 테스트
+ */
+public class LoopbackTransferTest {
+
+    private static final long TIMEOUT_SEC = 20L;
+
+    @Rule
+    public TemporaryFolder temp = new TemporaryFolder();
+
+    private LoopbackDataChannel[] pair;
+
+    @Before
+    public void setUp() throws IOException {
+        pair = LoopbackDataChannel.createPair(new LoopbackDataChannel.Config()
+                .setLatency(1)
+                .setReceiveDir(temp.newFolder("loopback")));
+        pair[0].setFileReveMode(PlayRTCFileReveType.Byte);
+        pair[1].setFileReveMode(PlayRTCFileReveType.Byte);
+    }
+
+    @After
+    public void tearDown() {
+        pair[0].close();
+    }
+
+    /*
+     * 분할 전송 파일이 수신 측에 같은 내용으로 저장되고, 양쪽 Listener에 상대방 peer 아이디가 전달된다.
+     */
+    @Test
+    public void resumableTransferCompletesOverLoopback() throws Exception {
+        File sendDir = temp.newFolder("send");
+        File recvDir = temp.newFolder("recv");
+        byte[] content = random(ResumableFileSender.CHUNK_SIZE * 5 + 123, 1);
+        File src = write(new File(sendDir, "sample.bin"), content);
+
+        DataSendScheduler senderScheduler = new DataSendScheduler();
+        DataSendScheduler receiverScheduler = new DataSendScheduler();
+        senderScheduler.setDataChannel(pair[0]);
+        receiverScheduler.setDataChannel(pair[1]);
+
+        final CountDownLatch sent = new CountDownLatch(1);
+        final CountDownLatch received = new CountDownLatch(1);
+        final AtomicReference<String> sendPeer = new AtomicReference<String>();
+        final AtomicReference<String> recvPeer = new AtomicReference<String>();
+        final AtomicReference<File> recvFile = new AtomicReference<File>();
+        final AtomicReference<String> error = new AtomicReference<String>();
+
+        final ResumableFileSender sender = new ResumableFileSender(new TransferJournal(temp.newFile("journal")), senderScheduler,
+                new ResumableFileSender.Listener() {
+            @Override
+            public void onStart(String name, int skipped, int count) {
+
+            }
+
+            @Override
+            public void onProgress(String name, int acked, int count) {
+
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, long size, long elapsed) {
+                sendPeer.set(peerId);
+                sent.countDown();
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                error.set("send " + desc);
+                sent.countDown();
+            }
+        });
+        final ResumableFileReceiver receiver = new ResumableFileReceiver(recvDir, receiverScheduler, new ResumableFileReceiver.Listener() {
+            @Override
+            public void onStart(String name, int skipped, int count) {
+
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, File file, long bytes, long elapsed) {
+                recvPeer.set(peerId);
+                recvFile.set(file);
+                received.countDown();
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                error.set("receive " + desc);
+                received.countDown();
+            }
+        });
+
+        pair[0].setEventObserver(new MessageObserver() {
+            @Override
+            void onData(String peerId, PlayRTCDataHeader header, byte[] data) {
+                if (TransferProtocol.MIME_CONTROL.equals(header.getMimeType())) {
+                    sender.onControl(peerId, TransferProtocol.decodeControl(data));
+                }
+            }
+        });
+        pair[1].setEventObserver(new MessageObserver() {
+            @Override
+            void onData(String peerId, PlayRTCDataHeader header, byte[] data) {
+                if (TransferProtocol.MIME_CHUNK.equals(header.getMimeType())) {
+                    receiver.onChunk(data);
+                } else if (TransferProtocol.MIME_CONTROL.equals(header.getMimeType())) {
+                    receiver.onControl(peerId, TransferProtocol.decodeControl(data));
+                }
+            }
+        });
+        pair[0].open();
+
+        assertTrue(sender.send(src));
+        assertTrue(sent.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        assertTrue(received.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        receiver.shutdown();
+
+        assertNull(error.get());
+        assertEquals("loopback-b", sendPeer.get());
+        assertEquals("loopback-a", recvPeer.get());
+        assertArrayEquals(content, read(recvFile.get()));
+    }
+
+    /*
+     * 공백이 있는 파일 명도 같은 이름의 이전 파일을 기준으로 차이 전송하고, 이름 앞부분과 같은 다른 파일은 건드리지 않는다.
+     */
+    @Test
+    public void deltaTransferKeepsFileNameWithSpaces() throws Exception {
+        String name = "Q3 report v2.docx";
+        File sendDir = temp.newFolder("delta-send");
+        File recvDir = temp.newFolder("delta-recv");
+        byte[] basis = random(DeltaFileReceiver.MIN_BLOCK_SIZE * 40, 3);
+        byte[] content = basis.clone();
+        System.arraycopy(random(100, 4), 0, content, DeltaFileReceiver.MIN_BLOCK_SIZE * 10, 100);
+        byte[] other = random(1000, 5);
+        write(new File(recvDir, name), basis);
+        write(new File(recvDir, "Q3"), other);
+        File src = write(new File(sendDir, name), content);
+
+        DataSendScheduler senderScheduler = new DataSendScheduler();
+        DataSendScheduler receiverScheduler = new DataSendScheduler();
+        senderScheduler.setDataChannel(pair[0]);
+        receiverScheduler.setDataChannel(pair[1]);
+
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicReference<File> recvFile = new AtomicReference<File>();
+        final AtomicReference<String> error = new AtomicReference<String>();
+
+        final DeltaFileSender sender = new DeltaFileSender(senderScheduler, new DeltaFileSender.Listener() {
+            @Override
+            public void onStart(String name, int blocks) {
+
+            }
+
+            @Override
+            public void onComplete(String peerId, String name, long size, long literal, long elapsed) {
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String peerId, String name, String desc) {
+                error.set("send " + desc);
+                done.countDown();
+            }
+        });
+        final DeltaFileReceiver receiver = new DeltaFileReceiver(recvDir, receiverScheduler, new DeltaFileReceiver.Listener() {
+            @Override
+            public void onStart(String name, int blocks) {
+
+            }
+
+            @Override
+            public void onComplete(String name, File file) {
+                recvFile.set(file);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(String name, String desc) {
+                error.set("receive " + desc);
+                done.countDown();
+            }
+        });
+
+        pair[0].setEventObserver(new MessageObserver() {
+            @Override
+            void onData(String peerId, PlayRTCDataHeader header, byte[] data) {
+                if (TransferProtocol.MIME_SIGNATURE.equals(header.getMimeType())) {
+                    sender.onSignature(peerId, data);
+                }
+            }
+        });
+        pair[1].setEventObserver(new MessageObserver() {
+            @Override
+            void onData(String peerId, PlayRTCDataHeader header, byte[] data) {
+                if (TransferProtocol.MIME_DELTA.equals(header.getMimeType())) {
+                    receiver.onDelta(data);
+                } else if (TransferProtocol.MIME_CONTROL.equals(header.getMimeType())) {
+                    receiver.onControl(TransferProtocol.decodeControl(data));
+                }
+            }
+        });
+        pair[0].open();
+
+        assertTrue(sender.send(src));
+        assertTrue(done.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        receiver.shutdown();
+
+        assertNull(error.get());
+        assertEquals(name, recvFile.get().getName());
+        assertArrayEquals(content, read(recvFile.get()));
+        assertArrayEquals(other, read(new File(recvDir, "Q3")));
+    }
+
+    /*
+     * available()이 0인 InputStream도 끝까지 읽어서 전송한다.
+     */
+    @Test
+    public void sendFileStreamReadsUntilEof() throws Exception {
+        final byte[] content = random(LoopbackDataChannel.DEFAULT_CHUNK_SIZE * 3 + 7, 2);
+        final CountDownLatch done = new CountDownLatch(2);
+        final AtomicReference<byte[]> message = new AtomicReference<byte[]>();
+        final AtomicReference<Long> sentSize = new AtomicReference<Long>();
+
+        pair[1].setEventObserver(new MessageObserver() {
+            @Override
+            void onData(String peerId, PlayRTCDataHeader header, byte[] data) {
+                message.set(data);
+                done.countDown();
+            }
+        });
+        pair[0].open();
+
+        InputStream in = new ByteArrayInputStream(content) {
+            @Override
+            public synchronized int available() {
+                return 0;
+            }
+        };
+        pair[0].sendFile(in, "stream.bin", new SilentSendObserver() {
+            @Override
+            public void onSuccess(PlayRTCData obj, String peerId, String peerUid, long id, long size) {
+                sentSize.set(size);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+                done.countDown();
+            }
+        });
+
+        assertTrue(done.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        assertEquals(Long.valueOf(content.length), sentSize.get());
+        assertArrayEquals(content, message.get());
+    }
+
+    /*
+     * 제어 메세지는 먼저 요청한 Bulk 데이터가 전송 대기 중이어도 먼저 전송된다.
+     */
+    @Test
+    public void controlMessagesOvertakeQueuedBulkData() throws Exception {
+        final int bulkCount = 8;
+        final CountDownLatch done = new CountDownLatch(bulkCount + 1);
+        final StringBuilder order = new StringBuilder();
+
+        pair[1].setEventObserver(new MessageObserver() {
+            @Override
+            void onData(String peerId, PlayRTCDataHeader header, byte[] data) {
+                synchronized (order) {
+                    order.append(TransferProtocol.MIME_CONTROL.equals(header.getMimeType()) ? 'C' : 'B');
+                }
+                done.countDown();
+            }
+        });
+        pair[0].open();
+
+        DataSendScheduler scheduler = new DataSendScheduler();
+        scheduler.setDataChannel(pair[0]);
+        byte[] bulk = new byte[(int) DataSendScheduler.BULK_LIMIT];
+        for (int i = 0; i < bulkCount; i++) {
+            scheduler.sendByte(DataSendScheduler.Priority.Bulk, bulk, TransferProtocol.MIME_CHUNK, SilentSendObserver.INSTANCE);
+        }
+        scheduler.sendByte(DataSendScheduler.Priority.Control, new byte[1], TransferProtocol.MIME_CONTROL, SilentSendObserver.INSTANCE);
+
+        assertTrue(done.await(TIMEOUT_SEC, TimeUnit.SECONDS));
+        String received;
+        synchronized (order) {
+            received = order.toString();
+        }
+        assertTrue(received, received.indexOf('C') < bulkCount);
+    }
+
+    /*
+     * onMessage만 전달하는 PlayRTCDataObserver
+     */
+    private abstract static class MessageObserver implements PlayRTCDataObserver {
+
+        abstract void onData(String peerId, PlayRTCDataHeader header, byte[] data);
+
+        @Override
+        public void onProgress(PlayRTCData obj, String peerId, String peerUid, int index, long received, PlayRTCDataHeader header) {
+
+        }
+
+        @Override
+        public void onMessage(PlayRTCData obj, String peerId, String peerUid, PlayRTCDataHeader header, byte[] data) {
+            onData(peerId, header, data);
+        }
+
+        @Override
+        public void onError(PlayRTCData obj, String peerId, String peerUid, long id, PlayRTCDataCode code, String desc) {
+
+        }
+
+        @Override
+        public void onStateChange(PlayRTCData obj, String peerId, String peerUid, PlayRTCDataStatus state) {
+
+        }
+    }
+
+    private static byte[] random(int size, long seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private static File write(File file, byte[] data) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(data);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] data = new byte[(int) raf.length()];
+            raf.readFully(data);
+            return data;
+        } finally {
+            raf.close();
+        }
+    }
+}